@@ -0,0 +1,72 @@
+package Blockchain;
+
+import java.security.PublicKey;
+import java.util.Arrays;
+import org.bouncycastle.crypto.digests.RIPEMD160Digest;
+
+/**
+ * Compact wallet address: the 20 byte RIPEMD-160 hash of the SHA-256 hash of
+ * an encoded public key.
+ */
+public final class Address {
+
+    /**
+     * Size of an address (bytes)
+     */
+    public static final int SIZE = 20;
+
+    private final byte[] bytes;
+    private final int hashCode;
+
+    private Address(byte[] bytes) {
+        this.bytes = bytes;
+        this.hashCode = Arrays.hashCode(bytes);
+    }
+
+    /**
+     * Returns the address of a public key.
+     *
+     * @param key The public key
+     * @return The address of the key
+     */
+    public static Address of(PublicKey key) {
+        return fromEncodedKey(key.getEncoded());
+    }
+
+    /**
+     * Returns the address of an encoded public key.
+     *
+     * @param encodedKey The encoded public key
+     * @return The address of the key
+     */
+    public static Address fromEncodedKey(byte[] encodedKey) {
+        byte[] sha = SecureTransaction.sha256(encodedKey);
+        RIPEMD160Digest ripemd = new RIPEMD160Digest();
+        ripemd.update(sha, 0, sha.length);
+        byte[] out = new byte[SIZE];
+        ripemd.doFinal(out, 0);
+        return new Address(out);
+    }
+
+    /**
+     * Returns a copy of the address bytes
+     */
+    public byte[] getBytes() {
+        return bytes.clone();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Address && Arrays.equals(bytes, ((Address) o).bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return SecureTransaction.bytesToHex(bytes);
+    }
+}
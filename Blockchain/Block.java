@@ -1,6 +1,7 @@
 package Blockchain;
 
 import core.DTNHost;
+import java.nio.ByteBuffer;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
@@ -8,6 +9,19 @@ import java.util.List;
 
 public class Block {
 
+    /**
+     * Size of a hash in the block header (bytes)
+     */
+    public static final int HASH_SIZE = 32;
+    /**
+     * Offset of the nonce in the block header
+     */
+    static final int NONCE_OFFSET = 2 * HASH_SIZE + 8;
+    /**
+     * Size of the block header (bytes)
+     */
+    public static final int HEADER_SIZE = NONCE_OFFSET + 4;
+
     private String previousHash;
     private List<Transaction> transactions;
     private long timestamp;
@@ -16,6 +30,14 @@ public class Block {
     private long intervalMining;
     private DTNHost minedBy;
     private double fee;
+    /**
+     * Merkle root of the transactions (cached)
+     */
+    private byte[] merkleRoot;
+    /**
+     * Block header without the nonce (cached)
+     */
+    private byte[] header;
 
     public Block() {
         this.previousHash = "0";
@@ -39,6 +61,8 @@ public class Block {
         this.intervalMining = other.intervalMining;
         this.fee = other.fee;
         this.minedBy = other.minedBy;
+        this.merkleRoot = other.merkleRoot;
+        this.header = other.header;
     }
 
     public long getIntervalMining() {
@@ -49,12 +73,83 @@ public class Block {
         this.intervalMining = intervalMining;
     }
 
+    /**
+     * Calculates the block hash over the binary block header. The cost does
+     * not depend on the number of transactions in the block.
+     *
+     * @return The hash as a hex string
+     */
     public String calculateHash() {
-        StringBuilder data = new StringBuilder(previousHash + timestamp + nonce);
+        return SecureTransaction.bytesToHex(SecureTransaction.sha256(getHeader()));
+    }
+
+    /**
+     * Returns a copy of the binary block header: previous block hash,
+     * Merkle root of the transactions, timestamp and nonce (big-endian).
+     */
+    byte[] getHeader() {
+        if (header == null) {
+            ByteBuffer buf = ByteBuffer.allocate(HEADER_SIZE);
+            if (previousHash != null) { // null when appended to an empty chain
+                buf.put(SecureTransaction.hexToBytes(previousHash, HASH_SIZE));
+            } else {
+                buf.put(new byte[HASH_SIZE]);
+            }
+            buf.put(getMerkleRoot());
+            buf.putLong(timestamp);
+            header = buf.array();
+        }
+        byte[] copy = header.clone();
+        writeNonce(copy, nonce);
+        return copy;
+    }
+
+    /**
+     * Writes a nonce into its place in a block header.
+     */
+    static void writeNonce(byte[] header, int nonce) {
+        header[NONCE_OFFSET] = (byte) (nonce >>> 24);
+        header[NONCE_OFFSET + 1] = (byte) (nonce >>> 16);
+        header[NONCE_OFFSET + 2] = (byte) (nonce >>> 8);
+        header[NONCE_OFFSET + 3] = (byte) nonce;
+    }
+
+    /**
+     * Returns the Merkle root over the transaction hashes of this block.
+     * The root is computed on first use and cached.
+     */
+    public byte[] getMerkleRoot() {
+        if (merkleRoot == null) {
+            merkleRoot = computeMerkleRoot(transactions);
+        }
+        return merkleRoot;
+    }
+
+    /**
+     * Computes a Merkle root by hashing pairs of nodes level by level. An odd
+     * node at the end of a level is paired with itself.
+     */
+    private static byte[] computeMerkleRoot(List<Transaction> transactions) {
+        if (transactions == null || transactions.isEmpty()) {
+            return new byte[HASH_SIZE];
+        }
+        List<byte[]> level = new ArrayList<>(transactions.size());
         for (Transaction tx : transactions) {
-            data.append(tx.getTransactionHash());
+            level.add(SecureTransaction.hexToBytes(tx.getTransactionHash(), HASH_SIZE));
+        }
+        byte[] pair = new byte[2 * HASH_SIZE];
+        while (level.size() > 1) {
+            List<byte[]> next = new ArrayList<>((level.size() + 1) / 2);
+            for (int i = 0; i < level.size(); i += 2) {
+                byte[] left = level.get(i);
+                byte[] right = i + 1 < level.size() ? level.get(i + 1) : left;
+                System.arraycopy(left, 0, pair, 0, HASH_SIZE);
+                System.arraycopy(right, 0, pair, HASH_SIZE, HASH_SIZE);
+                next.add(SecureTransaction.sha256(pair));
+            }
+            level = next;
         }
-        return SecureTransaction.applySha256(data.toString());
+        return level.get(0);
     }
 
     public void recalculateHash(int difficulty) {
@@ -81,18 +176,13 @@ public class Block {
     }
 
     public void mineBlock(int difficulty) {
-        String target = repeatZero(difficulty);
-//        System.out.println("Target : "+ target );
-//        System.out.println("Block Hash : "+ blockHash);
-//        System.out.println("Difficulty : "+ difficulty);
-        while (!blockHash.substring(0, difficulty).equals(target)) {
+        byte[] data = getHeader();
+        while (!SecureTransaction.meetsDifficulty(
+                SecureTransaction.sha256(data), difficulty)) {
             nonce++;
-            
-           // System.out.println("Block MINED");
-            blockHash = calculateHash();
-            
+            writeNonce(data, nonce);
         }
-        
+        blockHash = calculateHash();
     }
 
     private String repeatZero(int count) {
@@ -117,12 +207,42 @@ public class Block {
         }
     }
 
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Sets the timestamp and recalculates the block hash accordingly.
+     *
+     * @param timestamp The new timestamp
+     */
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+        this.header = null;
+        this.blockHash = calculateHash();
+    }
+
+    public int getNonce() {
+        return nonce;
+    }
+
+    /**
+     * Sets the nonce and recalculates the block hash accordingly.
+     *
+     * @param nonce The new nonce
+     */
+    public void setNonce(int nonce) {
+        this.nonce = nonce;
+        this.blockHash = calculateHash();
+    }
+
     public String getHash() {
         return blockHash;
     }
 
     public void setPreviousHash(String previousHash) {
         this.previousHash = previousHash;
+        this.header = null;
     }
 
     public String getPreviousHash() {
@@ -8,6 +8,7 @@ public class Blockchain {
 
     private List<Block> chain;
     private final int difficulty;
+    private final ChainValidator validator;
 
     public List<Block> getChain() {
         return chain;
@@ -20,6 +21,7 @@ public class Blockchain {
     public Blockchain(int difficulty) {
         this.chain = new ArrayList<>();
         this.difficulty = difficulty;
+        this.validator = new ChainValidator();
     }
 
     public Block getLatestBlock() {
@@ -44,22 +46,28 @@ public class Blockchain {
         }
     }
 
+    /**
+     * Checks the hashes and links of the blocks appended since the last
+     * successful validation.
+     *
+     * @return True if the chain is valid
+     */
     public boolean isChainValid() {
-        for (int i = 1; i < chain.size(); i++) {
-            Block currentBlock = chain.get(i);
-            Block previousBlock = chain.get(i - 1);
-
-            // Periksa apakah hash saat ini masih valid
-            if (!currentBlock.getHash().equals(currentBlock.calculateHash())) {
-                return false;
-            }
-
-            // Periksa apakah hash sebelumnya cocok dengan hash blok sebelumnya
-            if (!currentBlock.getPreviousHash().equals(previousBlock.getHash())) {
-                return false;
-            }
-        }
-        return true;
+        return validator.isValid(chain);
+    }
+
+    /**
+     * Checks the hashes and links of all blocks of the chain.
+     *
+     * @param parallel If true, the blocks are checked concurrently
+     * @return True if the chain is valid
+     */
+    public boolean revalidateChain(boolean parallel) {
+        return validator.revalidate(chain, parallel);
+    }
+
+    public int getValidatedHeight() {
+        return validator.getValidatedHeight();
     }
 
     public void printBlockchain() {
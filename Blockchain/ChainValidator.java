@@ -0,0 +1,111 @@
+package Blockchain;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Validates a chain of blocks incrementally. The validator remembers up to
+ * which height the chain has been found valid (the checkpoint) and the hash
+ * of the block at that height; later calls only check the blocks appended
+ * after the checkpoint. If the checkpoint block is no longer in its place,
+ * the whole chain is validated again.
+ */
+public class ChainValidator {
+
+    /**
+     * Number of blocks from the start of the chain known to be valid
+     */
+    private int validatedHeight;
+    /**
+     * Hash of the last block known to be valid
+     */
+    private String checkpointHash;
+
+    public ChainValidator() {
+        reset();
+    }
+
+    /**
+     * Forgets the checkpoint so that the next validation checks the whole
+     * chain.
+     */
+    public void reset() {
+        this.validatedHeight = 0;
+        this.checkpointHash = null;
+    }
+
+    /**
+     * Returns the number of blocks known to be valid
+     */
+    public int getValidatedHeight() {
+        return validatedHeight;
+    }
+
+    /**
+     * Checks the blocks appended after the checkpoint and moves the
+     * checkpoint to the end of the chain if they are valid.
+     *
+     * @param chain The chain to validate
+     * @return True if the whole chain is valid
+     */
+    public boolean isValid(List<Block> chain) {
+        if (!isCheckpointIntact(chain)) {
+            reset();
+        }
+        for (int i = Math.max(1, validatedHeight); i < chain.size(); i++) {
+            if (!isBlockValid(chain, i)) {
+                return false;
+            }
+        }
+        setCheckpoint(chain);
+        return true;
+    }
+
+    /**
+     * Validates the whole chain regardless of the checkpoint.
+     *
+     * @param chain The chain to validate
+     * @param parallel If true, the blocks are checked concurrently on all
+     * available cores
+     * @return True if the whole chain is valid
+     */
+    public boolean revalidate(List<Block> chain, boolean parallel) {
+        reset();
+        IntStream indexes = IntStream.range(1, chain.size());
+        if (parallel) {
+            indexes = indexes.parallel();
+        }
+        if (!indexes.allMatch(i -> isBlockValid(chain, i))) {
+            return false;
+        }
+        setCheckpoint(chain);
+        return true;
+    }
+
+    private boolean isCheckpointIntact(List<Block> chain) {
+        return validatedHeight == 0 || (chain.size() >= validatedHeight
+                && chain.get(validatedHeight - 1).getHash().equals(checkpointHash));
+    }
+
+    private void setCheckpoint(List<Block> chain) {
+        validatedHeight = chain.size();
+        checkpointHash = chain.isEmpty() ? null
+                : chain.get(validatedHeight - 1).getHash();
+    }
+
+    /**
+     * Checks the hash of a block and its link to the previous block.
+     */
+    private static boolean isBlockValid(List<Block> chain, int i) {
+        Block currentBlock = chain.get(i);
+        Block previousBlock = chain.get(i - 1);
+
+        // Periksa apakah hash saat ini masih valid
+        if (!currentBlock.getHash().equals(currentBlock.calculateHash())) {
+            return false;
+        }
+
+        // Periksa apakah hash sebelumnya cocok dengan hash blok sebelumnya
+        return currentBlock.getPreviousHash().equals(previousBlock.getHash());
+    }
+}
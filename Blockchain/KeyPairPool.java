@@ -0,0 +1,117 @@
+package Blockchain;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.SecureRandom;
+import java.security.Security;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+
+/**
+ * Pre-generated wallet key pairs loaded from a file. Each non-empty line of
+ * the file that does not start with '#' holds a Base64 encoded PKCS#8
+ * private key and a Base64 encoded X.509 public key separated by whitespace.
+ * The n-th wallet created in a simulation gets the n-th key pair of the pool.
+ *
+ * A pool file can be created by running this class:
+ * <code>java Blockchain.KeyPairPool &lt;file&gt; &lt;count&gt; [seed]</code>.
+ * With a seed the same keys are generated on every run.
+ */
+public class KeyPairPool {
+
+    private final List<KeyPair> keyPairs;
+
+    static {
+        Security.addProvider(new BouncyCastleProvider()); // Pastikan BC terdaftar
+    }
+
+    /**
+     * Loads a key pair pool from a file.
+     *
+     * @param fileName Path of the pool file
+     * @throws IOException if the file can't be read or contains invalid keys
+     */
+    public KeyPairPool(String fileName) throws IOException {
+        this.keyPairs = new ArrayList<>();
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
+            KeyFactory factory = KeyFactory.getInstance("ECDSA", "BC");
+            Base64.Decoder decoder = Base64.getDecoder();
+            String line;
+            int lineNr = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNr++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] parts = line.split("\\s+");
+                if (parts.length != 2) {
+                    throw new IOException("Invalid key pair at line " + lineNr
+                            + " of " + fileName);
+                }
+                keyPairs.add(new KeyPair(
+                        factory.generatePublic(new X509EncodedKeySpec(decoder.decode(parts[1]))),
+                        factory.generatePrivate(new PKCS8EncodedKeySpec(decoder.decode(parts[0])))));
+            }
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Can't read key pairs from " + fileName, e);
+        }
+    }
+
+    /**
+     * Returns the key pair at the given index or null if the pool has fewer
+     * key pairs
+     */
+    public KeyPair get(int index) {
+        return index < keyPairs.size() ? keyPairs.get(index) : null;
+    }
+
+    /**
+     * Returns the number of key pairs in the pool
+     */
+    public int size() {
+        return keyPairs.size();
+    }
+
+    /**
+     * Writes a pool file of new key pairs.
+     *
+     * @param args File name, number of key pairs and optional random seed
+     * @throws Exception if the keys can't be generated or written
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: java Blockchain.KeyPairPool <file> <count> [seed]");
+            System.exit(1);
+        }
+        int count = Integer.parseInt(args[1]);
+        SecureRandom rng;
+        if (args.length > 2) {
+            rng = SecureRandom.getInstance("SHA1PRNG");
+            rng.setSeed(Long.parseLong(args[2]));
+        } else {
+            rng = new SecureRandom();
+        }
+
+        Base64.Encoder encoder = Base64.getEncoder();
+        try (PrintWriter out = new PrintWriter(args[0])) {
+            out.println("# secp256k1 wallet key pairs: <private key> <public key>");
+            for (int i = 0; i < count; i++) {
+                KeyPair pair = Wallet.generateKeyPair(rng);
+                out.println(encoder.encodeToString(pair.getPrivate().getEncoded())
+                        + " " + encoder.encodeToString(pair.getPublic().getEncoded()));
+            }
+        }
+    }
+}
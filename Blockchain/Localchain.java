@@ -12,11 +12,13 @@ public class Localchain {
     private int difficulty;
     private String name;
     private String hash;
+    private final ChainValidator validator;
 
 
     public Localchain(int difficulty) {
         this.chain = new ArrayList<>();
         this.difficulty = difficulty;
+        this.validator = new ChainValidator();
     }
 
 //    copy constructor
@@ -25,6 +27,7 @@ public class Localchain {
         this.difficulty = other.difficulty;
         this.name = other.name;
         this.hash = other.hash;
+        this.validator = new ChainValidator();
     }
 
     public String getHash() {
@@ -105,24 +108,31 @@ public class Localchain {
 
     public void setChain(List<Block> chain) {
         this.chain = chain;
+        this.validator.reset();
     }
 
+    /**
+     * Checks the hashes and links of the blocks appended since the last
+     * successful validation.
+     *
+     * @return True if the chain is valid
+     */
     public boolean isChainValid() {
-        for (int i = 1; i < chain.size(); i++) {
-            Block currentBlock = chain.get(i);
-            Block previousBlock = chain.get(i - 1);
+        return validator.isValid(chain);
+    }
 
-            // Periksa apakah hash saat ini masih valid
-            if (!currentBlock.getHash().equals(currentBlock.calculateHash())) {
-                return false;
-            }
+    /**
+     * Checks the hashes and links of all blocks of the chain.
+     *
+     * @param parallel If true, the blocks are checked concurrently
+     * @return True if the chain is valid
+     */
+    public boolean revalidateChain(boolean parallel) {
+        return validator.revalidate(chain, parallel);
+    }
 
-            // Periksa apakah hash sebelumnya cocok dengan hash blok sebelumnya
-            if (!currentBlock.getPreviousHash().equals(previousBlock.getHash())) {
-                return false;
-            }
-        }
-        return true;
+    public int getValidatedHeight() {
+        return validator.getValidatedHeight();
     }
 
     public void printBlockchain() {
@@ -0,0 +1,374 @@
+package Blockchain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Pool of transactions waiting to be mined. Single transactions are first
+ * collected as pending transactions and then grouped into
+ * {@link TransactionPacket}s. Packets are indexed by their total amount so
+ * the best packet can be found without scanning the pool; of packets with an
+ * equal total amount, the one added first is the best. Transactions are
+ * de-duplicated by their hash: a packet with transactions that are already in
+ * the pool is added without them. The estimated memory use of the pool is
+ * kept up to date.
+ *
+ * The packets of a pool are passed to the next relay stage with
+ * {@link #handOff()} and {@link #accept(TransactionBatch)}. The batch takes
+ * over the packet index of the pool, and an empty pool that gets the only
+ * reference to a batch adopts the index as is, so no packets are copied.
+ */
+public class Mempool {
+
+    /**
+     * Orders entries by total amount (largest first) and insertion order
+     */
+    private static final Comparator<Entry> BEST_FIRST = (a, b) -> {
+        int c = Double.compare(b.packet.getTotalAmount(),
+                a.packet.getTotalAmount());
+        return c != 0 ? c : Long.compare(a.seq, b.seq);
+    };
+
+    private final List<Transaction> pending;
+    private final Set<String> pendingHashes;
+    private long pendingMemory;
+    private PacketIndex index;
+
+    private long nrofBatchesAccepted;
+    private long nrofTransactionsAccepted;
+    private long nrofDuplicatesRejected;
+
+    public Mempool() {
+        this.pending = new ArrayList<>();
+        this.pendingHashes = new HashSet<>();
+        this.index = new PacketIndex();
+    }
+
+    /**
+     * Adds a pending transaction to the pool unless a transaction with the
+     * same hash is already in the pool. The transaction is counted as
+     * accepted or as a rejected duplicate.
+     *
+     * @param t The transaction to add
+     * @return True if the transaction was added
+     */
+    public boolean add(Transaction t) {
+        String hash = t.getTransactionHash();
+        if (index.hashes.contains(hash) || !pendingHashes.add(hash)) {
+            nrofDuplicatesRejected++;
+            return false;
+        }
+        pending.add(t);
+        pendingMemory += t.getSize();
+        nrofTransactionsAccepted++;
+        return true;
+    }
+
+    /**
+     * Groups the pending transactions into packets of random size.
+     *
+     * @param rng Random number generator for the packet sizes
+     * @param minSize Minimum packet size
+     * @param maxSize Maximum packet size
+     * @return Number of transactions that were grouped
+     */
+    public int groupPending(Random rng, int minSize, int maxSize) {
+        int count = pending.size();
+        int start = 0;
+        while (start < count) {
+            int packetSize = rng.nextInt(maxSize - minSize + 1) + minSize;
+            int end = Math.min(start + packetSize, count);
+            index.insert(new TransactionPacket(pending.subList(start, end)));
+            start = end;
+        }
+        pending.clear();
+        pendingHashes.clear();
+        pendingMemory = 0;
+        return count;
+    }
+
+    /**
+     * Adds a packet to the pool. Transactions that are already in the pool
+     * (pending or packed) are left out: if there are any, a packet of the
+     * remaining transactions is added instead, and nothing is added if no
+     * transactions remain. The transactions of a packet are expected to have
+     * distinct hashes.
+     *
+     * @param packet The packet to add
+     * @return Number of transactions that were added
+     */
+    public int addPacket(TransactionPacket packet) {
+        List<Transaction> transactions = packet.getTransactions();
+        List<Transaction> unique = null;
+        for (int i = 0; i < transactions.size(); i++) {
+            Transaction t = transactions.get(i);
+            String hash = t.getTransactionHash();
+            boolean duplicate = index.hashes.contains(hash)
+                    || pendingHashes.contains(hash);
+            if (duplicate && unique == null) {
+                unique = new ArrayList<>(transactions.subList(0, i));
+            } else if (!duplicate && unique != null) {
+                unique.add(t);
+            }
+        }
+
+        if (unique == null) {
+            index.insert(packet);
+            return packet.getNrofTransactions();
+        }
+        if (!unique.isEmpty()) {
+            index.insert(new TransactionPacket(unique));
+        }
+        return unique.size();
+    }
+
+    /**
+     * Adds all packets of another pool to this pool, in the order they were
+     * added to the other pool, leaving out transactions that are already in
+     * this pool. Pending transactions are not copied and the other pool is
+     * not modified.
+     *
+     * @param other The pool whose packets to add
+     * @return Number of transactions that were added
+     */
+    public int addAll(Mempool other) {
+        int added = 0;
+        for (Entry e : new ArrayList<>(other.index.byInsertion)) {
+            added += addPacket(e.packet);
+        }
+        return added;
+    }
+
+    /**
+     * Passes the ownership of all packets of this pool to a new batch. The
+     * pool is left without packets; pending transactions stay in the pool.
+     *
+     * @return Batch holding the packets of this pool
+     */
+    public TransactionBatch handOff() {
+        TransactionBatch batch = new TransactionBatch(index);
+        index = new PacketIndex();
+        return batch;
+    }
+
+    /**
+     * Takes the packets of a batch into this pool and releases this pool's
+     * reference to the batch. If the pool has no packets and holds the only
+     * reference to the batch, the packet index of the batch is adopted
+     * without copying; otherwise the packets are added one by one with
+     * {@link #addPacket(TransactionPacket)}, leaving out transactions that are
+     * already in the pool.
+     *
+     * @param batch The batch to accept
+     */
+    public void accept(TransactionBatch batch) {
+        if (batch.getNrofPackets() > 0) {
+            nrofBatchesAccepted++;
+        }
+
+        if (index.isEmpty() && pending.isEmpty() && batch.getRefCount() == 1) {
+            nrofTransactionsAccepted += batch.getNrofTransactions();
+            index = batch.detach();
+            return;
+        }
+        int added = 0;
+        for (TransactionPacket p : batch.getPackets()) {
+            added += addPacket(p);
+        }
+        nrofTransactionsAccepted += added;
+        nrofDuplicatesRejected += batch.getNrofTransactions() - added;
+        batch.release();
+    }
+
+    /**
+     * Returns the packet with the largest total amount without removing it
+     *
+     * @return The best packet or null if there are no packets
+     */
+    public TransactionPacket peekBest() {
+        Entry e = index.byAmount.peek();
+        return e != null ? e.packet : null;
+    }
+
+    /**
+     * Removes and returns the packet with the largest total amount
+     *
+     * @return The best packet or null if there are no packets
+     */
+    public TransactionPacket pollBest() {
+        return index.pollBest();
+    }
+
+    /**
+     * Returns the packets in the order they were added
+     */
+    public List<TransactionPacket> getPackets() {
+        return index.getPackets();
+    }
+
+    /**
+     * Returns the transactions that have not been grouped yet
+     */
+    public List<Transaction> getPending() {
+        return Collections.unmodifiableList(pending);
+    }
+
+    /**
+     * Removes all packets and pending transactions
+     */
+    public void clear() {
+        pending.clear();
+        pendingHashes.clear();
+        pendingMemory = 0;
+        index = new PacketIndex();
+    }
+
+    /**
+     * Returns the number of packets in the pool
+     */
+    public int size() {
+        return index.byAmount.size();
+    }
+
+    /**
+     * Returns true if there are no packets in the pool
+     */
+    public boolean isEmpty() {
+        return index.isEmpty();
+    }
+
+    /**
+     * Returns the number of transactions (pending and packed) in the pool
+     */
+    public int getNrofTransactions() {
+        return pending.size() + index.nrofTransactions;
+    }
+
+    /**
+     * Returns the estimated memory use of the transactions in the pool
+     * (bytes)
+     */
+    public long getMemoryUsage() {
+        return pendingMemory + index.memoryUsage;
+    }
+
+    /**
+     * Returns how many non-empty batches this pool has accepted
+     */
+    public long getNrofBatchesAccepted() {
+        return nrofBatchesAccepted;
+    }
+
+    /**
+     * Returns how many transactions this pool has accepted, one by one with
+     * {@link #add(Transaction)} or in batches. Transactions that were already
+     * in the pool are not counted.
+     */
+    public long getNrofTransactionsAccepted() {
+        return nrofTransactionsAccepted;
+    }
+
+    /**
+     * Returns how many transactions given to {@link #add(Transaction)} or in
+     * accepted batches were left out because they were already in the pool
+     */
+    public long getNrofDuplicatesRejected() {
+        return nrofDuplicatesRejected;
+    }
+
+    @Override
+    public String toString() {
+        return "Mempool{packets=" + size() + ", pending=" + pending.size()
+                + ", bytes=" + getMemoryUsage() + '}';
+    }
+
+    /**
+     * A packet in the pool and its insertion sequence number
+     */
+    private static class Entry {
+
+        private final TransactionPacket packet;
+        private final long seq;
+
+        private Entry(TransactionPacket packet, long seq) {
+            this.packet = packet;
+            this.seq = seq;
+        }
+    }
+
+    /**
+     * Packets of a pool indexed by total amount and by insertion order,
+     * together with the hashes and totals of their transactions.
+     */
+    static class PacketIndex {
+
+        private final PriorityQueue<Entry> byAmount;
+        private final LinkedHashSet<Entry> byInsertion;
+        private final Set<String> hashes;
+        private long nextSeq;
+        private int nrofTransactions;
+        private long memoryUsage;
+
+        PacketIndex() {
+            this.byAmount = new PriorityQueue<>(BEST_FIRST);
+            this.byInsertion = new LinkedHashSet<>();
+            this.hashes = new HashSet<>();
+        }
+
+        private void insert(TransactionPacket packet) {
+            Entry e = new Entry(packet, nextSeq++);
+            byAmount.add(e);
+            byInsertion.add(e);
+            for (Transaction t : packet.getTransactions()) {
+                hashes.add(t.getTransactionHash());
+            }
+            nrofTransactions += packet.getNrofTransactions();
+            memoryUsage += packet.getSize();
+        }
+
+        private TransactionPacket pollBest() {
+            Entry e = byAmount.poll();
+            if (e == null) {
+                return null;
+            }
+            byInsertion.remove(e);
+            for (Transaction t : e.packet.getTransactions()) {
+                hashes.remove(t.getTransactionHash());
+            }
+            nrofTransactions -= e.packet.getNrofTransactions();
+            memoryUsage -= e.packet.getSize();
+            return e.packet;
+        }
+
+        boolean isEmpty() {
+            return byAmount.isEmpty();
+        }
+
+        int getNrofPackets() {
+            return byAmount.size();
+        }
+
+        int getNrofTransactions() {
+            return nrofTransactions;
+        }
+
+        long getMemoryUsage() {
+            return memoryUsage;
+        }
+
+        List<TransactionPacket> getPackets() {
+            List<TransactionPacket> packets = new ArrayList<>(byInsertion.size());
+            for (Entry e : byInsertion) {
+                packets.add(e.packet);
+            }
+            return Collections.unmodifiableList(packets);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package Blockchain;
+
+/**
+ * Proof-of-work strategy used to find a nonce for a {@link Block}. The engine
+ * used by a scenario is selected with the <code>Scenario.miningEngine</code>
+ * setting (a class name from the Blockchain package).
+ */
+public interface MiningEngine {
+
+    /**
+     * Searches a nonce for the block so that its hash satisfies the given
+     * difficulty. When this method returns, the block's nonce and hash are
+     * set to the solution (see {@link SimulatedMiningEngine} for an engine
+     * that only models the search).
+     *
+     * @param block The block to mine
+     * @param difficulty Number of leading zero hex digits required in the hash
+     * @return How long mining the block took (milliseconds)
+     */
+    long mine(Block block, int difficulty);
+}
@@ -0,0 +1,160 @@
+package Blockchain;
+
+import core.Settings;
+import core.SettingsError;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mining engine that splits the nonce space into chunks which are searched
+ * concurrently by the workers of a fork-join pool. The block header part
+ * preceding the nonce is digested only once per worker, so every attempt only
+ * hashes the four nonce bytes. Digests are compared against the difficulty as
+ * raw bytes.
+ *
+ * Chunks are claimed in increasing nonce order and workers stop as soon as
+ * all nonces below the best solution found so far have been tried, so the
+ * result is the smallest valid nonce, i.e. the same block that
+ * {@link SequentialMiningEngine} would produce.
+ */
+public class ParallelMiningEngine implements MiningEngine {
+
+    /**
+     * number of mining worker threads -setting id ({@value})
+     */
+    public static final String MINING_THREADS_S = "miningThreads";
+    /**
+     * number of nonces a worker claims at a time -setting id ({@value})
+     */
+    public static final String CHUNK_SIZE_S = "miningChunkSize";
+    /**
+     * default chunk size
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 4096;
+
+    /**
+     * No nonce found marker
+     */
+    private static final long NOT_FOUND = Long.MAX_VALUE;
+
+    private final ForkJoinPool pool;
+    private final int threads;
+    private final int chunkSize;
+
+    public ParallelMiningEngine(Settings s) {
+        if (s.contains(MINING_THREADS_S)) {
+            threads = s.getInt(MINING_THREADS_S);
+        } else {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        if (s.contains(CHUNK_SIZE_S)) {
+            chunkSize = s.getInt(CHUNK_SIZE_S);
+        } else {
+            chunkSize = DEFAULT_CHUNK_SIZE;
+        }
+        if (threads < 1) {
+            throw new SettingsError("Invalid value for setting "
+                    + MINING_THREADS_S + ": " + threads);
+        }
+        if (chunkSize < 1) {
+            throw new SettingsError("Invalid value for setting "
+                    + CHUNK_SIZE_S + ": " + chunkSize);
+        }
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    public ParallelMiningEngine(int threads, int chunkSize) {
+        this.threads = threads;
+        this.chunkSize = chunkSize;
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    @Override
+    public long mine(Block block, int difficulty) {
+        long begin = System.currentTimeMillis();
+        final byte[] header = block.getHeader();
+        final AtomicLong nextChunk = new AtomicLong(block.getNonce());
+        final AtomicLong best = new AtomicLong(NOT_FOUND);
+
+        List<Callable<Void>> workers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            workers.add(() -> {
+                search(header, difficulty, nextChunk, best);
+                return null;
+            });
+        }
+
+        try {
+            for (Future<Void> f : pool.invokeAll(workers)) {
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+
+        if (best.get() == NOT_FOUND) {
+            throw new IllegalStateException("No nonce satisfies difficulty "
+                    + difficulty);
+        }
+        block.setNonce((int) best.get());
+        return System.currentTimeMillis() - begin;
+    }
+
+    /**
+     * Claims chunks of nonces and tries them until a solution smaller than
+     * any unclaimed nonce is known.
+     */
+    private void search(byte[] header, int difficulty, AtomicLong nextChunk,
+            AtomicLong best) {
+        MessageDigest base = newDigest();
+        base.update(header, 0, Block.NONCE_OFFSET);
+        byte[] data = header.clone();
+
+        while (true) {
+            long start = nextChunk.getAndAdd(chunkSize);
+            if (start > Integer.MAX_VALUE || start >= best.get()) {
+                return;
+            }
+            long end = Math.min(start + chunkSize, (long) Integer.MAX_VALUE + 1);
+
+            for (long nonce = start; nonce < end; nonce++) {
+                if (nonce >= best.get()) {
+                    return;
+                }
+                MessageDigest md = copyOf(base);
+                Block.writeNonce(data, (int) nonce);
+                md.update(data, Block.NONCE_OFFSET, 4);
+                if (SecureTransaction.meetsDifficulty(md.digest(), difficulty)) {
+                    best.accumulateAndGet(nonce, Math::min);
+                    return;
+                }
+            }
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static MessageDigest copyOf(MessageDigest md) {
+        try {
+            return (MessageDigest) md.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
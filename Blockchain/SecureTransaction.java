@@ -1,5 +1,6 @@
 package Blockchain;
 
+import java.nio.charset.StandardCharsets;
 import java.security.*;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 public class SecureTransaction {
@@ -7,28 +8,113 @@ public class SecureTransaction {
         // Daftarkan provider Bouncy Castle
         Security.addProvider(new BouncyCastleProvider());
     }
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * SHA-256 digest of each thread, reused between calls
+     */
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    });
+
     // Generate hash SHA-256
     public static String applySha256(String input) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(input.getBytes("UTF-8"));
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) hexString.append('0');
-                hexString.append(hex);
+        return bytesToHex(sha256(input.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Calculates the raw SHA-256 digest of the given data.
+     *
+     * @param data The data to hash
+     * @return The 32 byte digest
+     */
+    public static byte[] sha256(byte[] data) {
+        return SHA256.get().digest(data);
+    }
+
+    /**
+     * Converts bytes to a lower case hex string.
+     */
+    public static String bytesToHex(byte[] bytes) {
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+            hex[2 * i + 1] = HEX_DIGITS[bytes[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+    /**
+     * Converts a hex string to a byte array of the given length. Shorter
+     * strings are right-aligned, i.e. padded with leading zero bytes.
+     *
+     * @param hex The hex string
+     * @param length Length of the resulting array
+     * @return The bytes
+     * @throws IllegalArgumentException if the string is not valid hex or does
+     * not fit in the given length
+     */
+    public static byte[] hexToBytes(String hex, int length) {
+        if (hex.length() > 2 * length) {
+            throw new IllegalArgumentException("Hex string '" + hex
+                    + "' longer than " + length + " bytes");
+        }
+        byte[] bytes = new byte[length];
+        int pos = 2 * length - hex.length();
+        for (int i = 0; i < hex.length(); i++, pos++) {
+            int digit = Character.digit(hex.charAt(i), 16);
+            if (digit < 0) {
+                throw new IllegalArgumentException("Invalid hex string '"
+                        + hex + "'");
+            }
+            bytes[pos / 2] |= (pos % 2 == 0) ? digit << 4 : digit;
+        }
+        return bytes;
+    }
+
+    /**
+     * Checks whether a raw digest starts with the given number of zero hex
+     * digits, i.e. whether its hex encoding would start with that many '0'
+     * characters.
+     *
+     * @param hash The raw digest
+     * @param difficulty Number of leading zero hex digits required
+     * @return True if the digest satisfies the difficulty
+     */
+    public static boolean meetsDifficulty(byte[] hash, int difficulty) {
+        int fullBytes = difficulty / 2;
+        for (int i = 0; i < fullBytes; i++) {
+            if (hash[i] != 0) {
+                return false;
             }
-            return hexString.toString();
+        }
+        return difficulty % 2 == 0 || (hash[fullBytes] & 0xf0) == 0;
+    }
+
+    /**
+     * ECDSA signature objects of each thread, reused between calls
+     */
+    private static final ThreadLocal<Signature> ECDSA = ThreadLocal.withInitial(() -> {
+        try {
+            return Signature.getInstance("ECDSA", "BC");
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
+    });
+
+    public static byte[] applyECDSASig(PrivateKey privateKey, String input) {
+        return applyECDSASig(privateKey, input.getBytes());
     }
 
-     public static byte[] applyECDSASig(PrivateKey privateKey, String input) {
+    public static byte[] applyECDSASig(PrivateKey privateKey, byte[] input) {
         try {
-            Signature dsa = Signature.getInstance("ECDSA", "BC");
+            Signature dsa = ECDSA.get();
             dsa.initSign(privateKey);
-            dsa.update(input.getBytes());
+            dsa.update(input);
             return dsa.sign();
         } catch (Exception e) {
             throw new RuntimeException(e);
@@ -36,10 +122,14 @@ public class SecureTransaction {
     }
 
     public static boolean verifyECDSASig(PublicKey publicKey, String data, byte[] signature) {
+        return verifyECDSASig(publicKey, data.getBytes(), signature);
+    }
+
+    public static boolean verifyECDSASig(PublicKey publicKey, byte[] data, byte[] signature) {
         try {
-            Signature ecdsaVerify = Signature.getInstance("ECDSA", "BC");
+            Signature ecdsaVerify = ECDSA.get();
             ecdsaVerify.initVerify(publicKey);
-            ecdsaVerify.update(data.getBytes());
+            ecdsaVerify.update(data);
             return ecdsaVerify.verify(signature);
         } catch (Exception e) {
             throw new RuntimeException(e);
@@ -0,0 +1,23 @@
+package Blockchain;
+
+import core.Settings;
+
+/**
+ * Mining engine that mines on the calling thread using
+ * {@link Block#mineBlock(int)}. This is the default engine.
+ */
+public class SequentialMiningEngine implements MiningEngine {
+
+    public SequentialMiningEngine() {
+    }
+
+    public SequentialMiningEngine(Settings s) {
+    }
+
+    @Override
+    public long mine(Block block, int difficulty) {
+        long begin = System.currentTimeMillis();
+        block.mineBlock(difficulty);
+        return System.currentTimeMillis() - begin;
+    }
+}
@@ -0,0 +1,147 @@
+package Blockchain;
+
+import core.DTNSim;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * Verifies transaction signatures and caches the verdicts, so a transaction
+ * shown to several miners is verified only once. The verdicts are cached by
+ * a digest of the signed payload and the signature rather than by the
+ * transaction hash, which does not cover the signature: a copy of a
+ * transaction with a forged signature or a changed amount is verified
+ * again.
+ * Signatures missing from the cache are verified in parallel when a whole
+ * packet of transactions is checked.
+ */
+public class SignatureVerifier {
+
+    private static SignatureVerifier instance = null;
+
+    private final Map<String, Boolean> verdicts;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+
+    static {
+        DTNSim.registerForReset(SignatureVerifier.class.getCanonicalName());
+        reset();
+    }
+
+    private SignatureVerifier() {
+        this.verdicts = new ConcurrentHashMap<>();
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+    }
+
+    /**
+     * Returns the verifier instance and creates one if it doesn't exist yet
+     */
+    public static SignatureVerifier getInstance() {
+        if (instance == null) {
+            instance = new SignatureVerifier();
+        }
+        return instance;
+    }
+
+    /**
+     * Drops the cached verdicts and counters
+     */
+    public static void reset() {
+        instance = null;
+    }
+
+    /**
+     * Checks the signature of a transaction.
+     *
+     * @param t The transaction to check
+     * @return True if the signature is valid
+     */
+    public boolean verify(Transaction t) {
+        String key = verdictKey(t);
+        Boolean verdict = verdicts.get(key);
+        if (verdict != null) {
+            hits.incrementAndGet();
+            return verdict;
+        }
+        misses.incrementAndGet();
+        boolean valid = t.verifySignature();
+        verdicts.put(key, valid);
+        return valid;
+    }
+
+    /**
+     * Checks the signatures of a packet of transactions. Transactions whose
+     * verdict is not cached yet are verified in parallel.
+     *
+     * @param packet The transactions to check
+     * @return Validity of each transaction, in the order of the packet
+     */
+    public boolean[] verifyAll(List<Transaction> packet) {
+        boolean[] valid = new boolean[packet.size()];
+        String[] keys = new String[packet.size()];
+        List<Integer> uncached = new ArrayList<>();
+
+        for (int i = 0; i < packet.size(); i++) {
+            keys[i] = verdictKey(packet.get(i));
+            Boolean verdict = verdicts.get(keys[i]);
+            if (verdict != null) {
+                hits.incrementAndGet();
+                valid[i] = verdict;
+            } else {
+                uncached.add(i);
+            }
+        }
+
+        misses.addAndGet(uncached.size());
+        IntStream.range(0, uncached.size()).parallel().forEach(j -> {
+            int i = uncached.get(j);
+            boolean ok = packet.get(i).verifySignature();
+            verdicts.put(keys[i], ok);
+            valid[i] = ok;
+        });
+        return valid;
+    }
+
+    /**
+     * Returns the cache key of a transaction's verdict: the SHA-256 digest of
+     * the signed payload (which includes the sender's key) followed by the
+     * signature.
+     */
+    private static String verdictKey(Transaction t) {
+        byte[] payload = t.getPayload();
+        byte[] signature = t.getSignature();
+        int sigLength = signature != null ? signature.length : 0;
+        ByteBuffer buf = ByteBuffer.allocate(payload.length + 4 + sigLength);
+        buf.put(payload).putInt(sigLength);
+        if (signature != null) {
+            buf.put(signature);
+        }
+        return SecureTransaction.bytesToHex(
+                SecureTransaction.sha256(buf.array()));
+    }
+
+    /**
+     * Returns how many verdicts were found from the cache
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns how many signatures had to be verified
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    @Override
+    public String toString() {
+        return "SignatureVerifier{hits=" + hits.get() + ", misses="
+                + misses.get() + ", cached=" + verdicts.size() + '}';
+    }
+}
@@ -0,0 +1,107 @@
+package Blockchain;
+
+import core.DTNHost;
+import core.Settings;
+import core.SettingsError;
+import core.SimClock;
+import java.util.Random;
+
+/**
+ * Mining engine that models proof-of-work instead of performing it. The
+ * number of hashes needed to find a block is drawn from the geometric
+ * distribution with success probability 16<sup>-difficulty</sup> and the
+ * mining interval is that number divided by the hash rate of the miner. The
+ * block gets the simulated time it would have been found at as its timestamp
+ * and the drawn hash count as its nonce; its hash is not required to satisfy
+ * the difficulty.
+ *
+ * The hash rate of a miner is taken from the <code>hashRate</code> setting
+ * of its group. If that is not set, a rate is drawn uniformly from the
+ * <code>Scenario.hashRate</code> range using a generator seeded with
+ * <code>Scenario.miningSeed</code> and the host's address, so results do not
+ * depend on the machine running the simulation.
+ */
+public class SimulatedMiningEngine implements MiningEngine {
+
+    /**
+     * hash rate range (hashes per second) -setting id ({@value}). Can be
+     * either a single value or a range (min, max) of uniformly distributed
+     * random values.
+     */
+    public static final String HASH_RATE_S = "hashRate";
+    /**
+     * seed for the mining random number generators -setting id ({@value})
+     */
+    public static final String MINING_SEED_S = "miningSeed";
+    /**
+     * default hash rate (hashes per second)
+     */
+    public static final double DEFAULT_HASH_RATE = 1000000;
+
+    private final double[] hashRateRange;
+    private final long seed;
+    private final Random rng;
+
+    public SimulatedMiningEngine(Settings s) {
+        if (s.contains(HASH_RATE_S)) {
+            double[] range = s.getCsvDoubles(HASH_RATE_S);
+            if (range.length == 1) {
+                range = new double[]{range[0], range[0]};
+            } else if (range.length != 2 || range[0] > range[1]) {
+                throw new SettingsError("Invalid range for setting "
+                        + HASH_RATE_S);
+            }
+            hashRateRange = range;
+        } else {
+            hashRateRange = new double[]{DEFAULT_HASH_RATE, DEFAULT_HASH_RATE};
+        }
+        if (hashRateRange[0] <= 0) {
+            throw new SettingsError("Hash rate must be positive");
+        }
+        if (s.contains(MINING_SEED_S)) {
+            seed = s.getInt(MINING_SEED_S);
+        } else {
+            seed = 0;
+        }
+        this.rng = new Random(seed);
+    }
+
+    @Override
+    public long mine(Block block, int difficulty) {
+        long hashes = drawHashCount(difficulty);
+        double seconds = hashes / getHashRate(block.getMinedBy());
+        long interval = Math.round(seconds * 1000);
+
+        block.setNonce((int) Math.min(hashes, Integer.MAX_VALUE));
+        block.setTimestamp(Math.round(SimClock.getTime() * 1000) + interval);
+        return interval;
+    }
+
+    /**
+     * Draws the number of hashes needed to meet the difficulty.
+     */
+    private long drawHashCount(int difficulty) {
+        double p = Math.pow(16, -difficulty);
+        if (p >= 1) {
+            return 1;
+        }
+        double u = 1 - rng.nextDouble(); // (0, 1]
+        return Math.max(1, (long) Math.ceil(Math.log(u) / Math.log1p(-p)));
+    }
+
+    /**
+     * Returns the hash rate of a miner.
+     */
+    private double getHashRate(DTNHost miner) {
+        if (miner != null && miner.getHashRate() > 0) {
+            return miner.getHashRate();
+        }
+        if (hashRateRange[0] == hashRateRange[1]) {
+            return hashRateRange[0];
+        }
+        int address = miner != null ? miner.getAddress() : 0;
+        Random hostRng = new Random(seed * 31 + address);
+        return hashRateRange[0]
+                + hostRng.nextDouble() * (hashRateRange[1] - hashRateRange[0]);
+    }
+}
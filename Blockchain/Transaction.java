@@ -1,8 +1,6 @@
 package Blockchain;
 
-import java.security.*;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.nio.ByteBuffer;
 import java.security.PrivateKey;
 import java.security.PublicKey;
 
@@ -15,17 +13,69 @@ public class Transaction {
     private String transactionHash;
     private byte[] signature;
 
+    /* Encoded keys and addresses, computed once (or shared from wallets) */
+    private final byte[] senderKey;
+    private final byte[] receiverKey;
+    private Address senderAddress;
+    private Address receiverAddress;
+    /**
+     * Signed data: encoded sender and receiver keys followed by the amount
+     */
+    private byte[] payload;
+
     public Transaction(PublicKey sender, PublicKey receiver, double amount, long timestamp) {
+        this(sender, sender.getEncoded(), receiver, receiver.getEncoded(),
+                amount, timestamp);
+    }
+
+    /**
+     * Creates a transaction between two wallets, reusing the encoded keys
+     * and addresses the wallets have already computed.
+     *
+     * @param sender Wallet of the sender
+     * @param receiver Wallet of the receiver
+     * @param amount Amount of the transaction
+     * @param timestamp Creation time of the transaction
+     */
+    public Transaction(Wallet sender, Wallet receiver, double amount, long timestamp) {
+        this(sender.getPublicKey(), sender.getEncodedPublicKey(),
+                receiver.getPublicKey(), receiver.getEncodedPublicKey(),
+                amount, timestamp);
+        this.senderAddress = sender.getAddress();
+        this.receiverAddress = receiver.getAddress();
+    }
+
+    private Transaction(PublicKey sender, byte[] senderKey, PublicKey receiver,
+            byte[] receiverKey, double amount, long timestamp) {
         this.sender = sender;
         this.receiver = receiver;
+        this.senderKey = senderKey;
+        this.receiverKey = receiverKey;
         this.amount = amount;
         this.timestamp = timestamp;
         this.transactionHash = calculateHash();
     }
 
+    /**
+     * Hashes the signed payload followed by the timestamp.
+     */
     private String calculateHash() {
-        return SecureTransaction.applySha256(SecureTransaction.getStringFromKey(sender) + SecureTransaction.getStringFromKey(sender)
-                + amount + timestamp);
+        byte[] data = getPayload();
+        ByteBuffer buf = ByteBuffer.allocate(data.length + 8);
+        buf.put(data).putLong(timestamp);
+        return SecureTransaction.bytesToHex(SecureTransaction.sha256(buf.array()));
+    }
+
+    /**
+     * Returns the canonical signed data of this transaction. The data is
+     * serialized on first use and cached until the amount changes.
+     */
+    byte[] getPayload() {
+        if (payload == null) {
+            payload = ByteBuffer.allocate(senderKey.length + receiverKey.length + 8)
+                    .put(senderKey).put(receiverKey).putDouble(amount).array();
+        }
+        return payload;
     }
 
     public String getTransactionHash() {
@@ -38,16 +88,52 @@ public class Transaction {
 
     public void setAmount(double amount) {
         this.amount = amount;
+        this.payload = null;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public Address getSenderAddress() {
+        if (senderAddress == null) {
+            senderAddress = Address.fromEncodedKey(senderKey);
+        }
+        return senderAddress;
+    }
+
+    public Address getReceiverAddress() {
+        if (receiverAddress == null) {
+            receiverAddress = Address.fromEncodedKey(receiverKey);
+        }
+        return receiverAddress;
+    }
+
+    /**
+     * Returns an estimate of the number of bytes this transaction takes when
+     * stored: both keys, amount, timestamp, hash and signature.
+     *
+     * @return Estimated size in bytes
+     */
+    public int getSize() {
+        return senderKey.length + receiverKey.length + 8 + 8
+                + transactionHash.length()
+                + (signature != null ? signature.length : 0);
     }
 
     public void generateSignature(PrivateKey privateKey) {
-        String data = SecureTransaction.getStringFromKey(sender) + SecureTransaction.getStringFromKey(receiver) + amount;
-        signature = SecureTransaction.applyECDSASig(privateKey, data);
+        signature = SecureTransaction.applyECDSASig(privateKey, getPayload());
+    }
+
+    /**
+     * Returns the signature of this transaction or null if it is not signed
+     */
+    byte[] getSignature() {
+        return signature;
     }
 
     public boolean verifySignature() {
-        String data = SecureTransaction.getStringFromKey(sender) + SecureTransaction.getStringFromKey(receiver) + amount;
-        return SecureTransaction.verifyECDSASig(sender, data, signature);
+        return SecureTransaction.verifyECDSASig(sender, getPayload(), signature);
     }
 
     @Override
@@ -59,7 +145,7 @@ public class Transaction {
                 + "    Amount    : %f\n"
                 + "    Timestamp : %d\n"
                 + "    Hash      : %s",
-                sender, receiver, amount, timestamp, transactionHash
+                getSenderAddress(), getReceiverAddress(), amount, timestamp, transactionHash
         );
     }
 }
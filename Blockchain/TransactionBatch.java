@@ -0,0 +1,116 @@
+package Blockchain;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Packets of transactions handed from one relay stage to the next. A batch
+ * can not be modified; its packets are owned by whoever holds a reference to
+ * it. The batch counts its references: a holder that wants to keep the batch
+ * while passing it on calls {@link #retain()}, and every holder calls
+ * {@link #release()} when it no longer needs the batch. A {@link Mempool}
+ * holding the only reference can take the packets over without copying.
+ */
+public class TransactionBatch {
+
+    private Mempool.PacketIndex index;
+    private final int nrofPackets;
+    private final int nrofTransactions;
+    private final long size;
+    private final AtomicInteger refCount;
+
+    TransactionBatch(Mempool.PacketIndex index) {
+        this.index = index;
+        this.nrofPackets = index.getNrofPackets();
+        this.nrofTransactions = index.getNrofTransactions();
+        this.size = index.getMemoryUsage();
+        this.refCount = new AtomicInteger(1);
+    }
+
+    /**
+     * Returns the packets of this batch in the order they were created
+     *
+     * @throws IllegalStateException if the batch has been released
+     */
+    public List<TransactionPacket> getPackets() {
+        return getIndex().getPackets();
+    }
+
+    public int getNrofPackets() {
+        return nrofPackets;
+    }
+
+    public int getNrofTransactions() {
+        return nrofTransactions;
+    }
+
+    /**
+     * Returns the estimated size of the transactions in this batch (bytes)
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the number of references to this batch
+     */
+    public int getRefCount() {
+        return refCount.get();
+    }
+
+    /**
+     * Adds a reference to this batch
+     *
+     * @return This batch
+     * @throws IllegalStateException if the batch has been released
+     */
+    public TransactionBatch retain() {
+        getIndex();
+        refCount.incrementAndGet();
+        return this;
+    }
+
+    /**
+     * Drops a reference to this batch. The packets are no longer accessible
+     * through the batch when the last reference is dropped.
+     *
+     * @return True if this was the last reference
+     */
+    public boolean release() {
+        int left = refCount.decrementAndGet();
+        if (left < 0) {
+            throw new IllegalStateException("Batch released too many times");
+        }
+        if (left == 0) {
+            index = null;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Hands the packet index over to the holder of the last reference.
+     */
+    Mempool.PacketIndex detach() {
+        Mempool.PacketIndex detached = getIndex();
+        if (!refCount.compareAndSet(1, 0)) {
+            throw new IllegalStateException("Batch is shared");
+        }
+        index = null;
+        return detached;
+    }
+
+    private Mempool.PacketIndex getIndex() {
+        Mempool.PacketIndex i = index;
+        if (i == null) {
+            throw new IllegalStateException("Batch has been released");
+        }
+        return i;
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionBatch{packets=" + nrofPackets + ", trx="
+                + nrofTransactions + ", refs=" + refCount.get() + '}';
+    }
+}
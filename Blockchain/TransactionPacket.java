@@ -0,0 +1,69 @@
+package Blockchain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable group of transactions that is mined into one block. The total
+ * amount and the estimated size of the packet are computed once when the
+ * packet is created.
+ */
+public class TransactionPacket {
+
+    private final List<Transaction> transactions;
+    private final double totalAmount;
+    private final int size;
+
+    /**
+     * Creates a packet of the given transactions. The list is copied.
+     *
+     * @param transactions Transactions of the packet
+     */
+    public TransactionPacket(List<Transaction> transactions) {
+        this.transactions = Collections.unmodifiableList(
+                new ArrayList<>(transactions));
+        double total = 0;
+        int bytes = 0;
+        for (Transaction t : transactions) {
+            total += t.getAmount();
+            bytes += t.getSize();
+        }
+        this.totalAmount = total;
+        this.size = bytes;
+    }
+
+    /**
+     * Returns the (unmodifiable) transactions of this packet
+     */
+    public List<Transaction> getTransactions() {
+        return transactions;
+    }
+
+    /**
+     * Returns the sum of the amounts of the transactions in this packet
+     */
+    public double getTotalAmount() {
+        return totalAmount;
+    }
+
+    /**
+     * Returns the estimated size of this packet (bytes)
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the number of transactions in this packet
+     */
+    public int getNrofTransactions() {
+        return transactions.size();
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionPacket{" + transactions.size() + " trx, total="
+                + totalAmount + '}';
+    }
+}
@@ -1,61 +1,164 @@
 package Blockchain;
 
+import core.DTNSim;
 import java.security.*;
+import java.util.concurrent.atomic.AtomicLong;
 import org.bouncycastle.jce.ECNamedCurveTable;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.jce.spec.ECParameterSpec;
 
+/**
+ * Wallet of a miner or node. The key pair is created on first use, either
+ * from the key pair pool set with {@link #setKeyPairPool(KeyPairPool)} or by
+ * generating a new secp256k1 key pair.
+ */
 public class Wallet {
     private PrivateKey privateKey; // Untuk menandatangani transaksi
     private PublicKey publicKey;   // Sebagai alamat wallet
     private double balance;        // Saldo wallet
+    private byte[] encodedPublicKey; // Public key yang sudah di-encode (cache)
+    private Address address;       // Alamat ringkas (cache)
+    private final int index;       // Urutan pembuatan wallet (indeks di key pool)
+
+    private static int nextIndex;
+    private static KeyPairPool keyPairPool;
+    private static final AtomicLong nrofGeneratedKeys = new AtomicLong();
+    private static final AtomicLong nrofPooledKeys = new AtomicLong();
+    private static final AtomicLong keyGenerationNanos = new AtomicLong();
+
     static {
         Security.addProvider(new BouncyCastleProvider()); // Pastikan BC terdaftar
+        DTNSim.registerForReset(Wallet.class.getCanonicalName());
+        reset();
     }
+
     public Wallet() {
-        
-        generateKeyPair();
+        this.index = getNextIndex();
         this.balance = 0; // Saldo awal
     }
 
+    private synchronized static int getNextIndex() {
+        return nextIndex++;
+    }
+
     /**
-     * Generate pasangan public key dan private key.
+     * Resets the wallet numbering, key pair pool and key statistics
      */
-//    private void generateKeyPair() {
-//        try {
-//            KeyPairGenerator keyGen = KeyPairGenerator.getInstance("RSA");
-//            keyGen.initialize(2048);
-//            KeyPair pair = keyGen.generateKeyPair();
-//            this.privateKey = pair.getPrivate();
-//            this.publicKey = pair.getPublic();
-//        } catch (Exception e) {
-//            throw new RuntimeException("Failed to generate key pair", e);
-//        }
-//    }
-
-    private void generateKeyPair() {
+    public static void reset() {
+        nextIndex = 0;
+        keyPairPool = null;
+        nrofGeneratedKeys.set(0);
+        nrofPooledKeys.set(0);
+        keyGenerationNanos.set(0);
+    }
+
+    /**
+     * Sets the pool where wallets take their key pairs from. Wallets whose
+     * index is beyond the pool size generate their key pairs.
+     *
+     * @param pool The key pair pool or null to always generate key pairs
+     */
+    public static void setKeyPairPool(KeyPairPool pool) {
+        keyPairPool = pool;
+    }
+
+    /**
+     * Makes sure this wallet has a key pair. Safe to call concurrently for
+     * different wallets.
+     */
+    public synchronized void ensureKeyPair() {
+        if (publicKey != null) {
+            return;
+        }
+        long begin = System.nanoTime();
+        KeyPair pair = keyPairPool != null ? keyPairPool.get(index) : null;
+        if (pair != null) {
+            nrofPooledKeys.incrementAndGet();
+        } else {
+            pair = generateKeyPair(null);
+            nrofGeneratedKeys.incrementAndGet();
+        }
+        keyGenerationNanos.addAndGet(System.nanoTime() - begin);
+        this.privateKey = pair.getPrivate();
+        this.publicKey = pair.getPublic();
+    }
+
+    /**
+     * Generates a secp256k1 key pair.
+     *
+     * @param rng Source of randomness or null to use the default
+     * @return The new key pair
+     */
+    static KeyPair generateKeyPair(SecureRandom rng) {
         try {
             // 1. Gunakan algoritma "ECDSA", bukan "RSA"
             KeyPairGenerator keyGen = KeyPairGenerator.getInstance("ECDSA", "BC"); // Provider BC
 
             // 2. Pilih kurva elliptic (contoh: secp256k1 untuk Bitcoin)
             ECParameterSpec ecSpec = ECNamedCurveTable.getParameterSpec("secp256k1");
-            keyGen.initialize(ecSpec);
+            if (rng != null) {
+                keyGen.initialize(ecSpec, rng);
+            } else {
+                keyGen.initialize(ecSpec);
+            }
 
             // 3. Generate key pair
-            KeyPair pair = keyGen.generateKeyPair();
-            this.privateKey = pair.getPrivate();
-            this.publicKey = pair.getPublic();
+            return keyGen.generateKeyPair();
         } catch (Exception e) {
             throw new RuntimeException("Failed to generate EC key pair", e);
         }
     }
-    
+
+    /**
+     * Returns how many key pairs wallets have generated
+     */
+    public static long getNrofGeneratedKeys() {
+        return nrofGeneratedKeys.get();
+    }
+
+    /**
+     * Returns how many key pairs wallets have taken from the key pair pool
+     */
+    public static long getNrofPooledKeys() {
+        return nrofPooledKeys.get();
+    }
+
+    /**
+     * Returns the total time wallets have spent creating key pairs,
+     * summed over all threads (milliseconds)
+     */
+    public static double getKeyGenerationTime() {
+        return keyGenerationNanos.get() / 1e6;
+    }
+
     public PublicKey getPublicKey() {
+        ensureKeyPair();
         return publicKey;
     }
 
+    /**
+     * Returns the encoded public key. The key is encoded once and the same
+     * array is returned on every call, so it must not be modified.
+     */
+    public byte[] getEncodedPublicKey() {
+        if (encodedPublicKey == null) {
+            encodedPublicKey = getPublicKey().getEncoded();
+        }
+        return encodedPublicKey;
+    }
+
+    /**
+     * Returns the compact address of this wallet
+     */
+    public Address getAddress() {
+        if (address == null) {
+            address = Address.fromEncodedKey(getEncodedPublicKey());
+        }
+        return address;
+    }
+
     public PrivateKey getPrivateKey() {
+        ensureKeyPair();
         return privateKey;
     }
 
@@ -77,7 +180,7 @@ public class Wallet {
     @Override
     public String toString() {
         return "Wallet{" +
-                "publicKey=" + publicKey.hashCode() + // Hash code untuk representasi sederhana
+                "publicKey=" + getPublicKey().hashCode() + // Hash code untuk representasi sederhana
                 ", balance=" + balance +
                 '}';
     }
@@ -0,0 +1,8 @@
+#! /bin/sh
+# Usage: benchmark.sh [benchmark class] [options]
+BENCHMARK=BlockchainBenchmark
+case "$1" in
+	-*|"") ;;
+	*) BENCHMARK=$1; shift ;;
+esac
+java -Xmx512M -cp .:lib/* benchmark.$BENCHMARK $*
@@ -0,0 +1,162 @@
+package benchmark;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal micro benchmark harness. Every benchmark is run for a number of
+ * warmup iterations and then for a number of measured iterations of fixed
+ * length; the result is the mean time per operation and its standard
+ * deviation over the measured iterations. Results can be compared with a
+ * baseline file written by an earlier run.
+ */
+public class Benchmark {
+
+    /**
+     * A benchmarked operation. The returned value is consumed so that the
+     * JIT can't remove the work.
+     */
+    public interface Operation {
+
+        Object run() throws Exception;
+    }
+
+    private final int warmupIterations;
+    private final int iterations;
+    private final long iterationNanos;
+    private final Pattern filter;
+    private final Map<String, Double> baseline;
+    private final double regressionLimit;
+    private int nrofRegressions;
+    private int sink;
+
+    /**
+     * Creates a harness.
+     *
+     * @param warmupIterations Number of warmup iterations
+     * @param iterations Number of measured iterations
+     * @param iterationMillis Length of an iteration (milliseconds)
+     * @param filter Regular expression selecting the benchmarks to run
+     * @param baselineFile Baseline file to compare with or null
+     * @param regressionLimit Relative slowdown that counts as a regression
+     * @throws IOException if the baseline file can't be read
+     */
+    public Benchmark(int warmupIterations, int iterations, long iterationMillis,
+            String filter, String baselineFile, double regressionLimit)
+            throws IOException {
+        this.warmupIterations = warmupIterations;
+        this.iterations = iterations;
+        this.iterationNanos = iterationMillis * 1000000;
+        this.filter = Pattern.compile(filter);
+        this.baseline = baselineFile != null ? readBaseline(baselineFile)
+                : new HashMap<String, Double>();
+        this.regressionLimit = regressionLimit;
+    }
+
+    /**
+     * Reads "name ns/op ..." lines from a baseline file. Lines starting with
+     * '#' are skipped.
+     */
+    private static Map<String, Double> readBaseline(String fileName)
+            throws IOException {
+        Map<String, Double> values = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] parts = line.split("\\s+");
+                values.put(parts[0], Double.parseDouble(parts[1]));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Prints the header of the result table
+     */
+    public void printHeader() {
+        System.out.println("# benchmark ns/op stddev"
+                + (baseline.isEmpty() ? "" : " baseline change"));
+    }
+
+    /**
+     * Runs a benchmark (if it matches the filter) and prints its result.
+     *
+     * @param name Name of the benchmark
+     * @param op The operation to measure
+     * @throws Exception if the operation fails
+     */
+    public void run(String name, Operation op) throws Exception {
+        if (!filter.matcher(name).find()) {
+            return;
+        }
+        for (int i = 0; i < warmupIterations; i++) {
+            measure(op);
+        }
+        double[] results = new double[iterations];
+        double sum = 0;
+        for (int i = 0; i < iterations; i++) {
+            results[i] = measure(op);
+            sum += results[i];
+        }
+        double mean = sum / iterations;
+        double var = 0;
+        for (double r : results) {
+            var += (r - mean) * (r - mean);
+        }
+        double stddev = iterations > 1 ? Math.sqrt(var / (iterations - 1)) : 0;
+
+        StringBuilder line = new StringBuilder();
+        line.append(String.format("%-36s %14.1f %12.1f", name, mean, stddev));
+        Double base = baseline.get(name);
+        if (base != null) {
+            double change = (mean - base) / base;
+            line.append(String.format(" %14.1f %+7.1f%%", base, change * 100));
+            if (change > regressionLimit) {
+                line.append(" REGRESSION");
+                nrofRegressions++;
+            }
+        }
+        System.out.println(line);
+    }
+
+    /**
+     * Runs the operation for one iteration
+     *
+     * @return Mean time per operation (nanoseconds)
+     */
+    private double measure(Operation op) throws Exception {
+        long ops = 0;
+        long begin = System.nanoTime();
+        long elapsed;
+        do {
+            Object result = op.run();
+            sink += result != null ? result.hashCode() : 0;
+            ops++;
+            elapsed = System.nanoTime() - begin;
+        } while (elapsed < iterationNanos);
+        return (double) elapsed / ops;
+    }
+
+    /**
+     * Returns the number of benchmarks slower than the baseline by more than
+     * the regression limit
+     */
+    public int getNrofRegressions() {
+        return nrofRegressions;
+    }
+
+    /**
+     * Returns the consumed results; only exists to keep them alive
+     */
+    public int getSink() {
+        return sink;
+    }
+}
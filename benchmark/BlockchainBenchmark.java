@@ -0,0 +1,168 @@
+package benchmark;
+
+import Blockchain.Block;
+import Blockchain.Blockchain;
+import Blockchain.Localchain;
+import Blockchain.Mempool;
+import Blockchain.ParallelMiningEngine;
+import Blockchain.SecureTransaction;
+import Blockchain.Transaction;
+import Blockchain.Wallet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmarks of the hot paths of the Blockchain package. Run headless with
+ * <code>benchmark.sh [options]</code>; options:
+ * <ul>
+ * <li><code>-w n</code> warmup iterations (default 2)</li>
+ * <li><code>-i n</code> measured iterations (default 5)</li>
+ * <li><code>-t ms</code> length of an iteration (default 1000)</li>
+ * <li><code>-f regex</code> run only the benchmarks whose name matches</li>
+ * <li><code>-b file</code> compare with a baseline file, e.g.
+ * <code>benchmark/baseline.txt</code></li>
+ * <li><code>-r limit</code> relative slowdown reported as a regression
+ * (default 0.2)</li>
+ * </ul>
+ * The output lines can be used as a new baseline file. The exit code is the
+ * number of regressions found.
+ */
+public class BlockchainBenchmark {
+
+    /**
+     * Number of transactions in a benchmarked block
+     */
+    private static final int BLOCK_SIZE = 8;
+    /**
+     * Number of blocks in the benchmarked local chain
+     */
+    private static final int CHAIN_LENGTH = 100;
+    /**
+     * Number of transactions grouped in the mempool benchmark
+     */
+    private static final int POOL_SIZE = 1000;
+
+    private final Wallet sender;
+    private final Wallet receiver;
+    private final List<Transaction> transactions;
+    private final Random rng;
+    private long timestamp;
+
+    private BlockchainBenchmark() {
+        this.sender = new Wallet();
+        this.receiver = new Wallet();
+        this.rng = new Random(0);
+        this.transactions = new ArrayList<>();
+        for (int i = 0; i < POOL_SIZE; i++) {
+            transactions.add(newTransaction());
+        }
+    }
+
+    private Transaction newTransaction() {
+        Transaction t = new Transaction(sender, receiver,
+                10 + rng.nextDouble() * 990, timestamp++);
+        t.generateSignature(sender.getPrivateKey());
+        return t;
+    }
+
+    private Block newBlock(String previousHash) {
+        return new Block(previousHash, transactions.subList(0, BLOCK_SIZE),
+                timestamp++);
+    }
+
+    private void runAll(Benchmark b) throws Exception {
+        final Block block = newBlock("0");
+        final Transaction tx = transactions.get(0);
+        final String shaInput = tx.getTransactionHash();
+
+        b.printHeader();
+        b.run("SecureTransaction.applySha256", () -> SecureTransaction.applySha256(shaInput));
+        b.run("Block.new", () -> newBlock("0"));
+        b.run("Block.calculateHash", () -> block.calculateHash());
+        for (int d = 1; d <= 5; d++) {
+            final int difficulty = d;
+            b.run("Block.mineBlock.d" + d, () -> {
+                Block mined = newBlock("0");
+                mined.mineBlock(difficulty);
+                return mined.getHash();
+            });
+        }
+        final ParallelMiningEngine engine = new ParallelMiningEngine(
+                Runtime.getRuntime().availableProcessors(),
+                ParallelMiningEngine.DEFAULT_CHUNK_SIZE);
+        for (int d = 4; d <= 5; d++) {
+            final int difficulty = d;
+            b.run("ParallelMiningEngine.d" + d, () -> {
+                Block mined = newBlock("0");
+                engine.mine(mined, difficulty);
+                return mined.getHash();
+            });
+        }
+
+        b.run("Transaction.new", () -> new Transaction(sender, receiver, 42, timestamp++));
+        b.run("Transaction.sign", () -> {
+            tx.generateSignature(sender.getPrivateKey());
+            return tx;
+        });
+        b.run("Transaction.verify", () -> tx.verifySignature());
+
+        final Localchain localchain = new Localchain(1);
+        for (int i = 0; i < CHAIN_LENGTH; i++) {
+            Block lb = newBlock(localchain.getLatestBlock().getHash());
+            lb.mineBlock(1);
+            localchain.addBlock(lb);
+        }
+        b.run("Localchain.calculateHash", () -> localchain.calculateHash());
+        b.run("Localchain.isChainValid", () -> localchain.revalidateChain(false));
+
+        // DTNHost.groupTransactions() delegates to Mempool.groupPending()
+        b.run("Mempool.groupPending." + POOL_SIZE, () -> {
+            Mempool pool = new Mempool();
+            for (Transaction t : transactions) {
+                pool.add(t);
+            }
+            pool.groupPending(rng, 5, 8);
+            return pool.pollBest();
+        });
+
+        b.run("Blockchain.addBlockFromLocalChain", () -> {
+            Localchain lc = new Localchain(2);
+            for (int i = 0; i < 5; i++) {
+                lc.addBlock(newBlock(lc.getLatestBlock().getHash()));
+            }
+            Blockchain chain = new Blockchain(2);
+            chain.addBlockFromLocalChain(lc);
+            return chain.getLatestBlock().getHash();
+        });
+    }
+
+    public static void main(String[] args) throws Exception {
+        int warmup = 2;
+        int iterations = 5;
+        long millis = 1000;
+        String filter = ".*";
+        String baseline = null;
+        double limit = 0.2;
+
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "-w": warmup = Integer.parseInt(value); i++; break;
+                case "-i": iterations = Integer.parseInt(value); i++; break;
+                case "-t": millis = Long.parseLong(value); i++; break;
+                case "-f": filter = value; i++; break;
+                case "-b": baseline = value; i++; break;
+                case "-r": limit = Double.parseDouble(value); i++; break;
+                default:
+                    System.err.println("Unknown option " + args[i]);
+                    System.exit(-1);
+            }
+        }
+
+        Benchmark b = new Benchmark(warmup, iterations, millis, filter,
+                baseline, limit);
+        new BlockchainBenchmark().runAll(b);
+        System.exit(b.getNrofRegressions());
+    }
+}
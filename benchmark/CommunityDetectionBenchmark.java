@@ -0,0 +1,196 @@
+package benchmark;
+
+import core.DTNHost;
+import core.ModuleCommunicationBus;
+import core.NetworkInterface;
+import core.Settings;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import movement.StationaryMovement;
+import routing.PassiveRouter;
+import routing.community.CommunityDetection;
+import routing.community.Duration;
+import routing.community.KCliqueCommunityDetection;
+
+/**
+ * Benchmark of {@link KCliqueCommunityDetection}: one operation is a
+ * {@link #CONTACTS_PER_OP} long sequence of new connections between random
+ * host pairs, most of them within the same cluster of
+ * {@link #CLUSTER_SIZE} hosts. Every host has first been made familiar with
+ * {@link #FAMILIARS} hosts, mostly of its own cluster, so the local
+ * communities grow to about the cluster size. Run with
+ * <code>benchmark.sh CommunityDetectionBenchmark [options]</code>; the
+ * options are the ones of {@link BlockchainBenchmark} and
+ * <code>-n hosts</code> (default: both 500 and 2000).
+ */
+public class CommunityDetectionBenchmark {
+
+    /**
+     * Number of hosts in a cluster
+     */
+    private static final int CLUSTER_SIZE = 50;
+    /**
+     * Number of familiar hosts of every host
+     */
+    private static final int FAMILIARS = 20;
+    /**
+     * Probability that a familiar host or a contact is in another cluster
+     */
+    private static final double OUTSIDE_PROB = 0.1;
+    /**
+     * Number of new connections per operation
+     */
+    private static final int CONTACTS_PER_OP = 1000;
+    /**
+     * K of the K-Clique algorithm
+     */
+    private static final int K = 5;
+
+    private final List<DTNHost> hosts;
+    private final List<CommunityDetection> detections;
+    private final int[][] contacts;
+    private int nextContact;
+
+    private CommunityDetectionBenchmark(int nrofHosts) throws IOException {
+        File settingsFile = File.createTempFile("cdbench", ".txt");
+        settingsFile.deleteOnExit();
+        try (PrintWriter out = new PrintWriter(settingsFile)) {
+            out.println("benchGroup.nodeLocation = 0, 0");
+            out.println("benchCD." + KCliqueCommunityDetection.K_SETTING
+                    + " = " + K);
+            out.println("benchCD." + KCliqueCommunityDetection.FAMILIAR_SETTING
+                    + " = 100");
+        }
+        Settings.init(settingsFile.getPath());
+
+        Settings groupSettings = new Settings("benchGroup");
+        StationaryMovement movement = new StationaryMovement(groupSettings);
+        PassiveRouter router = new PassiveRouter(groupSettings);
+        CommunityDetection proto = new KCliqueCommunityDetection(
+                new Settings("benchCD"));
+
+        this.hosts = new ArrayList<>();
+        this.detections = new ArrayList<>();
+        for (int i = 0; i < nrofHosts; i++) {
+            hosts.add(new DTNHost(null, null, "b",
+                    new ArrayList<NetworkInterface>(),
+                    new ModuleCommunicationBus(), movement, router));
+            detections.add(proto.replicate());
+        }
+
+        Random rng = new Random(1);
+        List<Duration> familiarHistory =
+                Collections.singletonList(new Duration(0, 200));
+        for (int i = 0; i < nrofHosts; i++) {
+            for (int f = 0; f < FAMILIARS; f++) {
+                int j = pickPeer(rng, i);
+                detections.get(i).connectionLost(hosts.get(i), hosts.get(j),
+                        detections.get(j), familiarHistory);
+            }
+        }
+
+        this.contacts = new int[CONTACTS_PER_OP * 16][2];
+        for (int[] contact : contacts) {
+            contact[0] = rng.nextInt(nrofHosts);
+            contact[1] = pickPeer(rng, contact[0]);
+        }
+        for (int i = 0; i < contacts.length / CONTACTS_PER_OP; i++) {
+            connect(); // let the communities reach a steady state
+        }
+    }
+
+    /**
+     * Returns a random host other than the given one, in the same cluster
+     * with the probability of 1 - {@link #OUTSIDE_PROB}
+     */
+    private int pickPeer(Random rng, int host) {
+        int n = hosts.size();
+        int peer;
+        do {
+            if (rng.nextDouble() < OUTSIDE_PROB) {
+                peer = rng.nextInt(n);
+            } else {
+                int cluster = host / CLUSTER_SIZE * CLUSTER_SIZE;
+                peer = cluster + rng.nextInt(Math.min(CLUSTER_SIZE,
+                        n - cluster));
+            }
+        } while (peer == host);
+        return peer;
+    }
+
+    /**
+     * Informs both ends of {@link #CONTACTS_PER_OP} connections
+     */
+    private int connect() {
+        int members = 0;
+        for (int i = 0; i < CONTACTS_PER_OP; i++) {
+            int[] c = contacts[nextContact];
+            nextContact = (nextContact + 1) % contacts.length;
+            DTNHost a = hosts.get(c[0]);
+            DTNHost b = hosts.get(c[1]);
+            CommunityDetection cdA = detections.get(c[0]);
+            CommunityDetection cdB = detections.get(c[1]);
+            cdA.newConnection(a, b, cdB);
+            cdB.newConnection(b, a, cdA);
+            if (cdA.isHostInCommunity(b)) {
+                members++;
+            }
+        }
+        return members;
+    }
+
+    /**
+     * Returns the average local community size
+     */
+    private double getAverageCommunitySize() {
+        long sum = 0;
+        for (CommunityDetection cd : detections) {
+            sum += cd.getLocalCommunity().size();
+        }
+        return (double) sum / detections.size();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int warmup = 2;
+        int iterations = 5;
+        long millis = 1000;
+        String filter = ".*";
+        String baseline = null;
+        double limit = 0.2;
+        int[] sizes = {500, 2000};
+
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "-w": warmup = Integer.parseInt(value); i++; break;
+                case "-i": iterations = Integer.parseInt(value); i++; break;
+                case "-t": millis = Long.parseLong(value); i++; break;
+                case "-f": filter = value; i++; break;
+                case "-b": baseline = value; i++; break;
+                case "-r": limit = Double.parseDouble(value); i++; break;
+                case "-n": sizes = new int[] {Integer.parseInt(value)}; i++; break;
+                default:
+                    System.err.println("Unknown option " + args[i]);
+                    System.exit(-1);
+            }
+        }
+
+        Benchmark b = new Benchmark(warmup, iterations, millis, filter,
+                baseline, limit);
+        b.printHeader();
+        for (int nrofHosts : sizes) {
+            CommunityDetectionBenchmark bench =
+                    new CommunityDetectionBenchmark(nrofHosts);
+            b.run("KCliqueCommunityDetection.newConnection." + nrofHosts,
+                    bench::connect);
+            System.out.println(String.format("# %d hosts: average community "
+                    + "size %.1f", nrofHosts, bench.getAverageCommunitySize()));
+        }
+        System.exit(b.getNrofRegressions());
+    }
+}
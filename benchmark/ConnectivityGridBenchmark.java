@@ -0,0 +1,157 @@
+package benchmark;
+
+import core.DTNHost;
+import core.ModuleCommunicationBus;
+import core.NetworkInterface;
+import core.Settings;
+import core.SimClock;
+import interfaces.SimpleBroadcastInterface;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import movement.RandomWaypoint;
+import routing.PassiveRouter;
+
+/**
+ * Benchmark of the connectivity detection: one operation moves all hosts for
+ * one update interval and updates all their network interfaces, like
+ * {@link core.World#update()} does. Besides the time per update, the bytes
+ * allocated per update and the garbage collections during a fixed number of
+ * updates are reported. Run with
+ * <code>benchmark.sh ConnectivityGridBenchmark [options]</code>; the options
+ * are the ones of {@link BlockchainBenchmark} and
+ * <code>-n hosts</code> (default 1000). The world size grows with the number
+ * of hosts so that the host density stays the same.
+ */
+public class ConnectivityGridBenchmark {
+
+    /**
+     * Update interval (seconds)
+     */
+    private static final double UPDATE_INTERVAL = 0.1;
+    /**
+     * Number of updates in the allocation measurement
+     */
+    private static final int ALLOCATION_UPDATES = 2000;
+    /**
+     * Area per host (square meters)
+     */
+    private static final int AREA_PER_HOST = 10000;
+
+    private final List<DTNHost> hosts;
+    private final SimClock clock;
+
+    private ConnectivityGridBenchmark(int nrofHosts) throws IOException {
+        int size = (int) Math.sqrt((double) nrofHosts * AREA_PER_HOST);
+        File settingsFile = File.createTempFile("gridbench", ".txt");
+        settingsFile.deleteOnExit();
+        try (PrintWriter out = new PrintWriter(settingsFile)) {
+            out.println("MovementModel.worldSize = " + size + ", " + size);
+            out.println("MovementModel.rngSeed = 1");
+            out.println("benchInterface.type = SimpleBroadcastInterface");
+            out.println("benchInterface.transmitSpeed = 250k");
+            out.println("benchInterface.transmitRange = 20");
+            out.println("benchGroup.speed = 0.5, 1.5");
+            out.println("benchGroup.waitTime = 0, 120");
+        }
+        Settings.init(settingsFile.getPath());
+
+        Settings groupSettings = new Settings("benchGroup");
+        List<NetworkInterface> interfaces = new ArrayList<>();
+        interfaces.add(new SimpleBroadcastInterface(
+                new Settings("benchInterface")));
+        RandomWaypoint movement = new RandomWaypoint(groupSettings);
+        PassiveRouter router = new PassiveRouter(groupSettings);
+
+        this.hosts = new ArrayList<>();
+        for (int i = 0; i < nrofHosts; i++) {
+            hosts.add(new DTNHost(null, null, "b", interfaces,
+                    new ModuleCommunicationBus(), movement, router));
+        }
+        this.clock = SimClock.getInstance();
+    }
+
+    /**
+     * Moves all hosts and updates their interfaces
+     */
+    private int update() {
+        for (DTNHost host : hosts) {
+            host.move(UPDATE_INTERVAL);
+        }
+        clock.advance(UPDATE_INTERVAL);
+        int connections = 0;
+        for (DTNHost host : hosts) {
+            for (NetworkInterface ni : host.getInterfaces()) {
+                ni.update();
+                connections += ni.getConnections().size();
+            }
+        }
+        return connections;
+    }
+
+    /**
+     * Prints the bytes allocated per update and the garbage collections
+     * during {@link #ALLOCATION_UPDATES} updates
+     */
+    private void measureAllocation(String name) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long gcCount = 0;
+        long gcTime = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcCount -= gc.getCollectionCount();
+            gcTime -= gc.getCollectionTime();
+        }
+        long allocated = -threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < ALLOCATION_UPDATES; i++) {
+            update();
+        }
+        allocated += threads.getCurrentThreadAllocatedBytes();
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcCount += gc.getCollectionCount();
+            gcTime += gc.getCollectionTime();
+        }
+        System.out.println(String.format("# %s: %.0f B/update, %d GCs (%d ms) "
+                + "in %d updates", name, (double) allocated / ALLOCATION_UPDATES,
+                gcCount, gcTime, ALLOCATION_UPDATES));
+    }
+
+    public static void main(String[] args) throws Exception {
+        int warmup = 2;
+        int iterations = 5;
+        long millis = 1000;
+        String filter = ".*";
+        String baseline = null;
+        double limit = 0.2;
+        int nrofHosts = 1000;
+
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "-w": warmup = Integer.parseInt(value); i++; break;
+                case "-i": iterations = Integer.parseInt(value); i++; break;
+                case "-t": millis = Long.parseLong(value); i++; break;
+                case "-f": filter = value; i++; break;
+                case "-b": baseline = value; i++; break;
+                case "-r": limit = Double.parseDouble(value); i++; break;
+                case "-n": nrofHosts = Integer.parseInt(value); i++; break;
+                default:
+                    System.err.println("Unknown option " + args[i]);
+                    System.exit(-1);
+            }
+        }
+
+        Benchmark b = new Benchmark(warmup, iterations, millis, filter,
+                baseline, limit);
+        ConnectivityGridBenchmark bench = new ConnectivityGridBenchmark(nrofHosts);
+        String name = "ConnectivityGrid.update." + nrofHosts;
+        b.printHeader();
+        b.run(name, bench::update);
+        bench.measureAllocation(name);
+        System.exit(b.getNrofRegressions());
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package core;
+
+import interfaces.ConnectivityGrid;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import movement.MovementModel;
+
+/**
+ * <P>
+ * Predicts when network interfaces can come in or out of range of each
+ * other. Between the waypoints of their paths hosts move along straight
+ * lines at constant speeds, so for every pair of nearby interfaces the
+ * first time their distance crosses the transmit range can be solved
+ * from the current path segments. Interfaces that are further away can't
+ * get within range before they have had time to cover the distance at the
+ * movement models' maximum speeds (see {@link MovementModel#getMaxSpeed()}).
+ * </P>
+ * <P>
+ * The earliest such time is the next time the connections of an interface
+ * need to be checked; until then {@link NetworkInterface#isContactCheckDue()}
+ * is false and the interface skips the range checks, which wouldn't change
+ * anything. Since the checks are skipped only when they would have been
+ * no-ops, the results are the same as when checking every update.
+ * Interfaces whose host has active times, whose interface has a scanning
+ * interval, or whose host is about to get a new path are checked on every
+ * update, and so are the interfaces near them.
+ * </P>
+ */
+public class ContactPredictor {
+	/** margin (meters) kept to the range to cover rounding errors */
+	private static final double RANGE_MARGIN = 1e-6;
+
+	private final double updateInterval;
+	private final int cellSizeMult;
+
+	/**
+	 * Constructor.
+	 * @param updateInterval The update interval of the world
+	 * @param cellSizeMult Size of the cells nearby interfaces are searched
+	 * from, as a multiplier of the largest transmit range
+	 */
+	public ContactPredictor(double updateInterval, int cellSizeMult) {
+		this.updateInterval = updateInterval;
+		this.cellSizeMult = cellSizeMult;
+	}
+
+	/**
+	 * Predicts the next connection check time for all interfaces that were
+	 * checked in this update. Must be called after the hosts have been
+	 * updated, when the clock is at the time the hosts were last moved to.
+	 */
+	public void predict() {
+		double now = SimClock.getTime();
+		for (ConnectivityGrid grid : ConnectivityGrid.getGrids()) {
+			predict(new ArrayList<NetworkInterface>(grid.getAllInterfaces()),
+					now);
+		}
+	}
+
+	/**
+	 * Predicts the next connection check times for the due interfaces of a
+	 * connectivity grid
+	 * @param interfaces All the interfaces of the grid
+	 * @param now Current sim time
+	 */
+	private void predict(List<NetworkInterface> interfaces, double now) {
+		int n = interfaces.size();
+		boolean anyDue = false;
+		for (NetworkInterface ni : interfaces) {
+			if (ni.contactCheckDue()) {
+				anyDue = true;
+				break;
+			}
+		}
+		if (!anyDue) {
+			return;
+		}
+
+		double[] x = new double[n];
+		double[] y = new double[n];
+		double[] vx = new double[n];
+		double[] vy = new double[n];
+		double[] end = new double[n];
+		double maxRange = 0;
+		double maxSpeed = 0;
+
+		for (int i = 0; i < n; i++) {
+			NetworkInterface ni = interfaces.get(i);
+			DTNHost host = ni.getHost();
+			Coord loc = host.getLocation();
+			x[i] = loc.getX();
+			y[i] = loc.getY();
+			end[i] = motion(host, now, vx, vy, i);
+			if (ni.getScanInterval() > 0) {
+				end[i] = now;
+			}
+			maxRange = Math.max(maxRange, ni.getTransmitRange());
+			maxSpeed = Math.max(maxSpeed, host.getMovement().getMaxSpeed());
+			maxSpeed = Math.max(maxSpeed, Math.hypot(vx[i], vy[i]));
+		}
+
+		if (maxRange <= 0) {
+			return;
+		}
+
+		/* bucket the interfaces by their location */
+		double cellSize = cellSizeMult * maxRange;
+		Map<Long, List<Integer>> cells = new HashMap<Long, List<Integer>>();
+		long[] cellOf = new long[n];
+		for (int i = 0; i < n; i++) {
+			cellOf[i] = cellKey((long)Math.floor(x[i] / cellSize),
+					(long)Math.floor(y[i] / cellSize));
+			List<Integer> cell = cells.get(cellOf[i]);
+			if (cell == null) {
+				cell = new ArrayList<Integer>();
+				cells.put(cellOf[i], cell);
+			}
+			cell.add(i);
+		}
+
+		for (int i = 0; i < n; i++) {
+			NetworkInterface ni = interfaces.get(i);
+			if (!ni.contactCheckDue()) {
+				continue; // earlier prediction is still valid
+			}
+			double range = ni.getTransmitRange();
+			double next = end[i];
+
+			/* interfaces outside the neighboring cells are at least one cell
+			 * size away */
+			double speed = Math.hypot(vx[i], vy[i]) + maxSpeed;
+			if (speed > 0) {
+				next = Math.min(next,
+						now + (cellSize - range - RANGE_MARGIN) / speed);
+			}
+
+			long cx = (long)Math.floor(x[i] / cellSize);
+			long cy = (long)Math.floor(y[i] / cellSize);
+			for (long dx = -1; dx <= 1 && next > now; dx++) {
+				for (long dy = -1; dy <= 1; dy++) {
+					List<Integer> cell = cells.get(cellKey(cx + dx, cy + dy));
+					if (cell == null) {
+						continue;
+					}
+					for (int j : cell) {
+						if (j == i) {
+							continue;
+						}
+						double r = Math.min(range,
+								interfaces.get(j).getTransmitRange());
+						double t = now + crossingTime(x[i] - x[j],
+								y[i] - y[j], vx[i] - vx[j], vy[i] - vy[j], r);
+						next = Math.min(next, Math.min(t, end[j]));
+					}
+				}
+			}
+
+			ni.setNextContactCheck(Math.max(next, now));
+		}
+	}
+
+	/**
+	 * Computes the velocity of a host and the time until which it moves
+	 * with that velocity
+	 * @param host The host
+	 * @param now Current sim time
+	 * @param vx Array where to store the x component of the velocity
+	 * @param vy Array where to store the y component of the velocity
+	 * @param i Index in the velocity arrays
+	 * @return Time until the host's motion is known
+	 */
+	private double motion(DTNHost host, double now, double[] vx,
+			double[] vy, int i) {
+		MovementModel movement = host.getMovement();
+		if (movement.hasActiveTimes()) {
+			return now; // can stop and start any time
+		}
+		if (now < host.getNextTimeToMove()) {
+			/* waiting; hosts may start moving at the beginning of the update
+			 * interval during which the waiting ends */
+			return host.getNextTimeToMove() - updateInterval;
+		}
+		Coord dest = host.getDestination();
+		if (dest == null) {
+			return now; // no path yet
+		}
+
+		Coord loc = host.getLocation();
+		double distance = loc.distance(dest);
+		double speed = host.getSpeed();
+		if (distance == 0) {
+			return now; // about to take the next waypoint
+		}
+		if (speed <= 0) {
+			return Double.MAX_VALUE; // never gets anywhere
+		}
+		vx[i] = (dest.getX() - loc.getX()) / distance * speed;
+		vy[i] = (dest.getY() - loc.getY()) / distance * speed;
+		return now + distance / speed;
+	}
+
+	/**
+	 * Returns how long it takes until two interfaces moving with a constant
+	 * relative velocity may come in or out of range. The range is widened
+	 * and narrowed by {@link #RANGE_MARGIN} so that rounding errors in the
+	 * movement can't make the real crossing happen earlier.
+	 * @param px Relative x coordinate
+	 * @param py Relative y coordinate
+	 * @param wx x component of the relative velocity
+	 * @param wy y component of the relative velocity
+	 * @param range The range of the connection
+	 * @return The time until the crossing (or Double.MAX_VALUE if never)
+	 */
+	private static double crossingTime(double px, double py, double wx,
+			double wy, double range) {
+		double inner = range - RANGE_MARGIN;
+		double outer = range + RANGE_MARGIN;
+		double c = px * px + py * py;
+		if (c >= inner * inner && c <= outer * outer) {
+			return 0; // at the edge of the range
+		}
+
+		double a = wx * wx + wy * wy;
+		if (a == 0) {
+			return Double.MAX_VALUE; // distance doesn't change
+		}
+		double b = px * wx + py * wy;
+
+		if (c < inner * inner) { // leaves the range
+			c -= inner * inner;
+			return (-b + Math.sqrt(b * b - a * c)) / a;
+		}
+
+		c -= outer * outer; // may enter the range
+		double disc = b * b - a * c;
+		if (b >= 0 || disc < 0) {
+			return Double.MAX_VALUE; // getting further away or passing by
+		}
+		return (-b - Math.sqrt(disc)) / a;
+	}
+
+	/**
+	 * Returns a key for the bucket at the given cell coordinates
+	 */
+	private static long cellKey(long cx, long cy) {
+		return (cx << 32) ^ (cy & 0xffffffffL);
+	}
+}
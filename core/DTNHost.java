@@ -7,6 +7,7 @@ package core;
 import Blockchain.Block;
 import Blockchain.Blockchain;
 import Blockchain.Localchain;
+import Blockchain.Mempool;
 import Blockchain.Transaction;
 import Blockchain.Wallet;
 import java.util.ArrayList;
@@ -40,6 +41,7 @@ public class DTNHost implements Comparable<DTNHost> {
     private double speed;
     private double nextTimeToMove;
     private String name;
+    private String groupId;
     private List<MessageListener> msgListeners;
     private List<MovementListener> movListeners;
     private List<NetworkInterface> net;
@@ -57,11 +59,11 @@ public class DTNHost implements Comparable<DTNHost> {
 
     /* ---------------------- FIELD MINER & NODE------------------- */
     private Wallet wallet;
+    private double hashRate;
     /* --------------------------------------------------------------- */
 
  /* ---------------------- FIELD OPERATOR PROXY ------------------- */
-    private List<Transaction> transactionBuffer;
-    private List<List<Transaction>> trx;
+    private Mempool trx;
     private int v;
     private static final int MIN_PACKET_SIZE = 5; // Ukuran minimal paket
     private static final int MAX_PACKET_SIZE = 8; // Ukuran maksimal paket
@@ -75,33 +77,33 @@ public class DTNHost implements Comparable<DTNHost> {
  /* ----------------------- FIELD HOME ---------------------------- */
     private List<Localchain> storedLocalchains;
     private Set<DTNHost> visitedOperatorProxy;
-    private List<List<Transaction>> trxHome;
+    private Mempool trxHome;
     /* --------------------------------------------------------------- */
 
  /* ----------------------- FIELD COLLECTOR ----------------------- */
-    private List<List<Transaction>> trxCol;
+    private Mempool trxCol;
     /* --------------------------------------------------------------- */
 
  /* ----------------------- FIELD INTERNET ----------------------- */
     private Blockchain mainChain;
-    private List<List<Transaction>> trxInter;
+    private Mempool trxInter;
     /* --------------------------------------------------------------- */
 
  /* ----------------------- FIELD ADMIN ----------------------- */
-    private List<List<Transaction>> trxAdmin;
+    private Mempool trxAdmin;
     private Set<DTNHost> visitedMiner;
     private Block selectedBlock;
 
     /* --------------------------------------------------------------- */
-    public List<List<Transaction>> getTrxHome() {
+    public Mempool getTrxHome() {
         return trxHome;
     }
 
-    public List<List<Transaction>> getTrxCol() {
+    public Mempool getTrxCol() {
         return trxCol;
     }
 
-    public List<List<Transaction>> getTrxInter() {
+    public Mempool getTrxInter() {
         return trxInter;
     }
 
@@ -130,6 +132,7 @@ public class DTNHost implements Comparable<DTNHost> {
         this.location = new Coord(0, 0);
         this.address = getNextAddress();
         this.name = groupId + address;
+        this.groupId = groupId;
         this.net = new ArrayList<NetworkInterface>();
 
         for (NetworkInterface i : interf) {
@@ -140,8 +143,7 @@ public class DTNHost implements Comparable<DTNHost> {
 
         // HASHSET UNTUK MENANDAKAN MINER SUDAH DIKUNJUNGI
         if (this.name.startsWith("ope")) {
-            this.trx = new ArrayList<>();
-            this.transactionBuffer = new ArrayList<>();
+            this.trx = new Mempool();
             this.storageCapacity = 0;
             this.storage = 0;
 
@@ -151,23 +153,23 @@ public class DTNHost implements Comparable<DTNHost> {
         }
 
         if (this.name.startsWith("hom")) {
-            this.trxHome = new ArrayList<>();
+            this.trxHome = new Mempool();
             this.storedLocalchains = new ArrayList<>();
             this.visitedOperatorProxy = new HashSet<>();
         }
 
         if (this.name.startsWith("col")) {
-            this.trxCol = new ArrayList<>();
+            this.trxCol = new Mempool();
 
         }
         if (this.name.startsWith("inter")) {
-            this.trxInter = new ArrayList<>();
+            this.trxInter = new Mempool();
         }
         if (this.name.startsWith("adm")) {
             this.v = 0;
             this.rewardedMiner = new HashSet<>();
             this.visitedMiner = new HashSet<>();
-            this.trxAdmin = new ArrayList<>();
+            this.trxAdmin = new Mempool();
         }
         if (this.name.startsWith("min") || this.name.startsWith("node")) {
             this.wallet = new Wallet();
@@ -195,48 +197,37 @@ public class DTNHost implements Comparable<DTNHost> {
         }
     }
 
-    public List<List<Transaction>> getTrxAdmin() {
+    public Mempool getTrxAdmin() {
         return trxAdmin;
     }
 
-    public List<Transaction> getTransactionBuffer() {
-        return transactionBuffer;
-    }
-
-    public void setTransactionBuffer(List<Transaction> transactionBuffer) {
-        this.transactionBuffer = transactionBuffer;
-    }
-
     public int getStorage() {
         return storage;
     }
 
-    public void addTransactionToBuffer(Transaction trx) {
+    /**
+     * Adds a received transaction to the pending transactions of this
+     * operator proxy.
+     *
+     * @param t The transaction
+     * @return True if the transaction was added, false if the transactions
+     * were already grouped or the transaction is a duplicate
+     */
+    public boolean addTransactionToBuffer(Transaction t) {
         if (hasGrouped) {
-            return;
+            return false;
+        }
+        if (!trx.add(t)) {
+            return false;
         }
         storage++;
-        transactionBuffer.add(trx);
+        return true;
     }
 
     public void groupTransactions() {
         if (!hasGrouped) {
-            int jumlah = transactionBuffer.size();
-            while (!transactionBuffer.isEmpty()) {
-                // Tentukan ukuran paket secara acak
-                int packetSize = random.nextInt(MAX_PACKET_SIZE - MIN_PACKET_SIZE + 1) + MIN_PACKET_SIZE;
-
-                packetSize = Math.min(packetSize, transactionBuffer.size()); // Pastikan tidak melebihi jumlah transaksi yang ada
-
-                // Buat paket transaksi
-                List<Transaction> packet = new ArrayList<>();
-                for (int i = 0; i < packetSize; i++) {
-                    packet.add(transactionBuffer.remove(0)); // Ambil transaksi dari buffer
-                }
-
-                // Tambahkan paket ke daftar paket transaksi
-                trx.add(packet);
-            }
+            // Kelompokkan transaksi ke dalam paket dengan ukuran acak
+            int jumlah = trx.groupPending(random, MIN_PACKET_SIZE, MAX_PACKET_SIZE);
 
             System.out.println("Sebanyak " + jumlah + " transaksi tersimpan di buffer!");
             System.out.println("Semua transaksi telah dikelompokkan di " + name);
@@ -273,6 +264,20 @@ public class DTNHost implements Comparable<DTNHost> {
         this.rewardedMiner = rewardedMiner;
     }
 
+    /**
+     * Returns the hash rate (hashes per second) of this host or 0 if no hash
+     * rate was configured for the host's group
+     *
+     * @return the hash rate of this host
+     */
+    public double getHashRate() {
+        return hashRate;
+    }
+
+    public void setHashRate(double hashRate) {
+        this.hashRate = hashRate;
+    }
+
     public Wallet getWallet() {
         return wallet;
     }
@@ -309,11 +314,30 @@ public class DTNHost implements Comparable<DTNHost> {
         this.selectedBlock = selectedBlock;
     }
 
-    public List<List<Transaction>> getTrx() {
+    /**
+     * Returns the transaction pool of this host's relay stage (operator
+     * proxy, home, collector, internet or admin)
+     *
+     * @return the transaction pool or null if this host is not a relay stage
+     */
+    public Mempool getMempool() {
+        if (trx != null) {
+            return trx;
+        } else if (trxHome != null) {
+            return trxHome;
+        } else if (trxCol != null) {
+            return trxCol;
+        } else if (trxInter != null) {
+            return trxInter;
+        }
+        return trxAdmin;
+    }
+
+    public Mempool getTrx() {
         return trx;
     }
 
-    public void setTrx(List<List<Transaction>> trx) {
+    public void setTrx(Mempool trx) {
         this.trx = trx;
     }
 
@@ -339,6 +363,15 @@ public class DTNHost implements Comparable<DTNHost> {
         return name;
     }
 
+    /**
+     * Returns the ID of the group this host belongs to
+     *
+     * @return The group ID
+     */
+    public String getGroupId() {
+        return groupId;
+    }
+
     /**
      * Reset the host and its interfaces
      */
@@ -442,6 +475,42 @@ public class DTNHost implements Comparable<DTNHost> {
         return this.path;
     }
 
+    /**
+     * Returns the destination of the current path segment
+     *
+     * @return The destination or null if the node has no path
+     */
+    Coord getDestination() {
+        return this.destination;
+    }
+
+    /**
+     * Returns the speed on the current path segment
+     *
+     * @return The speed (m/s)
+     */
+    double getSpeed() {
+        return this.speed;
+    }
+
+    /**
+     * Returns the sim time when the node continues moving after waiting
+     *
+     * @return The time the node is allowed to move next
+     */
+    double getNextTimeToMove() {
+        return this.nextTimeToMove;
+    }
+
+    /**
+     * Returns the movement model of the node
+     *
+     * @return The movement model
+     */
+    MovementModel getMovement() {
+        return this.movement;
+    }
+
     /**
      * Sets the Node's location overriding any location set by movement model
      *
@@ -560,6 +629,9 @@ public class DTNHost implements Comparable<DTNHost> {
         } else {
             ni.destroyConnection(no);
         }
+        // connections out of the normal checks invalidate the predictions
+        ni.requestContactCheck();
+        no.requestContactCheck();
     }
 
     /**
@@ -590,6 +662,25 @@ public class DTNHost implements Comparable<DTNHost> {
         this.router.update();
     }
 
+    /**
+     * Returns true if moving the node for the given time would ask the
+     * movement model for a new path or wait time. Other moves only change
+     * the node's own location and can be done concurrently with the moves of
+     * other nodes.
+     *
+     * @param timeIncrement How long time the node would move
+     * @return True if {@link #move(double)} would need a new waypoint
+     */
+    public boolean needsNewWaypoint(double timeIncrement) {
+        if (!isActive() || SimClock.getTime() < this.nextTimeToMove) {
+            return false;
+        }
+        if (this.destination == null) {
+            return true;
+        }
+        return timeIncrement * speed >= this.location.distance(this.destination);
+    }
+
     /**
      * Moves the node towards the next waypoint or waits if it is not time to
      * move yet
@@ -5,10 +5,9 @@
 package core;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
 /**
  * A message that is created at a node or passed between nodes.
@@ -22,8 +21,12 @@ public class Message implements Comparable<Message> {
 	private String id;
 	/** Size of the message (bytes) */
 	private int size;
-	/** List of nodes this message has passed */
+	/** List of nodes this message has passed. The list is shared with the
+	 * replicates of this message; only its first {@link #pathLength} nodes
+	 * belong to this message. */
 	private List<DTNHost> path; 
+	/** Number of nodes this message has passed */
+	private int pathLength;
 	/** Next unique identifier to be given */
 	private static int nextUniqueId;
 	/** Unique ID of this message */
@@ -41,10 +44,14 @@ public class Message implements Comparable<Message> {
 	/** if this message is a response message, this is set to the request msg*/
 	private Message requestMsg;
 	
-	/** Container for generic message properties. Note that all values
-	 * stored in the properties should be immutable because only a shallow
-	 * copy of the properties is made when replicating messages */
-	private Map<String, Object> properties;
+	/** Container for generic message properties, indexed by the slots of
+	 * the {@link MessageProperty} keys. Note that all values stored in the
+	 * properties should be immutable because the properties are shared
+	 * with the replicates of the message */
+	private Object[] properties;
+	/** True if the properties are (possibly) shared with a replicate and
+	 * must be copied before modifying them */
+	private boolean propertiesShared;
 	
 	/** Application ID of the application that created the message */
 	private String	appID;
@@ -68,6 +75,7 @@ public class Message implements Comparable<Message> {
 		this.id = id;
 		this.size = size;
 		this.path = new ArrayList<DTNHost>();
+		this.pathLength = 0;
 		this.uniqueId = nextUniqueId;
 		
 		this.timeCreated = SimClock.getTime();
@@ -82,6 +90,21 @@ public class Message implements Comparable<Message> {
 		addNodeOnPath(from);
 	}
 	
+	/**
+	 * Creates a new replicate of a message. The rest of the message's data
+	 * is copied by {@link #copyFrom(Message)}.
+	 * @param m The message to replicate
+	 */
+	private Message(Message m) {
+		this.from = m.from;
+		this.to = m.to;
+		this.id = m.id;
+		this.size = m.size;
+		this.uniqueId = nextUniqueId;
+		this.timeReceived = SimClock.getTime();
+		Message.nextUniqueId++;
+	}
+	
 	/**
 	 * Returns the node this message is originally from
 	 * @return the node this message is originally from
@@ -128,15 +151,27 @@ public class Message implements Comparable<Message> {
 	 * @param node The node to add
 	 */
 	public void addNodeOnPath(DTNHost node) {
+		if (this.path.size() != this.pathLength) {
+			/* a replicate has extended the shared path; copy our part */
+			this.path = new ArrayList<DTNHost>(
+					this.path.subList(0, this.pathLength));
+		}
 		this.path.add(node);
+		this.pathLength++;
 	}
 	
 	/**
-	 * Returns a list of nodes this message has passed so far
-	 * @return The list as vector
+	 * Returns a list of nodes this message has passed so far. The list is
+	 * a read-only view that should not be kept over changes to the message
+	 * or its replicates.
+	 * @return The list of nodes
 	 */
 	public List<DTNHost> getHops() {
-		return this.path;
+		if (this.path.size() == this.pathLength) {
+			return Collections.unmodifiableList(this.path);
+		}
+		return Collections.unmodifiableList(
+				this.path.subList(0, this.pathLength));
 	}
 	
 	/**
@@ -144,7 +179,7 @@ public class Message implements Comparable<Message> {
 	 * @return the amount of hops this message has passed
 	 */
 	public int getHopCount() {
-		return this.path.size() -1;
+		return this.pathLength -1;
 	}
 	
 	/** 
@@ -164,6 +199,17 @@ public class Message implements Comparable<Message> {
 	}
 	
 	
+	/**
+	 * Returns the time when the TTL of this message runs out
+	 * @return The expiry time or Double.MAX_VALUE if the TTL is infinite
+	 */
+	public double getExpiryTime() {
+		if (this.initTtl == INFINITE_TTL) {
+			return Double.MAX_VALUE;
+		}
+		return this.timeCreated + this.initTtl * 60.0;
+	}
+	
 	/**
 	 * Sets the initial TTL (time-to-live) for this message. The initial
 	 * TTL is the TTL when the original message was created. The current TTL
@@ -250,13 +296,16 @@ public class Message implements Comparable<Message> {
 	}
 
 	/**
-	 * Deep copies message data from other message. If new fields are
+	 * Copies message data from other message. If new fields are
 	 * introduced to this class, most likely they should be copied here too
-	 * (unless done in constructor).
+	 * (unless done in constructor). The hop path and the properties are
+	 * shared with the other message; they are copied only when either
+	 * message modifies them (copy-on-write).
 	 * @param m The message where the data is copied
 	 */
 	protected void copyFrom(Message m) {
-		this.path = new ArrayList<DTNHost>(m.path);
+		this.path = m.path;
+		this.pathLength = m.pathLength;
 		this.timeCreated = m.timeCreated;
 		this.responseSize = m.responseSize;
 		this.requestMsg  = m.requestMsg;
@@ -264,10 +313,9 @@ public class Message implements Comparable<Message> {
 		this.appID = m.appID;
 		
 		if (m.properties != null) {
-			Set<String> keys = m.properties.keySet();
-			for (String key : keys) {
-				updateProperty(key, m.getProperty(key));
-			}
+			this.properties = m.properties;
+			this.propertiesShared = true;
+			m.propertiesShared = true;
 		}
 	}
 	
@@ -276,19 +324,35 @@ public class Message implements Comparable<Message> {
 	 * it should be such that no other class accidently uses the same value.
 	 * The value can be any object but it's good idea to store only immutable
 	 * objects because when message is replicated, only a shallow copy of the
-	 * properties is made.  
+	 * properties is made. Frequently used properties should rather use a
+	 * typed {@link MessageProperty} key.
 	 * @param key The key which is used to lookup the value
 	 * @param value The value to store
 	 * @throws SimError if the message already has a value for the given key
 	 */
 	public void addProperty(String key, Object value) throws SimError {
-		if (this.properties != null && this.properties.containsKey(key)) {
+		addProperty(MessageProperty.slotOf(key, true), key, value);
+	}
+	
+	/**
+	 * Adds a typed property for this message.
+	 * @param key The key of the property
+	 * @param value The value to store
+	 * @throws SimError if the message already has a value for the given key
+	 */
+	public <T> void addProperty(MessageProperty<T> key, T value)
+			throws SimError {
+		addProperty(key.getSlot(), key.getName(), value);
+	}
+	
+	private void addProperty(int slot, String name, Object value) {
+		if (getSlot(slot) != null) {
 			/* check to prevent accidental name space collisions */
 			throw new SimError("Message " + this + " already contains value " + 
-					"for a key " + key);
+					"for a key " + name);
 		}
 		
-		this.updateProperty(key, value);
+		setSlot(slot, value);
 	}
 	
 	/**
@@ -301,7 +365,17 @@ public class Message implements Comparable<Message> {
 		if (this.properties == null) {
 			return null;
 		}
-		return this.properties.get(key);
+		int slot = MessageProperty.slotOf(key, false);
+		return slot < 0 ? null : getSlot(slot);
+	}
+	
+	/**
+	 * Returns the value of a typed property
+	 * @param key The key of the property
+	 * @return The stored value or null if it isn't found
+	 */
+	public <T> T getProperty(MessageProperty<T> key) {
+		return key.cast(getSlot(key.getSlot()));
 	}
 	
 	/**
@@ -312,13 +386,39 @@ public class Message implements Comparable<Message> {
 	 * @param value The new value to store
 	 */
 	public void updateProperty(String key, Object value) throws SimError {
+		setSlot(MessageProperty.slotOf(key, true), value);
+	}
+	
+	/**
+	 * Updates the value of a typed property
+	 * @param key The key of the property
+	 * @param value The new value to store
+	 */
+	public <T> void updateProperty(MessageProperty<T> key, T value) {
+		setSlot(key.getSlot(), value);
+	}
+	
+	private Object getSlot(int slot) {
+		if (this.properties == null || slot >= this.properties.length) {
+			return null;
+		}
+		return this.properties[slot];
+	}
+	
+	private void setSlot(int slot, Object value) {
 		if (this.properties == null) {
 			/* lazy creation to prevent performance overhead for classes
 			   that don't use the property feature  */
-			this.properties = new HashMap<String, Object>();
-		}		
-
-		this.properties.put(key, value);
+			this.properties = new Object[Math.max(slot + 1,
+					MessageProperty.getNrofSlots())];
+		}
+		else if (this.propertiesShared || slot >= this.properties.length) {
+			this.properties = Arrays.copyOf(this.properties, Math.max(
+					slot + 1, this.properties.length));
+			this.propertiesShared = false;
+		}
+		
+		this.properties[slot] = value;
 	}
 	
 	/**
@@ -326,7 +426,7 @@ public class Message implements Comparable<Message> {
 	 * @return A replicate of the message
 	 */
 	public Message replicate() {
-		Message m = new Message(from, to, id, size);
+		Message m = new Message(this);
 		m.copyFrom(this);
 		return m;
 	}
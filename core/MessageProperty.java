@@ -0,0 +1,135 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package core;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Typed key of a {@link Message} property. Every property name is given a
+ * slot index when it is first registered and messages store the property
+ * values in an array by the slot index, so reading a property with a key
+ * doesn't need any hashing or casting by the caller. Keys should be
+ * registered once, e.g. as static final fields:
+ * <pre>
+ * public static final MessageProperty&lt;Transaction&gt; TRANSACTION =
+ *     MessageProperty.register("transaction", Transaction.class);
+ * </pre>
+ * The string based property methods of Message use the same slots, so a
+ * property added with a name can be read with a key of the same name and
+ * vice versa. Names that are only used through the string methods are
+ * registered on their first use. A name can only be registered with one
+ * type.
+ * @param <T> Type of the property values
+ */
+public final class MessageProperty<T> {
+	/** slot indexes of the registered property names */
+	private static final Map<String, Integer> slots =
+		new ConcurrentHashMap<String, Integer>();
+	/** value types the property names were registered with */
+	private static final Map<String, Class<?>> types =
+		new ConcurrentHashMap<String, Class<?>>();
+
+	private final String name;
+	private final Class<T> type;
+	private final int slot;
+
+	private MessageProperty(String name, Class<T> type, int slot) {
+		this.name = name;
+		this.type = type;
+		this.slot = slot;
+	}
+
+	/**
+	 * Registers a property name and returns a key for it. Registering the
+	 * same name again with the same type returns a key to the same slot.
+	 * @param name Name of the property
+	 * @param type Type of the property values
+	 * @return The key
+	 * @throws SimError if the name is already registered with another type
+	 */
+	public static <T> MessageProperty<T> register(String name,
+			Class<T> type) {
+		Class<?> registered = types.putIfAbsent(name, type);
+		if (registered != null && registered != type) {
+			throw new SimError("Message property '" + name + "' is already " +
+					"registered with type " + registered.getName() +
+					", not " + type.getName());
+		}
+		return new MessageProperty<T>(name, type, slotOf(name, true));
+	}
+
+	/**
+	 * Returns the slot index of a property name
+	 * @param name Name of the property
+	 * @param create If true, unregistered names are registered
+	 * @return The slot index or -1 if the name isn't registered (and create
+	 * was false)
+	 */
+	static int slotOf(String name, boolean create) {
+		Integer slot = slots.get(name);
+		if (slot != null) {
+			return slot;
+		}
+		if (!create) {
+			return -1;
+		}
+		synchronized (slots) {
+			slot = slots.get(name);
+			if (slot == null) {
+				slot = slots.size();
+				slots.put(name, slot);
+			}
+			return slot;
+		}
+	}
+
+	/**
+	 * Returns the number of registered property names
+	 * @return The number of slots
+	 */
+	static int getNrofSlots() {
+		return slots.size();
+	}
+
+	/**
+	 * Returns the name of the property
+	 * @return The name
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * Returns the type of the property values
+	 * @return The type
+	 */
+	public Class<T> getType() {
+		return this.type;
+	}
+
+	/**
+	 * Returns the slot index of the property
+	 * @return The slot index
+	 */
+	int getSlot() {
+		return this.slot;
+	}
+
+	/**
+	 * Casts a stored value to the type of this property
+	 * @param value The value
+	 * @return The value as the property's type
+	 * @throws ClassCastException if the value is of a different type
+	 */
+	T cast(Object value) {
+		return this.type.cast(value);
+	}
+
+	@Override
+	public String toString() {
+		return this.name;
+	}
+}
@@ -10,6 +10,8 @@ import interfaces.ConnectivityOptimizer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Network interface of a DTNHost. Takes care of connectivity among hosts.
@@ -36,6 +38,12 @@ abstract public class NetworkInterface implements ModuleCommunicationListener {
 	private static final int CON_DOWN = 2;
 	private static int nextAddress = 0;
 	private static Random rng;
+	/** how many times the transmit range of some interface has changed */
+	private static int nrofRangeChanges;
+	/** location updates skipped because the host is static */
+	private static long nrofSkippedLocationUpdates;
+	/** connection checks skipped (static host or contact prediction) */
+	private static long nrofSkippedContactChecks;
 	protected DTNHost host = null;
 
 	protected String interfacetype;
@@ -48,6 +56,21 @@ abstract public class NetworkInterface implements ModuleCommunicationListener {
 	/** scanning interval, or 0.0 if n/a */
 	private double scanInterval;
 	private double lastScanTime;
+	/** interfaces within range at the current locations, or null if the
+	 * range checks should be computed directly */
+	private Set<NetworkInterface> interfacesInRange;
+	/** value of nrofRangeChanges when interfacesInRange was set */
+	private int interfacesInRangeVersion;
+	/** index of the connectivity grid cell this interface is in */
+	private int gridCell = -1;
+	/** sim time of the next connection check (see ContactPredictor) */
+	private double nextContactCheck = Double.NEGATIVE_INFINITY;
+	/** value of nrofRangeChanges when nextContactCheck was set */
+	private int nextContactCheckVersion;
+	/** is the host static (never moves; see World's static fast path) */
+	private boolean staticHost;
+	/** visitor that tries to connect to the near interfaces */
+	protected final Consumer<NetworkInterface> connector = this::connect;
 
 
 	static {
@@ -61,6 +84,9 @@ abstract public class NetworkInterface implements ModuleCommunicationListener {
 	public static void reset() {
 		nextAddress = 0;
 		rng = new Random(0);
+		nrofRangeChanges = 0;
+		nrofSkippedLocationUpdates = 0;
+		nrofSkippedContactChecks = 0;
 	}
 	
 	/**
@@ -265,16 +291,165 @@ abstract public class NetworkInterface implements ModuleCommunicationListener {
 	 * @return True if the interface is within range, false if not
 	 */
 	protected boolean isWithinRange(NetworkInterface anotherInterface) {
-		double smallerRange = anotherInterface.getTransmitRange();
-		double myRange = getTransmitRange();
+		if (this.interfacesInRange != null &&
+				this.interfacesInRangeVersion == nrofRangeChanges &&
+				anotherInterface.optimizer == this.optimizer) {
+			return this.interfacesInRange.contains(anotherInterface);
+		}
+		return areWithinRange(this, anotherInterface);
+	}
+
+	/**
+	 * Returns true if two interfaces are within radio range of each other
+	 * (i.e. their distance is at most the smaller of their ranges).
+	 * @param a The first interface
+	 * @param b The second interface
+	 * @return True if the interfaces are within range, false if not
+	 */
+	public static boolean areWithinRange(NetworkInterface a,
+			NetworkInterface b) {
+		double smallerRange = b.getTransmitRange();
+		double myRange = a.getTransmitRange();
 		if (myRange < smallerRange) {
 			smallerRange = myRange;
 		}
 
-		return this.host.getLocation().distance(
-				anotherInterface.getHost().getLocation()) <= smallerRange;
+		return a.host.getLocation().distance(
+				b.getHost().getLocation()) <= smallerRange;
 	}
 	
+	/**
+	 * Returns true if the connections of this interface should be checked
+	 * (torn down if out of range and created to the near interfaces) in this
+	 * update. Without a {@link ContactPredictor} this is always true;
+	 * otherwise the checks are due only when the set of interfaces within
+	 * range may have changed.
+	 * @return True if the connections should be checked
+	 */
+	protected boolean isContactCheckDue() {
+		if (contactCheckDue()) {
+			if (this.staticHost) {
+				/* static interfaces check once; changes after that are
+				 * detected by the mobile side of each pair */
+				setNextContactCheck(Double.POSITIVE_INFINITY);
+			}
+			return true;
+		}
+		nrofSkippedContactChecks++;
+		return false;
+	}
+
+	/**
+	 * Returns true if the next connection check time has been reached or
+	 * the transmit range of some interface has changed since it was set
+	 */
+	boolean contactCheckDue() {
+		return this.nextContactCheck <= SimClock.getTime() ||
+			this.nextContactCheckVersion != nrofRangeChanges;
+	}
+
+	/**
+	 * Updates the location of this interface in the connectivity optimizer.
+	 * Interfaces of static hosts are registered once and not updated.
+	 */
+	protected void updateOptimizerLocation() {
+		if (this.staticHost) {
+			nrofSkippedLocationUpdates++;
+			return;
+		}
+		optimizer.updateLocation(this);
+	}
+
+	/**
+	 * Marks the host of this interface static: its location never changes,
+	 * so the interface isn't moved in the connectivity optimizer and its
+	 * connections are checked only once (and when explicitly requested).
+	 * Connections to mobile interfaces are then created and torn down by
+	 * the mobile interfaces' checks.
+	 * @param isStatic True if the host is static
+	 */
+	void setStatic(boolean isStatic) {
+		if (isStatic) {
+			optimizer.updateLocation(this); // register at the final location
+		}
+		this.staticHost = isStatic;
+	}
+
+	/**
+	 * Returns the number of connectivity optimizer location updates skipped
+	 * because the host was static
+	 * @return The number of skipped location updates
+	 */
+	public static long getNrofSkippedLocationUpdates() {
+		return nrofSkippedLocationUpdates;
+	}
+
+	/**
+	 * Returns the number of connection checks skipped because the host was
+	 * static or no interface could have come in or out of range
+	 * @return The number of skipped connection checks
+	 */
+	public static long getNrofSkippedContactChecks() {
+		return nrofSkippedContactChecks;
+	}
+
+	/**
+	 * Sets the sim time until which the set of interfaces within range of
+	 * this interface can't change
+	 * @param time The time of the next connection check
+	 */
+	void setNextContactCheck(double time) {
+		this.nextContactCheck = time;
+		this.nextContactCheckVersion = nrofRangeChanges;
+	}
+
+	/**
+	 * Makes the connections of this interface be checked in the next update
+	 */
+	void requestContactCheck() {
+		this.nextContactCheck = Double.NEGATIVE_INFINITY;
+	}
+
+	/**
+	 * Returns the scanning interval of this interface
+	 * @return The scanning interval or 0 if the interface scans all the time
+	 */
+	double getScanInterval() {
+		return this.scanInterval;
+	}
+
+	/**
+	 * Returns the index of the {@link ConnectivityGrid} cell this interface
+	 * is registered to
+	 * @return The index of the cell or -1 if not registered to a grid
+	 */
+	public int getGridCell() {
+		return this.gridCell;
+	}
+
+	/**
+	 * Sets the index of the {@link ConnectivityGrid} cell this interface is
+	 * registered to. Only the grid should call this.
+	 * @param cell The index of the cell or -1
+	 */
+	public void setGridCell(int cell) {
+		this.gridCell = cell;
+	}
+
+	/**
+	 * Sets the interfaces (of the same connectivity optimizer) that are
+	 * within range of this interface at the current host locations. The set
+	 * answers {@link #isWithinRange(NetworkInterface)} until it is replaced
+	 * or the transmit range of any interface changes, so it must be updated
+	 * (or cleared) whenever the hosts move.
+	 * @param inRange The interfaces within range or null to compute the
+	 * range checks directly
+	 */
+	public void setInterfacesInRange(Set<NetworkInterface> inRange) {
+		this.interfacesInRange = inRange;
+		this.interfacesInRangeVersion = nrofRangeChanges;
+	}
+
 	/**
 	 * Returns true if the given NetworkInterface is connected to this host. 
 	 * @param netinterface The other NetworkInterface to check 
@@ -347,6 +522,7 @@ abstract public class NetworkInterface implements ModuleCommunicationListener {
 		}
 		else if (key.equals(RANGE_ID)) {
 			this.transmitRange = (Double)newValue;	
+			nrofRangeChanges++; // invalidates all interfacesInRange sets
 		}
 		else {
 			throw new SimError("Unexpected combus ID " + key);
@@ -6,11 +6,15 @@ package core;
 
 import Blockchain.Blockchain;
 import Blockchain.Inisialisasi;
+import Blockchain.KeyPairPool;
 import Blockchain.Localchain;
+import Blockchain.MiningEngine;
 import Blockchain.Transaction;
+import Blockchain.Wallet;
 import input.EventQueue;
 import input.EventQueueHandler;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -39,6 +43,16 @@ public class SimScenario implements Serializable {
     private static SimScenario myinstance = null;
 
     public static final String DIFFICULTY = "difficulty";
+    /**
+     * mining engine class -setting id ({@value}). Defines the class (from the
+     * Blockchain package) used for proof-of-work. Default is
+     * {@link #DEF_MINING_ENGINE}.
+     */
+    public static final String MINING_ENGINE_S = "miningEngine";
+    /**
+     * default mining engine class ({@value})
+     */
+    public static final String DEF_MINING_ENGINE = "SequentialMiningEngine";
     /**
      * namespace of scenario settings ({@value})
      */
@@ -138,6 +152,24 @@ public class SimScenario implements Serializable {
      */
     public static final String GAPPNAME_S = "application";
 
+    /**
+     * wallet key pair pool file -setting id ({@value}). If set, wallets take
+     * their key pairs from the file (see {@link KeyPairPool}) instead of
+     * generating them.
+     */
+    public static final String KEY_POOL_FILE_S = "keyPoolFile";
+    /**
+     * parallel wallet key generation -setting id ({@value}). If true, the
+     * key pairs of all wallets are created concurrently when the scenario is
+     * loaded. Otherwise they are created when first used. Default is false.
+     */
+    public static final String PARALLEL_KEYGEN_S = "parallelKeyGeneration";
+    /**
+     * miner hash rate (hashes per second) -setting id ({@value}). Used by
+     * the simulated mining engine.
+     */
+    public static final String HASH_RATE_S = "hashRate";
+
     /**
      * package where to look for movement models
      */
@@ -157,8 +189,17 @@ public class SimScenario implements Serializable {
      */
     private static final String APP_PACKAGE = "applications.";
 
+    /**
+     * package where to look for mining engine classes
+     */
+    private static final String BLOCKCHAIN_PACKAGE = "Blockchain.";
+
 
     private int difficulty;
+    /**
+     * Proof-of-work engine used by the miners
+     */
+    private MiningEngine miningEngine;
     /**
      * The world instance
      */
@@ -266,6 +307,9 @@ public class SimScenario implements Serializable {
 
         this.difficulty = s.getInt(DIFFICULTY);
         this.storageCapacity = s.getInt(STORAGE_CAPACITY);
+        this.miningEngine = (MiningEngine) s.createIntializedObject(
+                BLOCKCHAIN_PACKAGE + (s.contains(MINING_ENGINE_S)
+                        ? s.getSetting(MINING_ENGINE_S) : DEF_MINING_ENGINE));
 
         ensurePositiveValue(storageCapacity, STORAGE_CAPACITY);
         ensurePositiveValue(nrofNodeInGroups, NROF_NODE_GROUP_S);
@@ -283,6 +327,17 @@ public class SimScenario implements Serializable {
         this.appListeners = new ArrayList<ApplicationListener>();
         this.eqHandler = new EventQueueHandler();
         this.existingBlockchain = new Blockchain(this.difficulty);
+        if (s.contains(KEY_POOL_FILE_S)) {
+            String keyPoolFile = s.getSetting(KEY_POOL_FILE_S);
+            try {
+                Wallet.setKeyPairPool(new KeyPairPool(keyPoolFile));
+            } catch (IOException e) {
+                throw new SettingsError("Can't load key pair pool "
+                        + keyPoolFile + ": " + e.getMessage(), e);
+            }
+        }
+        boolean parallelKeyGeneration = s.contains(PARALLEL_KEYGEN_S)
+                && s.getBoolean(PARALLEL_KEYGEN_S);
         /* TODO: check size from movement models */
         s.setNameSpace(MovementModel.MOVEMENT_MODEL_NS);
         int[] worldSize = s.getCsvInts(MovementModel.WORLD_SIZE, 2);
@@ -290,6 +345,9 @@ public class SimScenario implements Serializable {
         this.worldSizeY = worldSize[1];
 
         createHosts();
+        if (parallelKeyGeneration) {
+            createWalletKeys();
+        }
 
         this.world = new World(hosts, worldSizeX, worldSizeY, updateInterval,
                 updateListeners, simulateConnections,
@@ -367,6 +425,15 @@ public class SimScenario implements Serializable {
         return difficulty;
     }
 
+    /**
+     * Returns the proof-of-work engine of this scenario
+     *
+     * @return the mining engine
+     */
+    public MiningEngine getMiningEngine() {
+        return miningEngine;
+    }
+
     /**
      * Returns simulation's end time
      *
@@ -505,6 +572,12 @@ public class SimScenario implements Serializable {
             ensurePositiveValue(nrofHosts, NROF_HOSTS_S);
             ensurePositiveValue(nrofInterfaces, NROF_INTERF_S);
 
+            double hashRate = 0;
+            if (s.contains(HASH_RATE_S)) {
+                hashRate = s.getDouble(HASH_RATE_S);
+                ensurePositiveValue(hashRate, HASH_RATE_S);
+            }
+
             // setup interfaces
             for (int j = 1; j <= nrofInterfaces; j++) {
                 String Intname = s.getSetting(INTERFACENAME_S + j);
@@ -563,6 +636,7 @@ public class SimScenario implements Serializable {
                 if (isOperatorProxy(host)) {
                     host.setStorageCapacity(storageCapacity);
                 }
+                host.setHashRate(hashRate);
 
                 if (host.toString().startsWith("int") || host.toString().startsWith("adm") || host.toString().startsWith("min")) {
                     host.setMainChain(existingBlockchain);
@@ -573,6 +647,21 @@ public class SimScenario implements Serializable {
         }
     }
 
+    /**
+     * Creates the key pairs of all wallets concurrently and prints how long
+     * it took.
+     */
+    private void createWalletKeys() {
+        long begin = System.currentTimeMillis();
+        hosts.parallelStream()
+                .filter(h -> h.getWallet() != null)
+                .forEach(h -> h.getWallet().ensureKeyPair());
+        System.out.println("Wallet keys: " + Wallet.getNrofGeneratedKeys()
+                + " generated, " + Wallet.getNrofPooledKeys() + " from pool in "
+                + (System.currentTimeMillis() - begin) + " ms ("
+                + Math.round(Wallet.getKeyGenerationTime()) + " ms CPU)");
+    }
+
     private boolean isOperatorProxy(DTNHost host) {
         return host.toString().startsWith("ope");
     }
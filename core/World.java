@@ -13,6 +13,8 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 /**
  * World contains all the nodes and is responsible for updating their
@@ -37,11 +39,61 @@ public class World {
 	 * Default is @link {@link #DEF_RANDOMIZE_UPDATES}.
 	 */
 	public static final String RANDOMIZE_UPDATES_S = "randomizeUpdateOrder";
+	/**
+	 * Should hosts be moved and their neighbors computed concurrently
+	 * -setting id ({@value}). Boolean (true/false) variable. Connection
+	 * changes and router updates are still done in the (possibly randomized)
+	 * update order, so the results are identical to the sequential updates.
+	 * Default is {@link #DEF_PARALLEL_UPDATE}.
+	 */
+	public static final String PARALLEL_UPDATE_S = "parallelUpdate";
+	/**
+	 * Number of threads used by the parallel update -setting id ({@value}).
+	 * Default is the number of available processors.
+	 */
+	public static final String UPDATE_THREADS_S = "updateThreads";
+	/**
+	 * Should connections be checked only when interfaces may have come in or
+	 * out of range -setting id ({@value}). Boolean (true/false) variable.
+	 * The results are identical to checking on every update.
+	 * Default is {@link #DEF_CONTACT_PREDICTION}.
+	 * @see ContactPredictor
+	 */
+	public static final String CONTACT_PREDICTION_S = "contactPrediction";
+	/**
+	 * Should hosts with a static movement model be left out of the movement
+	 * and connectivity updates -setting id ({@value}). Boolean (true/false)
+	 * variable. Connections between static and mobile hosts are then checked
+	 * only by the mobile hosts, so the order in which connections come up
+	 * within an update may differ from the normal updates.
+	 * Default is {@link #DEF_STATIC_FAST_PATH}.
+	 * @see movement.MovementModel#isStatic()
+	 */
+	public static final String STATIC_FAST_PATH_S = "staticFastPath";
+	/**
+	 * How to partition the hosts into shards that are moved and whose
+	 * neighbors are computed as concurrent tasks -setting id ({@value}).
+	 * Valid values are {@value WorldShards#BY_AREA} (by movement area) and
+	 * {@value WorldShards#BY_GROUP} (by host group). The results are
+	 * identical to the sequential updates. Uses {@link #UPDATE_THREADS_S}
+	 * threads. Default is no sharding.
+	 * @see WorldShards
+	 */
+	public static final String SHARDS_S = "shards";
 	/** default value for cell size multiplier ({@value}) */
 	public static final int DEF_CON_CELL_SIZE_MULT = 5;
 	/** should the update order of nodes be randomized -setting's default value
 	 * ({@value}) */
 	public static final boolean DEF_RANDOMIZE_UPDATES = true;
+	/** should hosts be updated in parallel -setting's default value
+	 * ({@value}) */
+	public static final boolean DEF_PARALLEL_UPDATE = false;
+	/** should contact prediction be used -setting's default value
+	 * ({@value}) */
+	public static final boolean DEF_CONTACT_PREDICTION = false;
+	/** should static hosts be left out of the updates -setting's default
+	 * value ({@value}) */
+	public static final boolean DEF_STATIC_FAST_PATH = false;
 
 	private int sizeX;
 	private int sizeY;
@@ -65,6 +117,21 @@ public class World {
 	/** single ConnectivityCell's size is biggest radio range times this */
 	private int conCellSizeMult;
 
+	/** pool running the parallel update phases (null if not in use) */
+	private ForkJoinPool updatePool;
+	/** hosts whose move needs a new waypoint (in the parallel update) */
+	private boolean[] needsWaypoint;
+	/** have hosts moved after the interfaces in range were computed */
+	private boolean rangesOutdated;
+	/** predictor of the next connection checks (null if not in use) */
+	private ContactPredictor contactPredictor;
+	/** hosts that are moved (all hosts unless static ones are left out) */
+	private List<DTNHost> movingHosts;
+	/** number of moves skipped because the host was static */
+	private long nrofSkippedMoves;
+	/** shards of the hosts (null if sharding is not in use) */
+	private WorldShards shards;
+
 	/**
 	 * Constructor.
 	 */
@@ -117,6 +184,57 @@ public class World {
 			throw new SettingsError("Too small value (" + conCellSizeMult +
 					") for " + SETTINGS_NS + "." + CELL_SIZE_MULT_S);
 		}
+
+		boolean parallelUpdate = DEF_PARALLEL_UPDATE;
+		if (s.contains(PARALLEL_UPDATE_S)) {
+			parallelUpdate = s.getBoolean(PARALLEL_UPDATE_S);
+		}
+		boolean sharded = s.contains(SHARDS_S);
+		if (parallelUpdate || sharded) {
+			int threads = Runtime.getRuntime().availableProcessors();
+			if (s.contains(UPDATE_THREADS_S)) {
+				threads = s.getInt(UPDATE_THREADS_S);
+			}
+			if (threads < 1) {
+				throw new SettingsError("Invalid value (" + threads +
+						") for " + SETTINGS_NS + "." + UPDATE_THREADS_S);
+			}
+			this.updatePool = new ForkJoinPool(threads);
+			this.needsWaypoint = new boolean[this.hosts.size()];
+		}
+
+		boolean contactPrediction = DEF_CONTACT_PREDICTION;
+		if (s.contains(CONTACT_PREDICTION_S)) {
+			contactPrediction = s.getBoolean(CONTACT_PREDICTION_S);
+		}
+		if (contactPrediction && this.simulateConnections) {
+			this.contactPredictor = new ContactPredictor(this.updateInterval,
+					this.conCellSizeMult);
+		}
+
+		boolean staticFastPath = DEF_STATIC_FAST_PATH;
+		if (s.contains(STATIC_FAST_PATH_S)) {
+			staticFastPath = s.getBoolean(STATIC_FAST_PATH_S);
+		}
+		this.movingHosts = this.hosts;
+		if (staticFastPath) {
+			this.movingHosts = new ArrayList<DTNHost>();
+			for (DTNHost host : this.hosts) {
+				if (host.getMovement().isStatic()) {
+					for (NetworkInterface ni : host.getInterfaces()) {
+						ni.setStatic(true);
+					}
+				}
+				else {
+					this.movingHosts.add(host);
+				}
+			}
+		}
+
+		if (sharded) {
+			this.shards = new WorldShards(this.hosts, this.movingHosts,
+					s.getSetting(SHARDS_S), this.updatePool);
+		}
 	}
 
 	/**
@@ -184,6 +302,9 @@ public class World {
 		simClock.setTime(runUntil);
 
 		updateHosts();
+		if (this.contactPredictor != null) {
+			this.contactPredictor.predict();
+		}
 
 		/* inform all update listeners */
 		for (UpdateListener ul : this.updateListeners) {
@@ -197,6 +318,18 @@ public class World {
 	 * are made in random order.
 	 */
 	private void updateHosts() {
+		if (this.rangesOutdated && this.simulateConnections &&
+				this.shards != null) {
+			this.shards.updateInterfacesInRange();
+			this.rangesOutdated = false;
+		}
+		else if (this.rangesOutdated && this.simulateConnections) {
+			for (ConnectivityGrid grid : ConnectivityGrid.getGrids()) {
+				grid.updateInterfacesInRange(this.updatePool);
+			}
+			this.rangesOutdated = false;
+		}
+
 		if (this.updateOrder == null) { // randomizing is off
 			for (int i=0, n = hosts.size();i < n; i++) {
 				if (this.isCancelled) {
@@ -224,10 +357,50 @@ public class World {
 	 * @param timeIncrement The time how long all nodes should move
 	 */
 	private void moveHosts(double timeIncrement) {
-		for (int i=0,n = hosts.size(); i<n; i++) {
-			DTNHost host = hosts.get(i);
+		if (this.shards != null) {
+			this.shards.move(timeIncrement);
+			nrofSkippedMoves += hosts.size() - movingHosts.size();
+			this.rangesOutdated = true;
+			return;
+		}
+		if (this.updatePool != null) {
+			moveHostsInParallel(timeIncrement);
+			return;
+		}
+
+		for (int i=0,n = movingHosts.size(); i<n; i++) {
+			DTNHost host = movingHosts.get(i);
 			host.move(timeIncrement);			
 		}		
+		nrofSkippedMoves += hosts.size() - movingHosts.size();
+	}
+
+	/**
+	 * Moves all hosts in the world for a given amount of time using the
+	 * update pool. Hosts that only advance towards their current destination
+	 * are moved concurrently. Hosts that need a new waypoint (and thus use
+	 * the movement models' shared random number generator and notify the
+	 * movement listeners) are moved afterwards in address order, which is
+	 * the same order as in the sequential mode.
+	 * @param timeIncrement The time how long all nodes should move
+	 */
+	private void moveHostsInParallel(final double timeIncrement) {
+		final int n = movingHosts.size();
+		updatePool.submit(() -> IntStream.range(0, n).parallel().forEach(i -> {
+			DTNHost host = movingHosts.get(i);
+			needsWaypoint[i] = host.needsNewWaypoint(timeIncrement);
+			if (!needsWaypoint[i]) {
+				host.move(timeIncrement);
+			}
+		})).join();
+
+		for (int i=0; i<n; i++) {
+			if (needsWaypoint[i]) {
+				movingHosts.get(i).move(timeIncrement);
+			}
+		}
+		nrofSkippedMoves += hosts.size() - n;
+		this.rangesOutdated = true;
 	}
 
 	/**
@@ -245,6 +418,32 @@ public class World {
 		return this.hosts;
 	}
 
+	/**
+	 * Returns the number of hosts left out of the movement updates because
+	 * they are static
+	 * @return The number of static hosts
+	 */
+	public int getNrofStaticHosts() {
+		return this.hosts.size() - this.movingHosts.size();
+	}
+
+	/**
+	 * Returns the shards of the hosts
+	 * @return The shards or null if sharding is not in use
+	 */
+	public WorldShards getShards() {
+		return this.shards;
+	}
+
+	/**
+	 * Returns how many host moves have been skipped because the hosts were
+	 * static
+	 * @return The number of skipped moves
+	 */
+	public long getNrofSkippedMoves() {
+		return this.nrofSkippedMoves;
+	}
+
 	/**
 	 * Returns the x-size (width) of the world 
 	 * @return the x-size (width) of the world 
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * <P>
+ * Partitions the hosts of the world into shards (by movement area or by
+ * host group) that are moved and whose interfaces' neighbors are computed
+ * as independent tasks of a thread pool. Every phase ends with a barrier
+ * (all shards must be done before the world continues), so each shard sees
+ * the state of the others as it was at the end of the previous phase.
+ * </P>
+ * <P>
+ * When computing which interfaces are within range of each other, a shard
+ * only looks at the interfaces of the other shards whose bounding box,
+ * grown by the largest transmit range, overlaps its own: only those
+ * "boundary" interfaces are exchanged between the shards. The resulting
+ * sets are the same as computed by the connectivity grids, so sharding
+ * doesn't change the simulation results. Hosts that need a new waypoint
+ * are moved after the barrier in address order because the movement
+ * models share a random number generator.
+ * </P>
+ */
+public class WorldShards {
+	/** shard hosts by movement area -setting value ({@value}) */
+	public static final String BY_AREA = "area";
+	/** shard hosts by host group -setting value ({@value}) */
+	public static final String BY_GROUP = "group";
+
+	/** One partition of the hosts */
+	private static class Shard {
+		private final List<DTNHost> hosts = new ArrayList<DTNHost>();
+		private final List<DTNHost> movers = new ArrayList<DTNHost>();
+		private final List<NetworkInterface> interfaces =
+			new ArrayList<NetworkInterface>();
+		private double minX, minY, maxX, maxY;
+		/** shards whose interfaces may be in range of this shard's */
+		private final List<Shard> neighbors = new ArrayList<Shard>();
+	}
+
+	private final List<Shard> shards;
+	private final ForkJoinPool pool;
+	/** hosts whose move needs a new waypoint, by address */
+	private final boolean[] needsWaypoint;
+	private final List<DTNHost> movingHosts;
+	/** number of interfaces looked up from other shards */
+	private long nrofExchanged;
+
+	/**
+	 * Constructor.
+	 * @param hosts All hosts of the world, in address order
+	 * @param movingHosts The hosts that are moved (in address order)
+	 * @param mode How to partition the hosts ({@link #BY_AREA} or
+	 * {@link #BY_GROUP})
+	 * @param pool The pool running the shards' tasks
+	 */
+	public WorldShards(List<DTNHost> hosts, List<DTNHost> movingHosts,
+			String mode, ForkJoinPool pool) {
+		if (!BY_AREA.equals(mode) && !BY_GROUP.equals(mode)) {
+			throw new SettingsError("Unknown shard mode '" + mode + "'");
+		}
+		Map<Object, Shard> byKey = new LinkedHashMap<Object, Shard>();
+		Map<DTNHost, Shard> shardOf = new HashMap<DTNHost, Shard>();
+		for (DTNHost host : hosts) {
+			Object key = BY_AREA.equals(mode) ?
+					host.getMovement().getMoveArea() : host.getGroupId();
+			Shard shard = byKey.get(key);
+			if (shard == null) {
+				shard = new Shard();
+				byKey.put(key, shard);
+			}
+			shard.hosts.add(host);
+			shard.interfaces.addAll(host.getInterfaces());
+			shardOf.put(host, shard);
+		}
+		for (DTNHost host : movingHosts) {
+			shardOf.get(host).movers.add(host);
+		}
+
+		this.shards = new ArrayList<Shard>(byKey.values());
+		this.pool = pool;
+		this.needsWaypoint = new boolean[hosts.size()];
+		this.movingHosts = movingHosts;
+	}
+
+	/**
+	 * Returns the number of shards
+	 * @return The number of shards
+	 */
+	public int getNrofShards() {
+		return this.shards.size();
+	}
+
+	/**
+	 * Returns the number of interfaces the shards have looked up from the
+	 * other shards when computing the interfaces within range
+	 * @return The number of exchanged interfaces
+	 */
+	public long getNrofExchanged() {
+		return this.nrofExchanged;
+	}
+
+	/**
+	 * Moves the hosts, one task per shard
+	 * @param timeIncrement The time how long all nodes should move
+	 */
+	public void move(final double timeIncrement) {
+		pool.submit(() -> shards.parallelStream().forEach(shard -> {
+			for (DTNHost host : shard.movers) {
+				boolean needs = host.needsNewWaypoint(timeIncrement);
+				needsWaypoint[host.getAddress()] = needs;
+				if (!needs) {
+					host.move(timeIncrement);
+				}
+			}
+		})).join();
+
+		for (int i=0, n = movingHosts.size(); i < n; i++) {
+			DTNHost host = movingHosts.get(i);
+			if (needsWaypoint[host.getAddress()]) {
+				host.move(timeIncrement);
+			}
+		}
+	}
+
+	/**
+	 * Computes the interfaces within range of every interface, one task
+	 * per shard (see {@link NetworkInterface#setInterfacesInRange(Set)})
+	 */
+	public void updateInterfacesInRange() {
+		double maxRange = 0;
+		for (Shard shard : shards) {
+			shard.minX = shard.minY = Double.POSITIVE_INFINITY;
+			shard.maxX = shard.maxY = Double.NEGATIVE_INFINITY;
+			for (NetworkInterface ni : shard.interfaces) {
+				Coord c = ni.getLocation();
+				shard.minX = Math.min(shard.minX, c.getX());
+				shard.minY = Math.min(shard.minY, c.getY());
+				shard.maxX = Math.max(shard.maxX, c.getX());
+				shard.maxY = Math.max(shard.maxY, c.getY());
+				maxRange = Math.max(maxRange, ni.getTransmitRange());
+			}
+		}
+		for (Shard shard : shards) {
+			shard.neighbors.clear();
+			for (Shard other : shards) {
+				if (other != shard && overlaps(shard, other, maxRange)) {
+					shard.neighbors.add(other);
+				}
+			}
+		}
+
+		final double cellSize = maxRange > 0 ? maxRange : 1;
+		final double range = maxRange;
+		long exchanged = pool.submit(() -> shards.parallelStream()
+				.mapToLong(shard -> updateShard(shard, range, cellSize))
+				.sum()).join();
+		this.nrofExchanged += exchanged;
+	}
+
+	/**
+	 * Computes the interfaces within range for the interfaces of one shard
+	 * @return The number of interfaces looked up from other shards
+	 */
+	private long updateShard(Shard shard, double maxRange, double cellSize) {
+		Map<Long, List<NetworkInterface>> cells =
+			new HashMap<Long, List<NetworkInterface>>();
+		for (NetworkInterface ni : shard.interfaces) {
+			addToCell(cells, ni, cellSize);
+		}
+		long exchanged = 0;
+		for (Shard other : shard.neighbors) {
+			for (NetworkInterface ni : other.interfaces) {
+				Coord c = ni.getLocation();
+				if (c.getX() >= shard.minX - maxRange &&
+						c.getX() <= shard.maxX + maxRange &&
+						c.getY() >= shard.minY - maxRange &&
+						c.getY() <= shard.maxY + maxRange) {
+					addToCell(cells, ni, cellSize);
+					exchanged++;
+				}
+			}
+		}
+
+		for (NetworkInterface ni : shard.interfaces) {
+			Coord c = ni.getLocation();
+			long cx = (long)Math.floor(c.getX() / cellSize);
+			long cy = (long)Math.floor(c.getY() / cellSize);
+			Set<NetworkInterface> inRange = new HashSet<NetworkInterface>();
+			for (long dx = -1; dx <= 1; dx++) {
+				for (long dy = -1; dy <= 1; dy++) {
+					List<NetworkInterface> cell =
+						cells.get(cellKey(cx + dx, cy + dy));
+					if (cell == null) {
+						continue;
+					}
+					for (NetworkInterface other : cell) {
+						if (other != ni && other.optimizer == ni.optimizer &&
+								NetworkInterface.areWithinRange(ni, other)) {
+							inRange.add(other);
+						}
+					}
+				}
+			}
+			ni.setInterfacesInRange(inRange);
+		}
+		return exchanged;
+	}
+
+	private static boolean overlaps(Shard a, Shard b, double margin) {
+		return a.minX - margin <= b.maxX && b.minX <= a.maxX + margin &&
+			a.minY - margin <= b.maxY && b.minY <= a.maxY + margin;
+	}
+
+	private static void addToCell(Map<Long, List<NetworkInterface>> cells,
+			NetworkInterface ni, double cellSize) {
+		Coord c = ni.getLocation();
+		long key = cellKey((long)Math.floor(c.getX() / cellSize),
+				(long)Math.floor(c.getY() / cellSize));
+		List<NetworkInterface> cell = cells.get(key);
+		if (cell == null) {
+			cell = new ArrayList<NetworkInterface>();
+			cells.put(key, cell);
+		}
+		cell.add(ni);
+	}
+
+	private static long cellKey(long cx, long cy) {
+		return (cx << 32) ^ (cy & 0xffffffffL);
+	}
+}
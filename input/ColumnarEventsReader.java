@@ -0,0 +1,235 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package input;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import core.SimError;
+
+/**
+ * <P>
+ * Reads external events from a columnar binary file (created with
+ * {@link ColumnarEventsWriter}). The file is memory-mapped and events are
+ * decoded only when they are read, so nothing is parsed up front and only
+ * the events of the current preload batch exist as objects. Message and
+ * interface IDs are stored once in a string table and decoded on their
+ * first use; all events referring to the same ID share the same String.
+ * </P>
+ * <P>
+ * File layout (all numbers big-endian): a header of {@value #HEADER_SIZE}
+ * bytes (magic number {@link #MAGIC}, format version, number of events
+ * <i>n</i> and number of strings <i>s</i>) followed by the fixed-width
+ * columns: event times (<i>n</i> doubles), event types (<i>n</i> bytes,
+ * see the <code>TYPE_</code> constants), first and second host addresses,
+ * string table indexes of the message (or interface) IDs (-1 for none),
+ * message sizes and response sizes (<i>n</i> ints each). The columns are
+ * followed by the string offsets (<i>s</i> ints, relative to the start of
+ * the string data) and the string data (an int length and the UTF-8 bytes
+ * of every string).
+ * </P>
+ */
+public class ColumnarEventsReader implements ExternalEventsReader {
+	/** Extension of columnar external events files */
+	public static final String COLUMNAR_EXT = ".colee";
+	/** Magic number in the beginning of the files ("ONEC") */
+	public static final int MAGIC = 0x4F4E4543;
+	/** Version of the file format */
+	public static final int VERSION = 1;
+	/** Size of the file header (bytes) */
+	public static final int HEADER_SIZE = 16;
+
+	/** Message creation event type */
+	public static final byte TYPE_CREATE = 0;
+	/** Message transfer start event type */
+	public static final byte TYPE_SEND = 1;
+	/** Message delivered event type */
+	public static final byte TYPE_DELIVERED = 2;
+	/** Message transfer aborted event type */
+	public static final byte TYPE_ABORT = 3;
+	/** Message dropped event type */
+	public static final byte TYPE_DROP = 4;
+	/** Message removed event type */
+	public static final byte TYPE_REMOVE = 5;
+	/** Connection up event type */
+	public static final byte TYPE_CONN_UP = 6;
+	/** Connection down event type */
+	public static final byte TYPE_CONN_DOWN = 7;
+
+	private RandomAccessFile file;
+	private MappedByteBuffer buffer;
+	private final int nrofEvents;
+	private final String[] strings;
+	private final int typesPos, host1Pos, host2Pos, idPos, sizePos, respPos;
+	private final int stringOffsetsPos, stringDataPos;
+	private int nextEvent;
+
+	/**
+	 * Constructor.
+	 * @param eventsFile The file where the events are read
+	 */
+	public ColumnarEventsReader(File eventsFile) {
+		try {
+			this.file = new RandomAccessFile(eventsFile, "r");
+			long length = file.length();
+			if (length > Integer.MAX_VALUE) {
+				throw new SimError("Columnar events file " + eventsFile +
+						" is larger than 2GB");
+			}
+			this.buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY,
+					0, length);
+		} catch (IOException e) {
+			throw new SimError(e.getMessage(), e);
+		}
+
+		if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+			close();
+			throw new SimError("Invalid columnar external events file: " +
+					eventsFile.getAbsolutePath());
+		}
+		if (buffer.getInt(4) != VERSION) {
+			close();
+			throw new SimError("Unsupported columnar external events file " +
+					"version " + buffer.getInt(4));
+		}
+		this.nrofEvents = buffer.getInt(8);
+		this.strings = new String[buffer.getInt(12)];
+
+		int n = nrofEvents;
+		this.typesPos = HEADER_SIZE + 8 * n;
+		this.host1Pos = typesPos + n;
+		this.host2Pos = host1Pos + 4 * n;
+		this.idPos = host2Pos + 4 * n;
+		this.sizePos = idPos + 4 * n;
+		this.respPos = sizePos + 4 * n;
+		this.stringOffsetsPos = respPos + 4 * n;
+		this.stringDataPos = stringOffsetsPos + 4 * strings.length;
+		if (stringDataPos > buffer.limit()) {
+			close();
+			throw new SimError("Truncated columnar external events file: " +
+					eventsFile.getAbsolutePath());
+		}
+	}
+
+	/**
+	 * Reads the next events from the file
+	 * @param nrof Maximum number of events to read
+	 * @return Events in an ArrayList (empty list if didn't read any)
+	 */
+	public List<ExternalEvent> readEvents(int nrof) {
+		int count = Math.min(nrof, nrofEvents - nextEvent);
+		ArrayList<ExternalEvent> events =
+			new ArrayList<ExternalEvent>(Math.max(count, 0));
+		for (int i = 0; i < count; i++) {
+			events.add(decode(nextEvent++));
+		}
+		return events;
+	}
+
+	/**
+	 * Returns the number of events in the file
+	 * @return The number of events
+	 */
+	public int getNrofEvents() {
+		return this.nrofEvents;
+	}
+
+	/**
+	 * Decodes one event from the columns
+	 * @param i Index of the event
+	 * @return The event
+	 */
+	private ExternalEvent decode(int i) {
+		ByteBuffer b = this.buffer;
+		double time = b.getDouble(HEADER_SIZE + 8 * i);
+		byte type = b.get(typesPos + i);
+		int host1 = b.getInt(host1Pos + 4 * i);
+		int host2 = b.getInt(host2Pos + 4 * i);
+		String id = getString(b.getInt(idPos + 4 * i));
+
+		switch (type) {
+		case TYPE_CREATE:
+			return new MessageCreateEvent(host1, host2, id,
+					b.getInt(sizePos + 4 * i), b.getInt(respPos + 4 * i), time);
+		case TYPE_SEND:
+			return new MessageRelayEvent(host1, host2, id, time,
+					MessageRelayEvent.SENDING);
+		case TYPE_DELIVERED:
+			return new MessageRelayEvent(host1, host2, id, time,
+					MessageRelayEvent.TRANSFERRED);
+		case TYPE_ABORT:
+			return new MessageRelayEvent(host1, host2, id, time,
+					MessageRelayEvent.ABORTED);
+		case TYPE_DROP:
+			return new MessageDeleteEvent(host1, id, time, true);
+		case TYPE_REMOVE:
+			return new MessageDeleteEvent(host1, id, time, false);
+		case TYPE_CONN_UP:
+			return new ConnectionEvent(host1, host2, id, true, time);
+		case TYPE_CONN_DOWN:
+			return new ConnectionEvent(host1, host2, id, false, time);
+		default:
+			throw new SimError("Unknown event type " + type + " for event " +
+					(i + 1) + " in columnar external events");
+		}
+	}
+
+	/**
+	 * Returns a string from the string table, decoding it on the first use
+	 * @param index Index of the string or -1 for no string
+	 * @return The string or null if the index was -1
+	 */
+	private String getString(int index) {
+		if (index < 0) {
+			return null;
+		}
+		String s = strings[index];
+		if (s == null) {
+			int pos = stringDataPos + buffer.getInt(stringOffsetsPos + 4*index);
+			byte[] bytes = new byte[buffer.getInt(pos)];
+			ByteBuffer data = buffer.duplicate();
+			data.position(pos + 4);
+			data.get(bytes);
+			s = new String(bytes, StandardCharsets.UTF_8);
+			strings[index] = s;
+		}
+		return s;
+	}
+
+	/**
+	 * Checks if the given file is a columnar external events file
+	 * @param file The file to check
+	 * @return True if the file has the columnar extension and magic number
+	 */
+	public static boolean isColumnarEeFile(File file) {
+		if (!file.getName().endsWith(COLUMNAR_EXT)) {
+			return false;
+		}
+		try (RandomAccessFile f = new RandomAccessFile(file, "r")) {
+			return f.length() >= HEADER_SIZE && f.readInt() == MAGIC;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	public void close() {
+		this.buffer = null; // the mapping is released when collected
+		try {
+			if (this.file != null) {
+				this.file.close();
+				this.file = null;
+			}
+		} catch (IOException ioe) {
+			throw new SimError(ioe);
+		}
+	}
+}
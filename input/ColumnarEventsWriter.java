@@ -0,0 +1,223 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package input;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import core.SimError;
+
+/**
+ * Creates columnar external events files that can be read with
+ * {@link ColumnarEventsReader}. Events are collected into primitive column
+ * arrays, so converting a large events file doesn't keep all the event
+ * objects in memory. Can be used as a command line converter:
+ * <pre>
+ * java -cp . input.ColumnarEventsWriter &lt;input file&gt; &lt;output file&gt;
+ * </pre>
+ * The input file can be a standard or a binary
+ * ({@link BinaryEventsReader#BINARY_EXT}) external events file.
+ */
+public class ColumnarEventsWriter {
+	/** how many events are read at a time when converting */
+	private static final int CONVERT_BATCH = 10000;
+
+	private int size;
+	private double[] times = new double[64];
+	private byte[] types = new byte[64];
+	private int[] hosts1 = new int[64];
+	private int[] hosts2 = new int[64];
+	private int[] ids = new int[64];
+	private int[] sizes = new int[64];
+	private int[] respSizes = new int[64];
+	private final HashMap<String, Integer> stringIndexes =
+		new HashMap<String, Integer>();
+	private final List<String> strings = new ArrayList<String>();
+
+	/**
+	 * Adds an event to the end of the events to write
+	 * @param ee The event to add
+	 * @throws SimError if the event's type is not supported
+	 */
+	public void add(ExternalEvent ee) {
+		ensureCapacity(size + 1);
+		int i = size;
+		times[i] = ee.getTime();
+		sizes[i] = 0;
+		respSizes[i] = 0;
+
+		if (ee instanceof MessageEvent) {
+			MessageEvent me = (MessageEvent)ee;
+			hosts1[i] = me.fromAddr;
+			hosts2[i] = me.toAddr;
+			ids[i] = indexOf(me.id);
+			if (ee instanceof MessageCreateEvent) {
+				types[i] = ColumnarEventsReader.TYPE_CREATE;
+				sizes[i] = ((MessageCreateEvent)ee).getSize();
+				respSizes[i] = ((MessageCreateEvent)ee).getResponseSize();
+			}
+			else if (ee instanceof MessageDeleteEvent) {
+				types[i] = ((MessageDeleteEvent)ee).isDrop() ?
+						ColumnarEventsReader.TYPE_DROP :
+						ColumnarEventsReader.TYPE_REMOVE;
+			}
+			else if (ee instanceof MessageRelayEvent) {
+				types[i] = relayType(((MessageRelayEvent)ee).getStage());
+			}
+			else {
+				throw new SimError("Unsupported external event " + ee);
+			}
+		}
+		else if (ee instanceof ConnectionEvent) {
+			ConnectionEvent ce = (ConnectionEvent)ee;
+			hosts1[i] = ce.fromAddr;
+			hosts2[i] = ce.toAddr;
+			ids[i] = indexOf(ce.interfaceId);
+			types[i] = ce.isUp ? ColumnarEventsReader.TYPE_CONN_UP :
+				ColumnarEventsReader.TYPE_CONN_DOWN;
+		}
+		else {
+			throw new SimError("Unsupported external event " + ee);
+		}
+		size++;
+	}
+
+	/**
+	 * Returns the number of events added
+	 * @return The number of events
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Writes the added events to a file
+	 * @param file The file to write to
+	 * @throws IOException if something in writing went wrong
+	 */
+	public void write(File file) throws IOException {
+		byte[][] encoded = new byte[strings.size()][];
+		for (int i = 0; i < encoded.length; i++) {
+			encoded[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+		}
+
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(ColumnarEventsReader.MAGIC);
+			out.writeInt(ColumnarEventsReader.VERSION);
+			out.writeInt(size);
+			out.writeInt(encoded.length);
+			for (int i = 0; i < size; i++) {
+				out.writeDouble(times[i]);
+			}
+			out.write(types, 0, size);
+			writeInts(out, hosts1);
+			writeInts(out, hosts2);
+			writeInts(out, ids);
+			writeInts(out, sizes);
+			writeInts(out, respSizes);
+
+			int offset = 0;
+			for (byte[] s : encoded) {
+				out.writeInt(offset);
+				offset += 4 + s.length;
+			}
+			for (byte[] s : encoded) {
+				out.writeInt(s.length);
+				out.write(s);
+			}
+		}
+	}
+
+	private void writeInts(DataOutputStream out, int[] column)
+			throws IOException {
+		for (int i = 0; i < size; i++) {
+			out.writeInt(column[i]);
+		}
+	}
+
+	private int indexOf(String s) {
+		if (s == null) {
+			return -1;
+		}
+		Integer index = stringIndexes.get(s);
+		if (index == null) {
+			index = strings.size();
+			strings.add(s);
+			stringIndexes.put(s, index);
+		}
+		return index;
+	}
+
+	private static byte relayType(int stage) {
+		switch (stage) {
+		case MessageRelayEvent.SENDING:
+			return ColumnarEventsReader.TYPE_SEND;
+		case MessageRelayEvent.TRANSFERRED:
+			return ColumnarEventsReader.TYPE_DELIVERED;
+		case MessageRelayEvent.ABORTED:
+			return ColumnarEventsReader.TYPE_ABORT;
+		default:
+			throw new SimError("Unknown message relay stage " + stage);
+		}
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity <= times.length) {
+			return;
+		}
+		int newLength = Math.max(capacity, times.length * 2);
+		times = Arrays.copyOf(times, newLength);
+		types = Arrays.copyOf(types, newLength);
+		hosts1 = Arrays.copyOf(hosts1, newLength);
+		hosts2 = Arrays.copyOf(hosts2, newLength);
+		ids = Arrays.copyOf(ids, newLength);
+		sizes = Arrays.copyOf(sizes, newLength);
+		respSizes = Arrays.copyOf(respSizes, newLength);
+	}
+
+	/**
+	 * Converts a standard or binary external events file to the columnar
+	 * format.
+	 * @param args The input file and the output file
+	 * @throws IOException if reading or writing fails
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("Usage: ColumnarEventsWriter <input file> " +
+					"<output file>");
+			System.exit(1);
+		}
+		File in = new File(args[0]);
+		ExternalEventsReader reader;
+		if (BinaryEventsReader.isBinaryEeFile(in)) {
+			reader = new BinaryEventsReader(in);
+		}
+		else {
+			reader = new StandardEventsReader(in);
+		}
+
+		ColumnarEventsWriter writer = new ColumnarEventsWriter();
+		List<ExternalEvent> events = reader.readEvents(CONVERT_BATCH);
+		while (events.size() > 0) {
+			for (ExternalEvent ee : events) {
+				writer.add(ee);
+			}
+			events = reader.readEvents(CONVERT_BATCH);
+		}
+		reader.close();
+
+		writer.write(new File(args[1]));
+		System.out.println("Wrote " + writer.size() + " events to " + args[1]);
+	}
+}
@@ -0,0 +1,431 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package input;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import core.SettingsError;
+import core.SimError;
+
+/**
+ * <P>
+ * Reader for ExternalMovement movement model's time-location samples stored
+ * in a columnar binary file (created with {@link ColumnarMovementWriter}).
+ * The columns are memory-mapped and decoded a window of time instances at a
+ * time into primitive arrays; while the samples of one window are used,
+ * the next window is decoded on a background thread.
+ * </P>
+ * <P>
+ * File layout (all numbers big-endian): a header of {@value #HEADER_SIZE}
+ * bytes (magic number {@link #MAGIC}, format version, the offsets minTime,
+ * maxTime, minX, maxX, minY and maxY as doubles, number of node IDs,
+ * number of time instances <i>t</i> as ints and number of samples
+ * <i>n</i> as a long), followed by the columns: times of the time
+ * instances (<i>t</i> doubles), index of the first sample of every time
+ * instance (<i>t</i>+1 longs), ID indexes, X and Y coordinates of the
+ * samples (<i>n</i> ints and 2 * <i>n</i> doubles), the offsets of the ID
+ * strings (ints, relative to the start of the string data) and the ID
+ * strings (an int length and the UTF-8 bytes of every ID). Time instances
+ * are sorted by time.
+ * </P>
+ */
+public class ColumnarMovementReader {
+	/** Extension of columnar movement files */
+	public static final String COLUMNAR_EXT = ".colmov";
+	/** Magic number in the beginning of the files ("ONEM") */
+	public static final int MAGIC = 0x4F4E454D;
+	/** Version of the file format */
+	public static final int VERSION = 1;
+	/** Size of the file header (bytes) */
+	public static final int HEADER_SIZE = 72;
+	/** Default minimum number of samples decoded at a time */
+	public static final int DEF_WINDOW_SIZE = 65536;
+
+	/** Decoded samples of consecutive time instances */
+	private static class Window {
+		/** index of the first time instance */
+		private int first;
+		private double[] times;
+		/** start of every time instance's samples (and end of the last) */
+		private int[] starts;
+		private int[] ids;
+		private double[] xs;
+		private double[] ys;
+	}
+
+	private RandomAccessFile file;
+	private final double minTime, maxTime, minX, maxX, minY, maxY;
+	private final int nrofInstants;
+	private final String[] idStrings;
+	private MappedByteBuffer times, starts, ids, xs, ys, stringData;
+	private final int[] stringOffsets;
+	private final int windowSize;
+	private boolean normalize;
+
+	private final ExecutorService prefetcher;
+	private Future<Window> nextWindow;
+	private boolean started;
+	private Window window;
+	/** index of the current time instance in the window */
+	private int instant;
+	private double lastTimeStamp = -1;
+
+	/**
+	 * Constructor. Creates a reader that decodes the samples in windows of
+	 * {@link #DEF_WINDOW_SIZE} samples.
+	 * @param inFilePath Path to the file where the data is read
+	 * @throws SettingsError if the file wasn't found or isn't valid
+	 */
+	public ColumnarMovementReader(String inFilePath) {
+		this(inFilePath, DEF_WINDOW_SIZE);
+	}
+
+	/**
+	 * Constructor.
+	 * @param inFilePath Path to the file where the data is read
+	 * @param windowSize Minimum number of samples decoded at a time (all
+	 * samples of a time instance are always decoded together)
+	 * @throws SettingsError if the file wasn't found or isn't valid
+	 */
+	public ColumnarMovementReader(String inFilePath, int windowSize) {
+		this.normalize = true;
+		this.windowSize = Math.max(windowSize, 1);
+		File inFile = new File(inFilePath);
+		try {
+			this.file = new RandomAccessFile(inFile, "r");
+			FileChannel ch = file.getChannel();
+			ByteBuffer header = map(ch, 0, HEADER_SIZE);
+			if (header.getInt(0) != MAGIC) {
+				throw new SettingsError("Invalid columnar movement file " +
+						inFile);
+			}
+			if (header.getInt(4) != VERSION) {
+				throw new SettingsError("Unsupported columnar movement " +
+						"file version " + header.getInt(4));
+			}
+			minTime = header.getDouble(8);
+			maxTime = header.getDouble(16);
+			minX = header.getDouble(24);
+			maxX = header.getDouble(32);
+			minY = header.getDouble(40);
+			maxY = header.getDouble(48);
+			idStrings = new String[header.getInt(56)];
+			nrofInstants = header.getInt(60);
+			long nrofSamples = header.getLong(64);
+
+			long pos = HEADER_SIZE;
+			times = map(ch, pos, 8L * nrofInstants);
+			pos += 8L * nrofInstants;
+			starts = map(ch, pos, 8L * (nrofInstants + 1));
+			pos += 8L * (nrofInstants + 1);
+			ids = map(ch, pos, 4L * nrofSamples);
+			pos += 4L * nrofSamples;
+			xs = map(ch, pos, 8L * nrofSamples);
+			pos += 8L * nrofSamples;
+			ys = map(ch, pos, 8L * nrofSamples);
+			pos += 8L * nrofSamples;
+			ByteBuffer offsets = map(ch, pos, 4L * idStrings.length);
+			pos += 4L * idStrings.length;
+			stringData = map(ch, pos, ch.size() - pos);
+
+			stringOffsets = new int[idStrings.length];
+			for (int i = 0; i < stringOffsets.length; i++) {
+				stringOffsets[i] = offsets.getInt(4 * i);
+			}
+		} catch (IOException e) {
+			close();
+			throw new SettingsError("Couldn't read columnar movement file " +
+					inFile + ": " + e.getMessage());
+		} catch (SettingsError e) {
+			close();
+			throw e;
+		}
+
+		this.prefetcher = Executors.newSingleThreadExecutor(r -> {
+			Thread t = new Thread(r, "ColumnarMovementReader prefetch");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	private static MappedByteBuffer map(FileChannel ch, long pos, long size)
+			throws IOException {
+		if (size > Integer.MAX_VALUE) {
+			throw new SettingsError("Too many samples in a columnar " +
+					"movement file");
+		}
+		if (pos + size > ch.size()) {
+			throw new SettingsError("Truncated columnar movement file");
+		}
+		return ch.map(FileChannel.MapMode.READ_ONLY, pos, size);
+	}
+
+	/**
+	 * Sets normalizing of read values on/off. If on, the times and
+	 * coordinates are decremented by minimum values of the offsets.
+	 * Default is on (normalize). Has no effect after the first call of
+	 * {@link #nextInstant()}.
+	 * @param normalize If true, normalizing is on (false -> off).
+	 */
+	public void setNormalize(boolean normalize) {
+		if (!started) {
+			this.normalize = normalize;
+		}
+	}
+
+	/**
+	 * Moves to the samples of the next time instance
+	 * @return True if there was a next time instance, false if all samples
+	 * have been read
+	 */
+	public boolean nextInstant() {
+		if (window != null && instant + 1 < window.starts.length - 1) {
+			instant++;
+		}
+		else {
+			Window next = takeNextWindow();
+			if (next == null) {
+				return false;
+			}
+			window = next;
+			instant = 0;
+		}
+		lastTimeStamp = window.times[instant];
+		return true;
+	}
+
+	private Window takeNextWindow() {
+		if (!started) { // normalizing can't change after this
+			started = true;
+			nextWindow = prefetch(0);
+		}
+		if (nextWindow == null) {
+			return null;
+		}
+		Window next;
+		try {
+			next = nextWindow.get();
+		} catch (InterruptedException e) {
+			throw new SimError(e);
+		} catch (ExecutionException e) {
+			throw new SimError("Decoding movement samples failed", e);
+		}
+		int following = next.first + next.times.length;
+		nextWindow = following < nrofInstants ? prefetch(following) : null;
+		return next;
+	}
+
+	private Future<Window> prefetch(final int first) {
+		if (first >= nrofInstants) {
+			return null;
+		}
+		final boolean norm = this.normalize;
+		return prefetcher.submit(() -> decode(first, norm));
+	}
+
+	/**
+	 * Decodes the samples of time instances starting from the given one
+	 * until at least the window size of samples is decoded
+	 */
+	private Window decode(int first, boolean norm) {
+		long firstSample = starts.getLong(8 * first);
+		int last = first;
+		while (last < nrofInstants &&
+				starts.getLong(8 * (last + 1)) - firstSample < windowSize) {
+			last++;
+		}
+		if (last == nrofInstants) {
+			last--;
+		}
+		int count = last - first + 1;
+		int nrofSamples = (int)(starts.getLong(8 * (last + 1)) - firstSample);
+
+		Window w = new Window();
+		w.first = first;
+		w.times = new double[count];
+		w.starts = new int[count + 1];
+		for (int i = 0; i < count; i++) {
+			w.times[i] = times.getDouble(8 * (first + i)) -
+				(norm ? minTime : 0);
+			w.starts[i] = (int)(starts.getLong(8 * (first + i)) - firstSample);
+		}
+		w.starts[count] = nrofSamples;
+
+		w.ids = new int[nrofSamples];
+		w.xs = new double[nrofSamples];
+		w.ys = new double[nrofSamples];
+		int base = (int)firstSample;
+		double dx = norm ? minX : 0;
+		double dy = norm ? minY : 0;
+		for (int i = 0; i < nrofSamples; i++) {
+			w.ids[i] = ids.getInt(4 * (base + i));
+			w.xs[i] = xs.getDouble(8 * (base + i)) - dx;
+			w.ys[i] = ys.getDouble(8 * (base + i)) - dy;
+		}
+		return w;
+	}
+
+	/**
+	 * Returns the time stamp of the current time instance (or of the last
+	 * one if all have been read)
+	 * @return The time stamp
+	 */
+	public double getLastTimeStamp() {
+		return lastTimeStamp;
+	}
+
+	/**
+	 * Returns the number of samples in the current time instance
+	 * @return The number of samples
+	 */
+	public int getNrofSamples() {
+		return window.starts[instant + 1] - window.starts[instant];
+	}
+
+	/**
+	 * Returns the ID index of a sample of the current time instance
+	 * @param i Index of the sample in the time instance
+	 * @return Index of the sample's node ID
+	 * @see #getId(int)
+	 */
+	public int getIdIndex(int i) {
+		return window.ids[window.starts[instant] + i];
+	}
+
+	/**
+	 * Returns the X coordinate of a sample of the current time instance
+	 * @param i Index of the sample in the time instance
+	 * @return The X coordinate
+	 */
+	public double getX(int i) {
+		return window.xs[window.starts[instant] + i];
+	}
+
+	/**
+	 * Returns the Y coordinate of a sample of the current time instance
+	 * @param i Index of the sample in the time instance
+	 * @return The Y coordinate
+	 */
+	public double getY(int i) {
+		return window.ys[window.starts[instant] + i];
+	}
+
+	/**
+	 * Returns the number of different node IDs in the file
+	 * @return The number of IDs
+	 */
+	public int getNrofIds() {
+		return this.idStrings.length;
+	}
+
+	/**
+	 * Returns a node ID
+	 * @param index Index of the ID
+	 * @return The ID
+	 */
+	public String getId(int index) {
+		String id = idStrings[index];
+		if (id == null) {
+			ByteBuffer data = stringData.duplicate();
+			data.position(stringOffsets[index]);
+			byte[] bytes = new byte[data.getInt()];
+			data.get(bytes);
+			id = new String(bytes, StandardCharsets.UTF_8);
+			idStrings[index] = id;
+		}
+		return id;
+	}
+
+	/**
+	 * Checks if the given file is a columnar movement file
+	 * @param path Path to the file
+	 * @return True if the file has the columnar extension and magic number
+	 */
+	public static boolean isColumnarMovementFile(String path) {
+		if (!path.endsWith(COLUMNAR_EXT)) {
+			return false;
+		}
+		try (RandomAccessFile f = new RandomAccessFile(path, "r")) {
+			return f.length() >= HEADER_SIZE && f.readInt() == MAGIC;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Stops the prefetching and closes the file
+	 */
+	public void close() {
+		if (this.prefetcher != null) {
+			this.prefetcher.shutdownNow();
+		}
+		try {
+			if (this.file != null) {
+				this.file.close();
+				this.file = null;
+			}
+		} catch (IOException ioe) {
+			throw new SimError(ioe);
+		}
+	}
+
+	/**
+	 * Returns offset maxTime
+	 * @return the maxTime
+	 */
+	public double getMaxTime() {
+		return maxTime;
+	}
+
+	/**
+	 * Returns offset maxX
+	 * @return the maxX
+	 */
+	public double getMaxX() {
+		return maxX;
+	}
+
+	/**
+	 * Returns offset maxY
+	 * @return the maxY
+	 */
+	public double getMaxY() {
+		return maxY;
+	}
+
+	/**
+	 * Returns offset minTime
+	 * @return the minTime
+	 */
+	public double getMinTime() {
+		return minTime;
+	}
+
+	/**
+	 * Returns offset minX
+	 * @return the minX
+	 */
+	public double getMinX() {
+		return minX;
+	}
+
+	/**
+	 * Returns offset minY
+	 * @return the minY
+	 */
+	public double getMinY() {
+		return minY;
+	}
+}
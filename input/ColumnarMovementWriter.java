@@ -0,0 +1,196 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package input;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import core.Coord;
+import core.Tuple;
+
+/**
+ * Converts an {@link ExternalMovementReader} text file to the columnar
+ * format read by {@link ColumnarMovementReader}. The input is read twice:
+ * first to count the time instances and samples and to collect the node
+ * IDs, and then to write the columns, so the samples are never all kept in
+ * memory. Usage:
+ * <pre>
+ * java -cp . input.ColumnarMovementWriter &lt;input file&gt; &lt;output file&gt;
+ * </pre>
+ */
+public class ColumnarMovementWriter {
+	/** size of the write buffer of every column (bytes) */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/** Buffered writer of one column of the output file */
+	private static class Column {
+		private final FileChannel channel;
+		private final ByteBuffer buffer;
+		private long position;
+
+		private Column(FileChannel channel, long position) {
+			this.channel = channel;
+			this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+			this.position = position;
+		}
+
+		private void putInt(int value) throws IOException {
+			ensureSpace(4);
+			buffer.putInt(value);
+		}
+
+		private void putLong(long value) throws IOException {
+			ensureSpace(8);
+			buffer.putLong(value);
+		}
+
+		private void putDouble(double value) throws IOException {
+			ensureSpace(8);
+			buffer.putDouble(value);
+		}
+
+		private void put(byte[] bytes) throws IOException {
+			if (bytes.length > buffer.capacity()) {
+				flush();
+				ByteBuffer b = ByteBuffer.wrap(bytes);
+				while (b.hasRemaining()) {
+					position += channel.write(b, position);
+				}
+				return;
+			}
+			ensureSpace(bytes.length);
+			buffer.put(bytes);
+		}
+
+		private void ensureSpace(int bytes) throws IOException {
+			if (buffer.remaining() < bytes) {
+				flush();
+			}
+		}
+
+		private void flush() throws IOException {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				position += channel.write(buffer, position);
+			}
+			buffer.clear();
+		}
+	}
+
+	/**
+	 * Converts a text movement file to a columnar movement file
+	 * @param inFilePath Path to the text file
+	 * @param outFilePath Path to the columnar file to create
+	 * @return The number of samples written
+	 * @throws IOException if writing the file fails
+	 */
+	public static long convert(String inFilePath, String outFilePath)
+			throws IOException {
+		ExternalMovementReader reader = new ExternalMovementReader(inFilePath);
+		reader.setNormalize(false);
+		HashMap<String, Integer> idIndexes = new HashMap<String, Integer>();
+		List<String> idList = new ArrayList<String>();
+		int nrofInstants = 0;
+		long nrofSamples = 0;
+		for (List<Tuple<String, Coord>> moves = reader.readNextMovements();
+				moves.size() > 0; moves = reader.readNextMovements()) {
+			nrofInstants++;
+			nrofSamples += moves.size();
+			for (Tuple<String, Coord> t : moves) {
+				if (!idIndexes.containsKey(t.getKey())) {
+					idIndexes.put(t.getKey(), idList.size());
+					idList.add(t.getKey());
+				}
+			}
+		}
+
+		try (RandomAccessFile out = new RandomAccessFile(outFilePath, "rw")) {
+			out.setLength(0);
+			FileChannel ch = out.getChannel();
+
+			Column header = new Column(ch, 0);
+			header.putInt(ColumnarMovementReader.MAGIC);
+			header.putInt(ColumnarMovementReader.VERSION);
+			header.putDouble(reader.getMinTime());
+			header.putDouble(reader.getMaxTime());
+			header.putDouble(reader.getMinX());
+			header.putDouble(reader.getMaxX());
+			header.putDouble(reader.getMinY());
+			header.putDouble(reader.getMaxY());
+			header.putInt(idList.size());
+			header.putInt(nrofInstants);
+			header.putLong(nrofSamples);
+			header.flush();
+
+			long pos = ColumnarMovementReader.HEADER_SIZE;
+			Column times = new Column(ch, pos);
+			pos += 8L * nrofInstants;
+			Column starts = new Column(ch, pos);
+			pos += 8L * (nrofInstants + 1);
+			Column ids = new Column(ch, pos);
+			pos += 4L * nrofSamples;
+			Column xs = new Column(ch, pos);
+			pos += 8L * nrofSamples;
+			Column ys = new Column(ch, pos);
+			pos += 8L * nrofSamples;
+			Column strings = new Column(ch, pos);
+
+			reader = new ExternalMovementReader(inFilePath);
+			reader.setNormalize(false);
+			long start = 0;
+			for (List<Tuple<String, Coord>> moves = reader.readNextMovements();
+					moves.size() > 0; moves = reader.readNextMovements()) {
+				times.putDouble(reader.getLastTimeStamp());
+				starts.putLong(start);
+				start += moves.size();
+				for (Tuple<String, Coord> t : moves) {
+					ids.putInt(idIndexes.get(t.getKey()));
+					xs.putDouble(t.getValue().getX());
+					ys.putDouble(t.getValue().getY());
+				}
+			}
+			starts.putLong(start);
+
+			List<byte[]> encoded = new ArrayList<byte[]>(idList.size());
+			int offset = 0;
+			for (String id : idList) {
+				byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+				encoded.add(bytes);
+				strings.putInt(offset);
+				offset += 4 + bytes.length;
+			}
+			for (byte[] bytes : encoded) {
+				strings.putInt(bytes.length);
+				strings.put(bytes);
+			}
+
+			for (Column c : new Column[] {times, starts, ids, xs, ys, strings}) {
+				c.flush();
+			}
+		}
+		return nrofSamples;
+	}
+
+	/**
+	 * Converts a text movement file to the columnar format.
+	 * @param args The input file and the output file
+	 * @throws IOException if writing fails
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("Usage: ColumnarMovementWriter <input file> " +
+					"<output file>");
+			System.exit(1);
+		}
+		long samples = convert(args[0], args[1]);
+		System.out.println("Wrote " + samples + " samples to " + args[1]);
+	}
+}
@@ -38,6 +38,14 @@ public class MessageRelayEvent extends MessageEvent {
 		this.stage = stage;
 	}
 	
+	/**
+	 * Returns the stage of the event
+	 * @return The stage (SENDING, TRANSFERRED, or ABORTED)
+	 */
+	int getStage() {
+		return this.stage;
+	}
+
 	/**
 	 * Relays the message
 	 */
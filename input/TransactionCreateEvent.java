@@ -7,6 +7,7 @@ package input;
 import Blockchain.Transaction;
 import core.DTNHost;
 import core.Message;
+import core.MessageProperty;
 import core.SimScenario;
 import core.World;
 
@@ -15,6 +16,12 @@ import core.World;
  */
 public class TransactionCreateEvent extends MessageEvent {
 
+    /**
+     * Property of the created messages holding the transaction
+     */
+    public static final MessageProperty<Transaction> TRANSACTION
+            = MessageProperty.register("transaction", Transaction.class);
+
     private int size;
     private int responseSize;
     private Transaction tr;
@@ -49,7 +56,7 @@ public class TransactionCreateEvent extends MessageEvent {
         Message m = new Message(from, to, this.id, this.size);
         m.setResponseSize(this.responseSize);
         if (this.tr != null) {
-            m.addProperty("transaction", this.tr);
+            m.addProperty(TRANSACTION, this.tr);
         }
         int nodesInGroup = SimScenario.getInstance().getNrofNodeInGroups()*8;
         if (this.fromAddr != 0 && this.fromAddr <= nodesInGroup ) {
@@ -7,13 +7,13 @@ package input;
 import Blockchain.Inisialisasi;
 import Blockchain.SecureTransaction;
 import Blockchain.Transaction;
+import Blockchain.Wallet;
 import core.DTNHost;
 import java.util.Random;
 
 import core.Settings;
 import core.SettingsError;
 import core.SimScenario;
-import java.security.PublicKey;
 import java.util.concurrent.ThreadLocalRandom;
 
 /**
@@ -256,16 +256,16 @@ public class TransactionEventGenerator implements EventQueue {
              
         DTNHost senderHost = SimScenario.getInstance().getHosts().get(from);
         DTNHost receiverHost = SimScenario.getInstance().getHosts().get(drawToAddressTrx(from));
-        PublicKey senderPublicKey = senderHost.getWallet().getPublicKey();
-        PublicKey receiverPublicKey = receiverHost.getWallet().getPublicKey();
-        if (!senderHost.toString().startsWith("node") || senderHost.getWallet() == null) {
+        Wallet senderWallet = senderHost.getWallet();
+        Wallet receiverWallet = receiverHost.getWallet();
+        if (!senderHost.toString().startsWith("node") || senderWallet == null) {
             return null;
         }
         double amount = ThreadLocalRandom.current().nextDouble(10, 1000);
         long timestamp = System.currentTimeMillis();
         
-        Transaction tr = new Transaction(senderPublicKey, receiverPublicKey, amount, timestamp);
-        tr.generateSignature(senderHost.getWallet().getPrivateKey());
+        Transaction tr = new Transaction(senderWallet, receiverWallet, amount, timestamp);
+        tr.generateSignature(senderWallet.getPrivateKey());
         TransactionCreateEvent tce = new TransactionCreateEvent(from, to, "TRX" + eventCount++,
                 msgSize, responseSize, this.nextEventsTime, tr);
         
@@ -5,8 +5,14 @@
 package interfaces;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 import movement.MovementModel;
 
@@ -33,13 +39,28 @@ import core.Settings;
  * connectivity. 
  * </P>
  * <P>
+ * The cells are stored in a row-major array and each cell keeps the network
+ * addresses of its interfaces in an int array. The index of the cell an
+ * interface is registered to is stored in the interface itself, so updating
+ * the locations and visiting the near interfaces
+ * ({@link #visitNearInterfaces(NetworkInterface, Consumer)}) don't allocate
+ * any objects.
+ * </P>
+ * <P>
  * <strong>Note:</strong> this class does NOT support negative
  * coordinates. Also, it makes sense to normalize the coordinates to start
  * from zero to conserve memory. 
  */
 public class ConnectivityGrid extends ConnectivityOptimizer {
-	private GridCell[][] cells;
-	private HashMap<NetworkInterface,GridCell> ginterfaces;
+	/** how large array is initially chosen for a cell */
+	private static final int EXPECTED_INTERFACE_COUNT = 5;
+
+	/** addresses of the interfaces in each cell (in insertion order) */
+	private int[][] cells;
+	/** number of interfaces in each cell */
+	private int[] cellSizes;
+	/** the interfaces of this grid indexed by their network address */
+	private NetworkInterface[] interfaces;
 	private int cellSize;
 	private int rows;
 	private int cols;
@@ -72,15 +93,10 @@ public class ConnectivityGrid extends ConnectivityOptimizer {
 		this.rows = worldSizeY/cellSize + 1;
 		this.cols = worldSizeX/cellSize + 1;
 		// leave empty cells on both sides to make neighbor search easier 
-		this.cells = new GridCell[rows+2][cols+2];
+		this.cells = new int[(rows+2) * (cols+2)][];
+		this.cellSizes = new int[cells.length];
 		this.cellSize = cellSize;
-
-		for (int i=0; i<rows+2; i++) {
-			for (int j=0; j<cols+2; j++) {
-				this.cells[i][j] = new GridCell();
-			}
-		}
-		ginterfaces = new HashMap<NetworkInterface,GridCell>();
+		this.interfaces = new NetworkInterface[0];
 	}
 
 	/**
@@ -102,14 +118,32 @@ public class ConnectivityGrid extends ConnectivityOptimizer {
 		}
 	}
 
+	/**
+	 * Returns all connectivity grids that have been created
+	 * @return The connectivity grid objects
+	 */
+	public static Collection<ConnectivityGrid> getGrids() {
+		return gridobjects.values();
+	}
+
 	/**
 	 * Adds a network interface to the overlay grid
 	 * @param ni The new network interface
 	 */
 	public void addInterface(NetworkInterface ni) {
-		GridCell c = cellFromCoord(ni.getLocation());
-		c.addInterface(ni);
-		ginterfaces.put(ni,c);
+		int address = ni.getAddress();
+		if (address >= interfaces.length) {
+			interfaces = Arrays.copyOf(interfaces,
+					Math.max(address + 1, interfaces.length * 2));
+		}
+		else if (interfaces[address] == ni) {
+			return; // already added
+		}
+		interfaces[address] = ni;
+
+		int cell = cellIndex(ni.getLocation());
+		addToCell(cell, address);
+		ni.setGridCell(cell);
 	}
 
 	/** 
@@ -117,11 +151,12 @@ public class ConnectivityGrid extends ConnectivityOptimizer {
 	 * @param ni The interface to be removed
 	 */
 	public void removeInterface(NetworkInterface ni) {
-		GridCell c = ginterfaces.get(ni);
-		if (c != null) {
-			c.removeInterface(ni);
+		if (!contains(ni)) {
+			return;
 		}
-		ginterfaces.remove(ni);
+		removeFromCell(ni.getGridCell(), ni.getAddress());
+		interfaces[ni.getAddress()] = null;
+		ni.setGridCell(-1);
 	}
 
 	/**
@@ -139,48 +174,133 @@ public class ConnectivityGrid extends ConnectivityOptimizer {
 	 * @param ni The interface to update
 	 */
 	public void updateLocation(NetworkInterface ni) {
-		GridCell oldCell = (GridCell)ginterfaces.get(ni);
-		GridCell newCell = cellFromCoord(ni.getLocation());
+		int oldCell = ni.getGridCell();
+		int newCell = cellIndex(ni.getLocation());
 
 		if (newCell != oldCell) {
-			oldCell.moveInterface(ni, newCell);
-			ginterfaces.put(ni,newCell);
+			addToCell(newCell, ni.getAddress());
+			removeFromCell(oldCell, ni.getAddress());
+			ni.setGridCell(newCell);
 		}
 	}
 
 	/**
-	 * Finds all neighboring cells and the cell itself based on the coordinates
-	 * @param c The coordinates
-	 * @return Array of neighboring cells 
+	 * Returns true if the interface has been added to this grid
 	 */
-	private GridCell[] getNeighborCellsByCoord(Coord c) {
-		// +1 due empty cells on both sides of the matrix
-		int row = (int)(c.getY()/cellSize) + 1;
-		int col = (int)(c.getX()/cellSize) + 1;
-		return getNeighborCells(row,col);
+	private boolean contains(NetworkInterface ni) {
+		int address = ni.getAddress();
+		return address < interfaces.length && interfaces[address] == ni;
 	}
 
 	/**
-	 * Returns an array of Cells that contains the neighbors of a certain
-	 * cell and the cell itself.
-	 * @param row Row index of the cell
-	 * @param col Column index of the cell
-	 * @return Array of neighboring Cells
+	 * Appends an interface address to a cell
+	 * @param cell Index of the cell
+	 * @param address Network address of the interface
 	 */
-	private GridCell[] getNeighborCells(int row, int col) {
-		return new GridCell[] {
-			cells[row-1][col-1],cells[row-1][col],cells[row-1][col+1],//1st row
-			cells[row][col-1],cells[row][col],cells[row][col+1],//2nd row
-			cells[row+1][col-1],cells[row+1][col],cells[row+1][col+1]//3rd row
-		};
+	private void addToCell(int cell, int address) {
+		int[] members = cells[cell];
+		int size = cellSizes[cell];
+		if (members == null) {
+			members = cells[cell] = new int[EXPECTED_INTERFACE_COUNT];
+		}
+		else if (size == members.length) {
+			members = cells[cell] = Arrays.copyOf(members, size * 2);
+		}
+		members[size] = address;
+		cellSizes[cell] = size + 1;
 	}
 
 	/**
-	 * Get the cell having the specific coordinates
+	 * Removes an interface address from a cell keeping the order of the
+	 * other addresses
+	 * @param cell Index of the cell
+	 * @param address Network address of the interface
+	 */
+	private void removeFromCell(int cell, int address) {
+		int[] members = cells[cell];
+		int size = cellSizes[cell];
+		for (int i = 0; i < size; i++) {
+			if (members[i] == address) {
+				System.arraycopy(members, i + 1, members, i, size - i - 1);
+				cellSizes[cell] = size - 1;
+				return;
+			}
+		}
+		assert false : "interface " + interfaces[address] +
+			" not found from cell " + cell;
+	}
+
+	/**
+	 * Computes for every interface of this grid the set of interfaces that
+	 * are within range at their current locations and stores it with
+	 * {@link NetworkInterface#setInterfacesInRange(java.util.Set)}. The
+	 * interfaces are bucketed by the cell of their current location (the
+	 * cells the interfaces are registered to are not touched) and the
+	 * buckets are processed concurrently by the given pool. Interfaces whose
+	 * range exceeds the cell size get no set and compute the range checks
+	 * directly.
+	 * @param pool The pool that runs the computation
+	 */
+	@SuppressWarnings("unchecked")
+	public void updateInterfacesInRange(ForkJoinPool pool) {
+		final int width = cols + 2;
+		final List<NetworkInterface>[] buckets = new List[cells.length];
+		final List<Integer> occupied = new ArrayList<Integer>();
+
+		for (NetworkInterface ni : interfaces) {
+			if (ni == null) {
+				continue;
+			}
+			int index = bucketIndex(ni.getLocation());
+			if (index < 0) { // can't bucket; fall back to direct checks
+				for (NetworkInterface n : getAllInterfaces()) {
+					n.setInterfacesInRange(null);
+				}
+				return;
+			}
+			if (buckets[index] == null) {
+				buckets[index] = new ArrayList<NetworkInterface>();
+				occupied.add(index);
+			}
+			buckets[index].add(ni);
+		}
+
+		pool.submit(() -> IntStream.range(0, occupied.size()).parallel()
+				.forEach(i -> {
+			int index = occupied.get(i);
+			for (NetworkInterface ni : buckets[index]) {
+				if (ni.getTransmitRange() > cellSize) {
+					ni.setInterfacesInRange(null);
+					continue;
+				}
+				HashSet<NetworkInterface> inRange =
+					new HashSet<NetworkInterface>();
+				for (int row = -1; row <= 1; row++) {
+					for (int col = -1; col <= 1; col++) {
+						List<NetworkInterface> bucket =
+							buckets[index + row * width + col];
+						if (bucket == null) {
+							continue;
+						}
+						for (NetworkInterface other : bucket) {
+							if (other != ni &&
+									NetworkInterface.areWithinRange(ni, other)) {
+								inRange.add(other);
+							}
+						}
+					}
+				}
+				ni.setInterfacesInRange(inRange);
+			}
+		})).join();
+	}
+
+	/**
+	 * Returns the index of the cell having the specific coordinates
 	 * @param c Coordinates
-	 * @return The cell
+	 * @return The index of the cell
 	 */
-	private GridCell cellFromCoord(Coord c) {
+	private int cellIndex(Coord c) {
 		// +1 due empty cells on both sides of the matrix
 		int row = (int)(c.getY()/cellSize) + 1; 
 		int col = (int)(c.getX()/cellSize) + 1;
@@ -188,14 +308,36 @@ public class ConnectivityGrid extends ConnectivityOptimizer {
 		assert row > 0 && row <= rows && col > 0 && col <= cols : "Location " + 
 		c + " is out of world's bounds";
 		
-		return this.cells[row][col];
+		return row * (cols + 2) + col;
+	}
+
+	/**
+	 * Returns the index of the cell having the specific coordinates or -1 if
+	 * the coordinates are out of the world's bounds
+	 * @param c Coordinates
+	 * @return The index of the cell or -1
+	 */
+	private int bucketIndex(Coord c) {
+		int row = (int)(c.getY()/cellSize) + 1;
+		int col = (int)(c.getX()/cellSize) + 1;
+
+		if (row <= 0 || row > rows || col <= 0 || col > cols) {
+			return -1;
+		}
+		return row * (cols + 2) + col;
 	}
 
 	/**
 	 * Returns all interfaces that use the same technology and channel
 	 */
 	public Collection<NetworkInterface> getAllInterfaces() {
-		return (Collection<NetworkInterface>)ginterfaces.keySet();
+		ArrayList<NetworkInterface> all = new ArrayList<NetworkInterface>();
+		for (NetworkInterface ni : interfaces) {
+			if (ni != null) {
+				all.add(ni);
+			}
+		}
+		return all;
 	}
 
 	/**
@@ -205,17 +347,39 @@ public class ConnectivityGrid extends ConnectivityOptimizer {
 	public Collection<NetworkInterface> getNearInterfaces(
 			NetworkInterface netinterf) {
 		ArrayList<NetworkInterface> ni = new ArrayList<NetworkInterface>();
-		ni.clear();
-
-		GridCell loc = (GridCell)ginterfaces.get(netinterf);
-		if (loc != null) {	
-			GridCell[] neighbors = 
-				getNeighborCellsByCoord(netinterf.getLocation());
-			for (int i=0; i < neighbors.length; i++) {
-				ni.addAll(neighbors[i].getInterfaces());
+		visitNearInterfaces(netinterf, ni::add);
+		return ni;
+	}
+
+	/**
+	 * Calls the visitor for all interfaces using the same technology and
+	 * channel that are in the cell of the interface's location or in the
+	 * neighboring cells. The cells are visited row by row and the interfaces
+	 * of a cell in the order they entered the cell. The visitor must not
+	 * move interfaces in the grid.
+	 */
+	@Override
+	public void visitNearInterfaces(NetworkInterface netinterf,
+			Consumer<NetworkInterface> visitor) {
+		if (!contains(netinterf)) {
+			return;
+		}
+
+		Coord c = netinterf.getLocation();
+		// +1 due empty cells on both sides of the matrix
+		int row = (int)(c.getY()/cellSize) + 1;
+		int col = (int)(c.getX()/cellSize) + 1;
+		int width = cols + 2;
+
+		for (int r = row - 1; r <= row + 1; r++) {
+			for (int cell = r * width + col - 1, end = cell + 3; cell < end;
+					cell++) {
+				int[] members = cells[cell];
+				for (int i = 0, n = cellSizes[cell]; i < n; i++) {
+					visitor.accept(interfaces[members[i]]);
+				}
 			}
 		}
-		return ni;
 	}
 
 
@@ -227,65 +391,4 @@ public class ConnectivityGrid extends ConnectivityOptimizer {
 		return getClass().getSimpleName() + " of size " + 
 			this.cols + "x" + this.rows + ", cell size=" + this.cellSize;
 	}
-
-	/**
-	 * A single cell in the cell grid. Contains the interfaces that are 
-	 * currently in that part of the grid.
-	 */
-	public class GridCell {
-		// how large array is initially chosen
-		private static final int EXPECTED_INTERFACE_COUNT = 5;
-		private ArrayList<NetworkInterface> interfaces;
-
-		private GridCell() {
-			this.interfaces = new ArrayList<NetworkInterface>(
-					EXPECTED_INTERFACE_COUNT);
-		}
-
-		/**
-		 * Returns a list of of interfaces in this cell
-		 * @return a list of of interfaces in this cell
-		 */
-		public ArrayList<NetworkInterface> getInterfaces() {
-			return this.interfaces;
-		}
-
-		/**
-		 * Adds an interface to this cell
-		 * @param ni The interface to add
-		 */
-		public void addInterface(NetworkInterface ni) {
-			this.interfaces.add(ni);
-		}
-
-		/**
-		 * Removes an interface from this cell
-		 * @param ni The interface to remove
-		 */
-		public void removeInterface(NetworkInterface ni) {
-			this.interfaces.remove(ni);
-		}
-
-		/**
-		 * Moves a interface in a Cell to another Cell
-		 * @param ni The interface to move
-		 * @param to The cell where the interface should be moved to
-		 */
-		public void moveInterface(NetworkInterface ni, GridCell to) {
-			to.addInterface(ni);
-			boolean removeOk = this.interfaces.remove(ni); 
-			assert removeOk : "interface " + ni + 
-				" not found from cell with " + interfaces.toString();
-		}
-
-		/**
-		 * Returns a string representation of the cell
-		 * @return a string representation of the cell
-		 */
-		public String toString() {
-			return getClass().getSimpleName() + " with " + 
-				this.interfaces.size() + " interfaces :" + this.interfaces;
-		}
-	}
-	
-}
\ No newline at end of file
+}
@@ -5,6 +5,7 @@
 package interfaces;
 
 import java.util.Collection;
+import java.util.function.Consumer;
 
 import core.NetworkInterface;
 
@@ -40,6 +41,21 @@ abstract public class ConnectivityOptimizer {
 	abstract public Collection<NetworkInterface> getNearInterfaces(
 			NetworkInterface ni);
 
+	/**
+	 * Calls the visitor for all network interfaces that might be located so
+	 * that they can be connected with the network interface. Subclasses can
+	 * override this to visit the interfaces without collecting them first.
+	 * 
+	 * @param ni network interface that needs to be connected
+	 * @param visitor The visitor to call for each interface within proximity
+	 */
+	public void visitNearInterfaces(NetworkInterface ni,
+			Consumer<NetworkInterface> visitor) {
+		for (NetworkInterface near : getNearInterfaces(ni)) {
+			visitor.accept(near);
+		}
+	}
+
 	/**
 	 * Finds all other interfaces that are registered to the
 	 * ConnectivityOptimizer
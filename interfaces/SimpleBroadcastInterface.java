@@ -4,8 +4,6 @@
  */
 package interfaces;
 
-import java.util.Collection;
-
 import core.CBRConnection;
 import core.Connection;
 import core.DTNHost;
@@ -66,8 +64,11 @@ public class SimpleBroadcastInterface extends NetworkInterface {
 	 * that are out of range).
 	 */
 	public void update() {
+		updateOptimizerLocation();
+		if (!isContactCheckDue()) {
+			return; // no interface can have come in or out of range
+		}
 		// First break the old ones
-		optimizer.updateLocation(this);
 		for (int i=0; i<this.connections.size(); ) {
 			Connection con = this.connections.get(i);
 			NetworkInterface anotherInterface = con.getOtherInterface(this);
@@ -84,11 +85,7 @@ public class SimpleBroadcastInterface extends NetworkInterface {
 			}
 		}
 		// Then find new possible connections
-		Collection<NetworkInterface> interfaces =
-			optimizer.getNearInterfaces(this);
-		for (NetworkInterface i : interfaces) {
-			connect(i);
-		}
+		optimizer.visitNearInterfaces(this, connector);
 	}
 
 	/** 
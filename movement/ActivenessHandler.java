@@ -69,6 +69,14 @@ public class ActivenessHandler {
 		return timesList;
 	}
 	
+	/**
+	 * Returns true if the node has active times, i.e. it isn't always active
+	 * @return true if the node has active times
+	 */
+	public boolean hasActiveTimes() {
+		return this.activeTimes != null;
+	}
+
 	/**
 	 * Returns true if node should be active at the moment
 	 * @return true if node should be active at the moment
@@ -78,20 +86,24 @@ public class ActivenessHandler {
 			return true; // no inactive times 
 		}
 		
-		if (curRange == null) {
-			return false; // out of active times
-		}
-		
-		double time = SimClock.getTime();
-		
-		if (this.curRange.isOut(time)) { // time for the next time range
-			this.curRange = activeTimes.poll();
+		/* the handler is shared by the hosts of a group, which may be moved
+		 * concurrently (see World's parallel update) */
+		synchronized (this) {
 			if (curRange == null) {
 				return false; // out of active times
 			}
+
+			double time = SimClock.getTime();
+
+			if (this.curRange.isOut(time)) { // time for the next time range
+				this.curRange = activeTimes.poll();
+				if (curRange == null) {
+					return false; // out of active times
+				}
+			}
+
+			return curRange.isInRange(time);
 		}
-		
-		return curRange.isInRange(time);
 	}
 
 	/**
@@ -4,10 +4,12 @@
  */
 package movement;
 
+import input.ColumnarMovementReader;
 import input.ExternalMovementReader;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
@@ -19,7 +21,10 @@ import core.SimClock;
 import core.Tuple;
 
 /**
- * Movement model that uses external data of node locations.
+ * Movement model that uses external data of node locations. If the file
+ * name ends with {@link ColumnarMovementReader#COLUMNAR_EXT}, the locations
+ * are read with a {@link ColumnarMovementReader}, otherwise with an
+ * {@link ExternalMovementReader}.
  */
 public class ExternalMovement extends MovementModel {
 	/** Namespace for settings */
@@ -32,6 +37,12 @@ public class ExternalMovement extends MovementModel {
 	/** default initial location for excess nodes */
 	private static final Coord DEF_INIT_LOC = new Coord(0,0);
 	private static ExternalMovementReader reader;
+	/** reader of columnar files (null if the file is a text file) */
+	private static ColumnarMovementReader columnarReader;
+	/** models by the columnar reader's ID indexes (filled on demand) */
+	private static ExternalMovement[] columnarModels;
+	/** have the models of the ID indexes been looked up */
+	private static boolean[] columnarModelsResolved;
 	private static String inputFileName;
 	
 	/** mapping of external id to movement model */
@@ -81,10 +92,14 @@ public class ExternalMovement extends MovementModel {
 			Settings s = new Settings(EXTERNAL_MOVEMENT_NS);
 			idMapping = new HashMap<String, ExternalMovement>();
 			inputFileName = s.getSetting(MOVEMENT_FILE_S);
-			reader = new ExternalMovementReader(inputFileName);
-			
-			initLocations = reader.readNextMovements();
-			initTime = reader.getLastTimeStamp();
+			if (ColumnarMovementReader.isColumnarMovementFile(inputFileName)) {
+				initColumnarReader();
+			}
+			else {
+				reader = new ExternalMovementReader(inputFileName);
+				initLocations = reader.readNextMovements();
+				initTime = reader.getLastTimeStamp();
+			}
 			samplingInterval = -1;
 			lastPreloadTime = -1;
 			
@@ -98,6 +113,27 @@ public class ExternalMovement extends MovementModel {
 		}
 	}
 	
+	/**
+	 * Opens the columnar reader and reads the initial locations from it
+	 */
+	private static void initColumnarReader() {
+		columnarReader = new ColumnarMovementReader(inputFileName);
+		int nrofIds = columnarReader.getNrofIds();
+		columnarModels = new ExternalMovement[nrofIds];
+		columnarModelsResolved = new boolean[nrofIds];
+
+		initLocations = new ArrayList<Tuple<String, Coord>>();
+		if (columnarReader.nextInstant()) {
+			for (int i = 0, n = columnarReader.getNrofSamples(); i < n; i++) {
+				initLocations.add(new Tuple<String, Coord>(
+						columnarReader.getId(columnarReader.getIdIndex(i)),
+						new Coord(columnarReader.getX(i),
+								columnarReader.getY(i))));
+			}
+		}
+		initTime = columnarReader.getLastTimeStamp();
+	}
+
 	/** 
 	 * Copy constructor. Gives out location data for the new node from 
 	 * location queue.
@@ -106,7 +142,7 @@ public class ExternalMovement extends MovementModel {
 	private ExternalMovement(MovementModel mm) {
 		super(mm);
 		
-		pathQueue = new LinkedList<Tuple<Double, Path>>();
+		pathQueue = new ArrayDeque<Tuple<Double, Path>>();
 		latestPath = null;
 		
 		if (initLocations.size() > 0) { // we have location data left
@@ -158,13 +194,15 @@ public class ExternalMovement extends MovementModel {
 	 * Adds a new location with a time to this model's move pattern. If the
 	 * node stayed stationary during the update, the current path is put to the
 	 * queue and a new path is started once the node starts moving.
-	 * @param loc The location
+	 * @param x The X coordinate of the location
+	 * @param y The Y coordinate of the location
 	 * @param time When should the node be there
 	 */
-	private void addLocation(Coord loc, double time) {
+	private void addLocation(double x, double y, double time) {
 		assert samplingInterval > 0 : "Non-positive sampling interval!";
 		
-		if (loc.equals(latestLocation)) { // node didn't move
+		if (x == latestLocation.getX() && y == latestLocation.getY()) {
+			// node didn't move
 			if (latestPath != null) {
 				// constructing path -> end constructing and put it in the queue
 				pathQueue.add(new Tuple<Double, Path>
@@ -179,7 +217,8 @@ public class ExternalMovement extends MovementModel {
 		if (latestPath == null) {
 			latestPath = new Path();			
 		}
-			
+		
+		Coord loc = new Coord(x, y);
 		double speed = loc.distance(this.latestLocation) / samplingInterval;		
 		latestPath.addWaypoint(loc, speed);
 
@@ -223,11 +262,19 @@ public class ExternalMovement extends MovementModel {
 	
 	@Override
 	public int getMaxX() {
+		if (columnarReader != null) {
+			return (int)(columnarReader.getMaxX() -
+					columnarReader.getMinX()) + 1;
+		}
 		return (int)(reader.getMaxX() - reader.getMinX()) + 1;
 	}
 
 	@Override
 	public int getMaxY() {
+		if (columnarReader != null) {
+			return (int)(columnarReader.getMaxY() -
+					columnarReader.getMinY()) + 1;
+		}
 		return (int)(reader.getMaxY() - reader.getMinY()) + 1;
 	}
 
@@ -243,6 +290,9 @@ public class ExternalMovement extends MovementModel {
 	 * were read.
 	 */
 	private static double readMorePaths() {
+		if (columnarReader != null) {
+			return readMoreColumnarPaths();
+		}
 		List<Tuple<String, Coord>> list = reader.readNextMovements();
 		double time = reader.getLastTimeStamp();
 		
@@ -254,7 +304,7 @@ public class ExternalMovement extends MovementModel {
 			ExternalMovement em = idMapping.get(t.getKey());
 			if (em != null) { // skip unknown IDs, i.e. IDs not mentioned in...
 				// ...init phase or if there are more IDs than nodes
-				em.addLocation(t.getValue(), time);
+				em.addLocation(t.getValue().getX(), t.getValue().getY(), time);
 			}
 		}
 		
@@ -266,11 +316,47 @@ public class ExternalMovement extends MovementModel {
 		}
 	}
 	
+	/**
+	 * Reads paths for the next time instance from the columnar reader
+	 * @return The time stamp of the reading or Double.NaN if no movements
+	 * were read.
+	 */
+	private static double readMoreColumnarPaths() {
+		boolean read = columnarReader.nextInstant();
+		double time = columnarReader.getLastTimeStamp();
+
+		if (samplingInterval == -1) {
+			samplingInterval = time - initTime;
+		}
+		if (!read) {
+			return Double.NaN;
+		}
+
+		for (int i = 0, n = columnarReader.getNrofSamples(); i < n; i++) {
+			int idIndex = columnarReader.getIdIndex(i);
+			if (!columnarModelsResolved[idIndex]) {
+				columnarModels[idIndex] =
+					idMapping.get(columnarReader.getId(idIndex));
+				columnarModelsResolved[idIndex] = true;
+			}
+			ExternalMovement em = columnarModels[idIndex];
+			if (em != null) { // skip unknown IDs (see readMorePaths)
+				em.addLocation(columnarReader.getX(i), columnarReader.getY(i),
+						time);
+			}
+		}
+		return time;
+	}
+
 	/**
 	 * Reset state so that next instance will have a fresh state
 	 */
 	public static void reset() {
 		idMapping = null;
+		if (columnarReader != null) {
+			columnarReader.close();
+			columnarReader = null;
+		}
 	}
 
 }
@@ -144,6 +144,11 @@ public class MapRouteMovement extends MapBasedMovement implements
 	}
 	
 	
+	@Override
+	public double getMaxSpeed() {
+		return maxSpeed; // paths use generateSpeed()
+	}
+
 	@Override
 	public MapRouteMovement replicate() {
 		return new MapRouteMovement(this);
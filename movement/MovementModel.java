@@ -155,6 +155,42 @@ public abstract class MovementModel {
 		this.comBus = null;
 	}
 		
+	/**
+	 * Returns an upper bound for the speeds of the paths this model returns.
+	 * Models whose paths only use {@link #generateSpeed()} can return the
+	 * maximum of the {@link #SPEED} setting.
+	 * @return The maximum speed or Double.POSITIVE_INFINITY if not known
+	 */
+	public double getMaxSpeed() {
+		return Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Returns true if the nodes using this model never move from their
+	 * initial location (and never ask for a path)
+	 * @return true if the model is static
+	 */
+	public boolean isStatic() {
+		return false;
+	}
+
+	/**
+	 * Returns true if the node has active times (i.e. it isn't always active)
+	 * @return true if the node has active times
+	 */
+	public boolean hasActiveTimes() {
+		return ah.hasActiveTimes();
+	}
+
+	/**
+	 * Returns the movement area the model is restricted to (the
+	 * {@link #MOVEAREA} setting)
+	 * @return The movement area or 0 if no area is defined
+	 */
+	public int getMoveArea() {
+		return this.moveArea;
+	}
+
 	/**
 	 * Returns the largest X coordinate value this model uses
 	 * @return Maximum of X coordinate values
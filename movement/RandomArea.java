@@ -59,6 +59,11 @@ public class RandomArea extends MovementModel {
         return p;
     }
 
+    @Override
+    public double getMaxSpeed() {
+        return maxSpeed; // paths use generateSpeed()
+    }
+
     @Override
     public RandomArea replicate() {
         return new RandomArea(this);
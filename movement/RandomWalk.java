@@ -76,6 +76,11 @@ public class RandomWalk extends MovementModel implements SwitchableMovement {
 		return p;
 	}
 	
+	@Override
+	public double getMaxSpeed() {
+		return maxSpeed; // paths use generateSpeed()
+	}
+
 	@Override
 	public RandomWalk replicate() {
 		return new RandomWalk(this);
@@ -65,6 +65,11 @@ public class ShortestPathMapBasedMovement extends MapBasedMovement implements
 		return p;
 	}	
 	
+	@Override
+	public double getMaxSpeed() {
+		return maxSpeed; // paths use generateSpeed()
+	}
+
 	@Override
 	public ShortestPathMapBasedMovement replicate() {
 		return new ShortestPathMapBasedMovement(this);
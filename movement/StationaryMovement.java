@@ -62,6 +62,16 @@ public class StationaryMovement extends MovementModel {
 		return Double.MAX_VALUE;	// no new paths available
 	}
 	
+	@Override
+	public boolean isStatic() {
+		return true;
+	}
+
+	@Override
+	public double getMaxSpeed() {
+		return 0; // never moves
+	}
+
 	@Override
 	public StationaryMovement replicate() {
 		return new StationaryMovement(this);
@@ -9,7 +9,10 @@ package report;
  * <p>
  * <Simulation time> <average buffer occupancy % [0..100]> <variance>
  * </p>
- * 
+ * If the routers keep an occupancy history (see
+ * {@link routing.MessageRouter#OCCUPANCY_HISTORY_S}), the occupancy of each
+ * host is its time weighted average since the previous snapshot instead of
+ * the occupancy at the time of the snapshot.
  * 
  */
 import java.util.*;
@@ -22,6 +25,8 @@ import core.MessageListener;
 import core.Settings;
 import core.SimClock;
 import core.UpdateListener;
+import routing.MessageRouter;
+import routing.OccupancyHistory;
 
 public class BufferOccupancyReport extends Report implements UpdateListener {
 	/**
@@ -61,8 +66,9 @@ public class BufferOccupancyReport extends Report implements UpdateListener {
 		}
 		
 		if (SimClock.getTime() - lastRecord >= interval) {
+			double previous = lastRecord;
 			lastRecord = SimClock.getTime();
-			printLine(hosts);
+			printLine(hosts, previous);
 			updateCounter++; // new added
 		}
 			/**
@@ -81,15 +87,16 @@ public class BufferOccupancyReport extends Report implements UpdateListener {
 	/**
 	 * Prints a snapshot of the average buffer occupancy
 	 * @param hosts The list of hosts in the simulation
+	 * @param previous Time of the previous snapshot
 	 */
 	 
-	private void printLine(List<DTNHost> hosts) {
+	private void printLine(List<DTNHost> hosts, double previous) {
 		
 		double bufferOccupancy = 0.0;
 		double bo2 = 0.0;
 
 		for (DTNHost h : hosts) {
-			double tmp = h.getBufferOccupancy();
+			double tmp = getOccupancy(h, previous);
 			tmp = (tmp<=100.0)?(tmp):(100.0);
 			bufferOccupancy += tmp;
 			bo2 += (tmp*tmp)/100.0;
@@ -118,6 +125,24 @@ public class BufferOccupancyReport extends Report implements UpdateListener {
 //		}
 	}
 		
+	/**
+	 * Returns the buffer occupancy of a host: the average since the given
+	 * time if the host's router keeps an occupancy history or the current
+	 * occupancy if not
+	 * @param h The host
+	 * @param since Start of the averaging period
+	 * @return The buffer occupancy % of the host
+	 */
+	private double getOccupancy(DTNHost h, double since) {
+		MessageRouter router = h.getRouter();
+		OccupancyHistory history = router.getOccupancyHistory();
+		if (history == null || router.getBufferSize() == Integer.MAX_VALUE) {
+			return h.getBufferOccupancy();
+		}
+		return 100 * history.getAverage(since, SimClock.getTime()) /
+			router.getBufferSize();
+	}
+		
 	@Override
 	public void done()
 	{
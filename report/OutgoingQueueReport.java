@@ -0,0 +1,43 @@
+/* 
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details. 
+ */
+package report;
+
+import routing.DecisionEngineRouter;
+
+/**
+ * Reports the outgoing queue and decision engine statistics of the
+ * contacts of {@link DecisionEngineRouter}s: how many message-connection
+ * tuples were queued and how many times the decision engine was asked
+ * whether to send a message, per contact and at most. Contacts are counted
+ * separately for both hosts of a connection, and only the contacts that
+ * ended before the end of the simulation are included. The report is
+ * written when the simulation ends.
+ */
+public class OutgoingQueueReport extends Report {
+
+	/**
+	 * Constructor.
+	 */
+	public OutgoingQueueReport() {
+		init();
+	}
+
+	@Override
+	public void done() {
+		long contacts = DecisionEngineRouter.getNrofContacts();
+		write("Outgoing queue stats for scenario " + getScenarioName() +
+				"\nsim_time: " + format(getSimTime()));
+		write("contacts: " + contacts);
+		write("queued: " + DecisionEngineRouter.getNrofQueued());
+		write("queued_per_contact: " + format(contacts == 0 ? 0 :
+				(double)DecisionEngineRouter.getNrofQueued() / contacts));
+		write("max_queue_length: " + DecisionEngineRouter.getMaxQueueLength());
+		write("decisions: " + DecisionEngineRouter.getNrofDecisions());
+		write("decisions_per_contact: " + format(contacts == 0 ? 0 :
+				(double)DecisionEngineRouter.getNrofDecisions() / contacts));
+		write("max_decisions: " + DecisionEngineRouter.getMaxDecisions());
+		super.done();
+	}
+}
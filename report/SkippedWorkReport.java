@@ -0,0 +1,40 @@
+/* 
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details. 
+ */
+package report;
+
+import core.NetworkInterface;
+import core.SimScenario;
+import core.World;
+
+/**
+ * Reports how much movement and connectivity work was skipped during the
+ * run because hosts were static (see the <code>staticFastPath</code>
+ * setting of {@link World}) or no contacts could change (see the
+ * <code>contactPrediction</code> setting). The report is written when the
+ * simulation ends.
+ */
+public class SkippedWorkReport extends Report {
+
+	/**
+	 * Constructor.
+	 */
+	public SkippedWorkReport() {
+		init();
+	}
+
+	@Override
+	public void done() {
+		World world = SimScenario.getInstance().getWorld();
+		write("Skipped work for scenario " + getScenarioName() +
+				"\nsim_time: " + format(getSimTime()));
+		write("static_hosts: " + world.getNrofStaticHosts());
+		write("skipped_moves: " + world.getNrofSkippedMoves());
+		write("skipped_location_updates: " +
+				NetworkInterface.getNrofSkippedLocationUpdates());
+		write("skipped_connection_checks: " +
+				NetworkInterface.getNrofSkippedContactChecks());
+		super.done();
+	}
+}
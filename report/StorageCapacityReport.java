@@ -9,7 +9,10 @@ package report;
  * <p>
  * <Simulation time> <average buffer occupancy % [0..100]> <variance>
  * </p>
- *
+ * If the routers keep an occupancy history (see
+ * {@link routing.MessageRouter#OCCUPANCY_HISTORY_S}), every storage sample
+ * is followed by the peak message buffer occupancy (bytes) since the
+ * previous sample.
  *
  */
 import java.util.*;
@@ -22,6 +25,7 @@ import core.MessageListener;
 import core.Settings;
 import core.SimClock;
 import core.UpdateListener;
+import routing.OccupancyHistory;
 
 public class StorageCapacityReport extends Report implements UpdateListener {
 
@@ -39,6 +43,7 @@ public class StorageCapacityReport extends Report implements UpdateListener {
     private double lastRecord = Double.MIN_VALUE;
     private int interval;
     private Map<DTNHost, List<Integer>> usageStorage = new HashMap<>();
+    private Map<DTNHost, List<Long>> bufferPeaks = new HashMap<>();
     private int updateCounter = 0;  //new added
 
     public StorageCapacityReport() {
@@ -64,6 +69,7 @@ public class StorageCapacityReport extends Report implements UpdateListener {
         }
         if (SimClock.getTime() - lastRecord >= interval) {
 
+            double previous = lastRecord;
             lastRecord = SimClock.getTime();
             for (DTNHost ho : hosts) {
 
@@ -75,6 +81,14 @@ public class StorageCapacityReport extends Report implements UpdateListener {
                         temp.add(ho.getStorage());
                         usageStorage.put(ho, temp);
                     }
+                    OccupancyHistory history
+                            = ho.getRouter().getOccupancyHistory();
+                    if (history != null) {
+                        if (!bufferPeaks.containsKey(ho)) {
+                            bufferPeaks.put(ho, new ArrayList<>());
+                        }
+                        bufferPeaks.get(ho).add(history.getPeak(previous));
+                    }
 //                    String temp;
 //                    temp = "Node : " +ho.getName()+"------Waktu = " + SimClock.getTime() + "-----Storage Capacity = " + ho.getStorage() + "/" + ho.getStorageCapacity();
 //                    write(temp);
@@ -94,11 +108,16 @@ public class StorageCapacityReport extends Report implements UpdateListener {
         for (Map.Entry<DTNHost, List<Integer>> entry : usageStorage.entrySet()) {
             DTNHost host = entry.getKey();
             List<Integer> temp = entry.getValue();
+            List<Long> peaks = bufferPeaks.get(host);
             System.out.println("Cek");
             String output = host + " ";
             write(output);
-            for (Integer integer : temp) {
-                write(String.valueOf(integer));
+            for (int i = 0; i < temp.size(); i++) {
+                if (peaks != null) {
+                    write(temp.get(i) + " " + peaks.get(i));
+                } else {
+                    write(String.valueOf(temp.get(i)));
+                }
             }
 }
 
@@ -0,0 +1,170 @@
+/* 
+ * 
+ * 
+ */
+package report;
+
+import Blockchain.Mempool;
+import core.DTNHost;
+import core.Settings;
+import core.SimClock;
+import core.UpdateListener;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reports the throughput of the transaction relay stages (operator proxy,
+ * home, collector, internet and admin). Every interval a line is written
+ * for each stage with format:
+ * <p>
+ * &lt;Simulation time&gt; &lt;stage&gt; &lt;batches/s&gt;
+ * &lt;transactions/s&gt; &lt;queue depth (packets)&gt; &lt;duplicates/s&gt;
+ * </p>
+ * The rates are the batches and transactions accepted by the hosts of the
+ * stage during the interval, the queue depth is the number of packets
+ * waiting at the hosts of the stage and the duplicates are received
+ * transactions that the hosts already had. Operator proxies receive single
+ * transactions instead of batches, so their batch rate is always zero.
+ * The totals written at the end of the simulation include everything
+ * accepted after the last interval.
+ */
+public class TransactionPipelineReport extends Report implements UpdateListener {
+
+    /**
+     * Record throughput every nth second -setting id ({@value}). Defines the
+     * interval how often (seconds) a new snapshot is taken
+     */
+    public static final String PIPELINE_REPORT_INTERVAL = "pipelineInterval";
+    /**
+     * Default value for the snapshot interval
+     */
+    public static final int DEFAULT_PIPELINE_REPORT_INTERVAL = 60;
+
+    /**
+     * Host name prefixes of the stages, in pipeline order
+     */
+    private static final String[] STAGES = {"ope", "hom", "col", "inter", "adm"};
+
+    private double lastRecord = Double.MIN_VALUE;
+    private int interval;
+    private long[] lastBatches = new long[STAGES.length];
+    private long[] lastTransactions = new long[STAGES.length];
+    private long[] lastDuplicates = new long[STAGES.length];
+    private long[] totalBatches = new long[STAGES.length];
+    private long[] totalTransactions = new long[STAGES.length];
+    private long[] totalDuplicates = new long[STAGES.length];
+    private int[] maxDepth = new int[STAGES.length];
+    /** hosts of the latest update, for the final totals */
+    private List<DTNHost> hosts;
+
+    public TransactionPipelineReport() {
+        super();
+
+        Settings settings = getSettings();
+        if (settings.contains(PIPELINE_REPORT_INTERVAL)) {
+            interval = settings.getInt(PIPELINE_REPORT_INTERVAL);
+        } else {
+            interval = -1;
+            /* not found; use default */
+        }
+
+        if (interval <= 0) {
+            /* not found or invalid value -> use default */
+            interval = DEFAULT_PIPELINE_REPORT_INTERVAL;
+        }
+    }
+
+    public void updated(List<DTNHost> hosts) {
+        if (isWarmup()) {
+            return;
+        }
+        this.hosts = hosts;
+        if (lastRecord == Double.MIN_VALUE) {
+            lastRecord = SimClock.getTime();
+            return;
+        }
+        if (SimClock.getTime() - lastRecord >= interval) {
+            printLines(hosts, SimClock.getTime() - lastRecord);
+            lastRecord = SimClock.getTime();
+        }
+    }
+
+    /**
+     * Prints a snapshot of each stage
+     *
+     * @param hosts The list of hosts in the simulation
+     * @param elapsed Time since the previous snapshot
+     */
+    private void printLines(List<DTNHost> hosts, double elapsed) {
+        int[] depth = updateTotals(hosts);
+
+        for (int i = 0; i < STAGES.length; i++) {
+            long newBatches = totalBatches[i] - lastBatches[i];
+            long newTransactions = totalTransactions[i] - lastTransactions[i];
+            long newDuplicates = totalDuplicates[i] - lastDuplicates[i];
+            lastBatches[i] = totalBatches[i];
+            lastTransactions[i] = totalTransactions[i];
+            lastDuplicates[i] = totalDuplicates[i];
+
+            write(format(SimClock.getTime()) + " " + STAGES[i] + " "
+                    + format(newBatches / elapsed) + " "
+                    + format(newTransactions / elapsed) + " " + depth[i] + " "
+                    + format(newDuplicates / elapsed));
+        }
+    }
+
+    /**
+     * Sums the counters of the hosts of each stage into the totals and
+     * updates the maximum queue depths
+     *
+     * @param hosts The list of hosts in the simulation
+     * @return The current queue depth of each stage
+     */
+    private int[] updateTotals(List<DTNHost> hosts) {
+        int[] depth = new int[STAGES.length];
+        Arrays.fill(totalBatches, 0);
+        Arrays.fill(totalTransactions, 0);
+        Arrays.fill(totalDuplicates, 0);
+
+        for (DTNHost h : hosts) {
+            int stage = getStage(h);
+            Mempool pool = h.getMempool();
+            if (stage < 0 || pool == null) {
+                continue;
+            }
+            totalBatches[stage] += pool.getNrofBatchesAccepted();
+            totalTransactions[stage] += pool.getNrofTransactionsAccepted();
+            totalDuplicates[stage] += pool.getNrofDuplicatesRejected();
+            depth[stage] += pool.size();
+        }
+
+        for (int i = 0; i < STAGES.length; i++) {
+            maxDepth[i] = Math.max(maxDepth[i], depth[i]);
+        }
+        return depth;
+    }
+
+    private int getStage(DTNHost host) {
+        for (int i = 0; i < STAGES.length; i++) {
+            if (host.toString().startsWith(STAGES[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void done() {
+        if (hosts != null) {
+            updateTotals(hosts);
+        }
+        write("Totals: <stage> <batches> <transactions> <max queue depth> "
+                + "<duplicates>");
+        for (int i = 0; i < STAGES.length; i++) {
+            write(STAGES[i] + " " + totalBatches[i] + " "
+                    + totalTransactions[i] + " " + maxDepth[i] + " "
+                    + totalDuplicates[i]);
+        }
+        super.done();
+    }
+}
@@ -91,12 +91,10 @@ public abstract class ActiveRouter extends MessageRouter {
 		/* do a copy to avoid concurrent modification exceptions 
 		 * (startTransfer may remove messages) */
 		ArrayList<Message> temp = 
-			new ArrayList<Message>(this.getMessageCollection());
+			new ArrayList<Message>(this.getMessagesTo(other));
 		for (Message m : temp) {
-			if (other == m.getTo()) {
-				if (startTransfer(m, con) == RCV_OK) {
-					return true;
-				}
+			if (startTransfer(m, con) == RCV_OK) {
+				return true;
 			}
 		}
 		return false;
@@ -259,6 +257,12 @@ public abstract class ActiveRouter extends MessageRouter {
 	 * Drops messages whose TTL is less than zero.
 	 */
 	protected void dropExpiredMessages() {
+		if (hasIndexedBuffer()) {
+			for (Message m : getExpiredMessages()) {
+				deleteMessage(m.getId(), true);
+			}
+			return;
+		}
 		Message[] messages = getMessageCollection().toArray(new Message[0]);
 		for (int i=0; i<messages.length; i++) {
 			int ttl = messages[i].getTtl(); 
@@ -291,6 +295,15 @@ public abstract class ActiveRouter extends MessageRouter {
 	 * exludeMsgBeingSent is true)
 	 */
 	protected Message getOldestMessage(boolean excludeMsgBeingSent) {
+		if (hasIndexedBuffer()) {
+			for (Message m : getMessagesByReceiveTime()) {
+				if (!(excludeMsgBeingSent && isSending(m.getId()))) {
+					return m;
+				}
+			}
+			return null;
+		}
+
 		Collection<Message> messages = this.getMessageCollection();
 		Message oldest = null;
 		for (Message m : messages) {
@@ -312,7 +325,9 @@ public abstract class ActiveRouter extends MessageRouter {
 	
 	/**
 	 * Returns a list of message-connections tuples of the messages whose
-	 * recipient is some host that we're connected to at the moment.
+	 * recipient is some host that we're connected to at the moment. The
+	 * messages are looked up by their destination, so the tuples are in
+	 * connection order.
 	 * @return a list of message-connections tuples
 	 */
 	protected List<Tuple<Message, Connection>> getMessagesForConnected() {
@@ -323,12 +338,10 @@ public abstract class ActiveRouter extends MessageRouter {
 
 		List<Tuple<Message, Connection>> forTuples = 
 			new ArrayList<Tuple<Message, Connection>>();
-		for (Message m : getMessageCollection()) {
-			for (Connection con : getConnections()) {
-				DTNHost to = con.getOtherNode(getHost());
-				if (m.getTo() == to) {
-					forTuples.add(new Tuple<Message, Connection>(m,con));
-				}
+		for (Connection con : getConnections()) {
+			DTNHost to = con.getOtherNode(getHost());
+			for (Message m : getMessagesTo(to)) {
+				forTuples.add(new Tuple<Message, Connection>(m,con));
 			}
 		}
 		
@@ -344,7 +357,7 @@ public abstract class ActiveRouter extends MessageRouter {
 	 * none of the connections accepted the message that was meant for them.
 	 */
 	protected Tuple<Message, Connection> tryMessagesForConnected(
-			List<Tuple<Message, Connection>> tuples) {
+			Collection<Tuple<Message, Connection>> tuples) {
 		if (tuples.size() == 0) {
 			return null;
 		}
@@ -423,9 +436,7 @@ public abstract class ActiveRouter extends MessageRouter {
 			return null;
 		}
 
-		List<Message> messages = 
-			new ArrayList<Message>(this.getMessageCollection());
-		this.sortByQueueMode(messages);
+		List<Message> messages = getMessagesInQueueOrder();
 
 		return tryMessagesToConnections(messages, connections);
 	}
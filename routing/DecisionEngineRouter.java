@@ -89,7 +89,7 @@ public class DecisionEngineRouter extends ActiveRouter {
 
     protected boolean tombstoning;
     protected RoutingDecisionEngine decider;
-    protected List<Tuple<Message, Connection>> outgoingMessages;
+    protected OutgoingQueue outgoingMessages;
 
     protected Set<String> tombstones;
 
@@ -99,12 +99,26 @@ public class DecisionEngineRouter extends ActiveRouter {
      */
     protected Map<Connection, Integer> conStates;
 
+    /**
+     * Outgoing queue and decision engine statistics of the ended contacts
+     */
+    private static long nrofContacts;
+    private static long nrofQueued;
+    private static long nrofDecisions;
+    private static int maxQueueLength;
+    private static int maxDecisions;
+
+    static {
+        DTNSim.registerForReset(DecisionEngineRouter.class.getCanonicalName());
+        reset();
+    }
+
     public DecisionEngineRouter(Settings s) {
         super(s);
 
         Settings routeSettings = new Settings(PUBSUB_NS);
 
-        outgoingMessages = new LinkedList<Tuple<Message, Connection>>();
+        outgoingMessages = new OutgoingQueue();
 
         decider = (RoutingDecisionEngine) routeSettings.createIntializedObject(
                 "routing." + routeSettings.getSetting(ENGINE_SETTING));
@@ -123,7 +137,7 @@ public class DecisionEngineRouter extends ActiveRouter {
 
     public DecisionEngineRouter(DecisionEngineRouter r) {
         super(r);
-        outgoingMessages = new LinkedList<Tuple<Message, Connection>>();
+        outgoingMessages = new OutgoingQueue();
         decider = r.decider.replicate();
         tombstoning = r.tombstoning;
 
@@ -259,8 +273,9 @@ public class DecisionEngineRouter extends ActiveRouter {
              */
             Collection<Message> msgs = getMessageCollection();
             for (Message m : msgs) {
+                outgoingMessages.countDecision(con);
                 if (decider.shouldSendMessageToHost(m, otherNode, this.getHost())) {
-                    outgoingMessages.add(new Tuple<Message, Connection>(m, con));
+                    outgoingMessages.add(m, con);
                 }
             }
         } else {
@@ -272,13 +287,7 @@ public class DecisionEngineRouter extends ActiveRouter {
 * If we  were trying to send message to this peer, we need to remove them
 * from the outgoing List.
              */
-            for (Iterator<Tuple<Message, Connection>> i = outgoingMessages.iterator();
-                    i.hasNext();) {
-                Tuple<Message, Connection> t = i.next();
-                if (t.getValue() == con) {
-                    i.remove();
-                }
-            }
+            contactEnded(outgoingMessages.removeConnection(con));
         }
     }
 
@@ -384,15 +393,7 @@ public class DecisionEngineRouter extends ActiveRouter {
     protected void transferDone(Connection con) {
         Message transferred = this.getMessage(con.getMessage().getId());
 
-        for (Iterator<Tuple<Message, Connection>> i = outgoingMessages.iterator();
-                i.hasNext();) {
-            Tuple<Message, Connection> t = i.next();
-            if (t.getKey().getId().equals(transferred.getId())
-                    && t.getValue().equals(con)) {
-                i.remove();
-                break;
-            }
-        }
+        outgoingMessages.remove(transferred.getId(), con);
 
         if (decider.shouldDeleteSentMessage(transferred, con.getOtherNode(getHost()))) {
 // if(transferred.getId().equals("M14"))
@@ -415,13 +416,7 @@ public class DecisionEngineRouter extends ActiveRouter {
     public void deleteMessage(String id, boolean drop) {
         super.deleteMessage(id, drop);
 
-        for (Iterator<Tuple<Message, Connection>> i = outgoingMessages.iterator();
-                i.hasNext();) {
-            Tuple<Message, Connection> t = i.next();
-            if (t.getKey().getId().equals(id)) {
-                i.remove();
-            }
-        }
+        outgoingMessages.removeMessage(id);
     }
 
     @Override
@@ -434,15 +429,9 @@ public class DecisionEngineRouter extends ActiveRouter {
             return; // nothing to transfer or is currently transferring
         }
 
+        /* messages leave the buffer only through deleteMessage(), which
+         * also removes them from the outgoing queue */
         tryMessagesForConnected(outgoingMessages);
-
-        for (Iterator<Tuple<Message, Connection>> i = outgoingMessages.iterator();
-                i.hasNext();) {
-            Tuple<Message, Connection> t = i.next();
-            if (!this.hasMessage(t.getKey().getId())) {
-                i.remove();
-            }
-        }
     }
 
     public RoutingDecisionEngine getDecisionEngine() {
@@ -458,11 +447,92 @@ public class DecisionEngineRouter extends ActiveRouter {
 // for(Connection c : getHost())
         for (Connection c : getConnections()) {
             DTNHost other = c.getOtherNode(getHost());
-            if (other != from && decider.shouldSendMessageToHost(m, other, this.getHost())) {
+            if (other == from) {
+                continue;
+            }
+            outgoingMessages.countDecision(c);
+            if (decider.shouldSendMessageToHost(m, other, this.getHost())) {
 // if(m.getId().equals("M14"))
 // System.out.println("Adding attempt for M14 from: " + getHost() + " to: " + other);
-                outgoingMessages.add(new Tuple<Message, Connection>(m, c));
+                outgoingMessages.add(m, c);
             }
         }
     }
+
+    /**
+     * Adds the outgoing queue statistics of an ended contact to the totals
+     *
+     * @param stats Statistics of the contact's connection or null if
+     * nothing was queued or decided for it
+     */
+    private static void contactEnded(OutgoingQueue.ConnectionQueue stats) {
+        nrofContacts++;
+        if (stats == null) {
+            return;
+        }
+        nrofQueued += stats.getNrofAdded();
+        nrofDecisions += stats.getNrofDecisions();
+        maxQueueLength = Math.max(maxQueueLength, stats.getPeakLength());
+        maxDecisions = Math.max(maxDecisions, stats.getNrofDecisions());
+    }
+
+    /**
+     * Returns the number of ended contacts (counted separately for both
+     * hosts of a connection)
+     *
+     * @return The number of contacts
+     */
+    public static long getNrofContacts() {
+        return nrofContacts;
+    }
+
+    /**
+     * Returns the number of message-connection tuples queued during the
+     * ended contacts
+     *
+     * @return The number of queued tuples
+     */
+    public static long getNrofQueued() {
+        return nrofQueued;
+    }
+
+    /**
+     * Returns the number of decision engine shouldSendMessageToHost calls
+     * made for the ended contacts
+     *
+     * @return The number of decision engine calls
+     */
+    public static long getNrofDecisions() {
+        return nrofDecisions;
+    }
+
+    /**
+     * Returns the longest outgoing queue a single contact had
+     *
+     * @return The peak queue length of a contact
+     */
+    public static int getMaxQueueLength() {
+        return maxQueueLength;
+    }
+
+    /**
+     * Returns the largest number of decision engine calls made for a single
+     * contact
+     *
+     * @return The peak number of decision engine calls of a contact
+     */
+    public static int getMaxDecisions() {
+        return maxDecisions;
+    }
+
+    /**
+     * Resets the contact statistics
+     */
+    public static void reset() {
+        nrofContacts = 0;
+        nrofQueued = 0;
+        nrofDecisions = 0;
+        maxQueueLength = 0;
+        maxDecisions = 0;
+    }
 }
@@ -2,6 +2,8 @@ package routing;
 
 import Blockchain.Block;
 import Blockchain.Blockchain;
+import Blockchain.Mempool;
+import Blockchain.SignatureVerifier;
 import Blockchain.Transaction;
 import core.Connection;
 import core.DTNHost;
@@ -9,6 +11,7 @@ import core.Message;
 import core.Settings;
 import core.SimClock;
 import core.SimScenario;
+import input.TransactionCreateEvent;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -144,10 +147,9 @@ public class EpidemicDecisionRouterBlockchain implements RoutingDecisionEngine {
         if (isOperatorProxy(host) && isHome(peer)) {
             if (!peer.getVisitedOperatorProxy().contains(host)) {
                 System.out.println(host + " datang ke Home!");
-                peer.getTrxHome().addAll(host.getTrx());
+                peer.getTrxHome().accept(host.getTrx().handOff());
 
                 peer.getVisitedOperatorProxy().add(host);
-                host.getTrx().clear();
 
                 System.out.println("Home sudah menerima Transaksi!");
                 System.out.println("Jumlah Grouped Transaction: " + peer.getTrxHome().size());
@@ -155,28 +157,26 @@ public class EpidemicDecisionRouterBlockchain implements RoutingDecisionEngine {
         }
         if (isHome(host) && isCollector(peer)) {
             if (host.getVisitedOperatorProxy().size() == 8 && peer.getTrxCol().isEmpty()) {
-                peer.getTrxCol().addAll(host.getTrxHome());
+                peer.getTrxCol().accept(host.getTrxHome().handOff());
 
                 if (!peer.getTrxCol().isEmpty()) {
                     System.out.println("Collector sudah menerima trx, size: " + peer.getTrxCol().size());
                     System.out.println("Difficulty : "+SimScenario.getInstance().getDifficulty());
                 }
-                host.getTrxHome().clear();
             }
         }
         if (isCollector(host) && isInternet(peer)) {
             if (peer.getTrxInter().isEmpty()) {
-                peer.getTrxInter().addAll(host.getTrxCol());
+                peer.getTrxInter().accept(host.getTrxCol().handOff());
 
                 if (!peer.getTrxInter().isEmpty()) {
                     System.out.println("Internet sudah menerima trx, size: " + peer.getTrxInter().size());
                 }
-                host.getTrxCol().clear();
             }
         }
         if (isInternet(host) && isAdmin(peer)) {
             if (peer.getTrxAdmin().isEmpty() && !(peer.isStartedAppending())) {
-                peer.getTrxAdmin().addAll(host.getTrxInter());
+                peer.getTrxAdmin().accept(host.getTrxInter().handOff());
                 if (!peer.getTrxAdmin().isEmpty()) {
                     System.out.println("Admin sudah menerima trx, size: " + peer.getTrxAdmin().size());
                     System.out.println("Memulai proses mining!!!");
@@ -191,7 +191,7 @@ public class EpidemicDecisionRouterBlockchain implements RoutingDecisionEngine {
 
             if (!host.getTrxAdmin().isEmpty() && host.getSelectedBlock() == null) {
 
-                List<List<Transaction>> trx = host.getTrxAdmin();
+                Mempool trx = host.getTrxAdmin();
                 Blockchain blockChain = host.getMainChain();
                 String previousHash = blockChain.getLatestBlock().getHash();
 
@@ -202,10 +202,10 @@ public class EpidemicDecisionRouterBlockchain implements RoutingDecisionEngine {
 
                         host.getVisitedMiner().add(peer);
 
-                        int indexBestTRX = getBestTranx(trx);
-                        List<Transaction> bestTransactionList = new ArrayList<>(trx.get(indexBestTRX));
-                        for (int i = 0; i < bestTransactionList.size(); i++) {
-                            if (!bestTransactionList.get(i).verifySignature()) {
+                        List<Transaction> bestTransactionList = new ArrayList<>(trx.peekBest().getTransactions());
+                        boolean[] valid = SignatureVerifier.getInstance().verifyAll(bestTransactionList);
+                        for (int i = valid.length - 1; i >= 0; i--) {
+                            if (!valid[i]) {
                                 System.out.println("Transaksi " + bestTransactionList.get(i).getTransactionHash() + " tidak valid!");
                                 bestTransactionList.remove(i);
                             }
@@ -216,12 +216,8 @@ public class EpidemicDecisionRouterBlockchain implements RoutingDecisionEngine {
                         b.setFee(getFee(bestTransactionList));
                         b.setMinedBy(peer);
 
-                        long begin = System.currentTimeMillis();
-
-                        b.mineBlock(blockChain.getDifficulty());
-
-                        long end = System.currentTimeMillis();
-                        long time = end - begin;
+                        long time = SimScenario.getInstance().getMiningEngine()
+                                .mine(b, blockChain.getDifficulty());
                         // System.out.println("Durasi : "+ time);
                         b.setIntervalMining(time);
 
@@ -233,8 +229,7 @@ public class EpidemicDecisionRouterBlockchain implements RoutingDecisionEngine {
 
                     host.getVisitedMiner().clear();
 
-                    int indexBestTRX = getBestTranx(trx);
-                    host.getTrxAdmin().remove(indexBestTRX);
+                    host.getTrxAdmin().pollBest();
 
                     int index = getBestMinedBlock(minedBlock);
 
@@ -297,6 +292,9 @@ public class EpidemicDecisionRouterBlockchain implements RoutingDecisionEngine {
                             //tambahkan selectedBlock ke dalam blockchain
                             mainChain.addBlock(new Block(selectedBlock));
                             System.out.println("Size blockchain : " + mainChain.getChain().size());
+                            if (!mainChain.isChainValid()) {
+                                System.out.println("Main chain tidak valid!");
+                            }
                             //reset v
                             host.setV(0);
 
@@ -387,29 +385,6 @@ public class EpidemicDecisionRouterBlockchain implements RoutingDecisionEngine {
         }
     }
 
-    /**
-     * Finds the index of the transaction list with the highest total amount.
-     *
-     * @param trx A list of transaction lists to be evaluated.
-     * @return The index of the transaction list with the highest total amount.
-     */
-    private int getBestTranx(List<List<Transaction>> trx) {
-        int index = -1;
-        double maxTotal = 0;
-        for (int i = 0; i < trx.size(); i++) {
-            double tempTotal = 0;
-            for (Transaction t : trx.get(i)) {
-                tempTotal += t.getAmount();
-            }
-
-            if (tempTotal > maxTotal) {
-                maxTotal = tempTotal;
-                index = i;
-            }
-        }
-        return index;
-    }
-
     /**
      * Calculates the total transaction fee based on a percentage of the total
      * transaction amount.
@@ -461,9 +436,9 @@ public class EpidemicDecisionRouterBlockchain implements RoutingDecisionEngine {
     @Override
     public boolean shouldSaveReceivedMessage(Message m, DTNHost thisHost) {
         if (isOperatorProxy(thisHost)) {
-            Transaction trx = (Transaction) m.getProperty("transaction");
-            if (trx != null&& counter < maxTrx) {
-                addTransactionToBuffer(thisHost, trx);
+            Transaction trx = m.getProperty(TransactionCreateEvent.TRANSACTION);
+            if (trx != null && counter < maxTrx
+                    && addTransactionToBuffer(thisHost, trx)) {
                 counter++;
             }
         }
@@ -471,8 +446,8 @@ public class EpidemicDecisionRouterBlockchain implements RoutingDecisionEngine {
         return !thisHost.getRouter().hasMessage(m.getId());
     }
 
-    private void addTransactionToBuffer(DTNHost host, Transaction trx) {
-        host.addTransactionToBuffer(trx);
+    private boolean addTransactionToBuffer(DTNHost host, Transaction trx) {
+        return host.addTransactionToBuffer(trx);
     }
 
     @Override
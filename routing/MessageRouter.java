@@ -4,6 +4,7 @@
  */
 package routing;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -46,9 +47,22 @@ public abstract class MessageRouter {
      * <UL>
      * <LI/> 1 : random (message order is randomized every time; default option)
      * <LI/> 2 : FIFO (most recently received messages are sent last)
+     * <LI/> 4 : indexed FIFO (like FIFO, but the buffer is kept ordered)
+     * <LI/> 5 : indexed TTL (messages with the most TTL left are sent first
+     * and the buffer is kept ordered)
      * </UL>
+     * With the indexed modes the buffer is a {@link MessageStore} that keeps
+     * the messages ordered by receive and TTL expiry time, so the oldest and
+     * expired messages are found without scanning the buffer. Messages with
+     * equal times are ordered by ID.
      */
     public static final String SEND_QUEUE_MODE_S = "sendQueue";
+    /**
+     * Buffer occupancy history size -setting id ({@value}). Integer value:
+     * how many occupancy changes are kept in the router's
+     * {@link OccupancyHistory}. Default is 0 (no history is kept).
+     */
+    public static final String OCCUPANCY_HISTORY_S = "occupancyHistorySize";
 
     /**
      *
@@ -69,6 +83,14 @@ public abstract class MessageRouter {
      * Setting value for FIFO queue mode
      */
     public static final int Q_MODE_TTL = 3;
+    /**
+     * Setting value for indexed FIFO queue mode
+     */
+    public static final int Q_MODE_INDEXED_FIFO = 4;
+    /**
+     * Setting value for indexed TTL queue mode
+     */
+    public static final int Q_MODE_INDEXED_TTL = 5;
     
     /**
      * Receive return value for OK
@@ -103,7 +125,7 @@ public abstract class MessageRouter {
     /**
      * The messages this router is carrying
      */
-    private HashMap<String, Message> messages;
+    private MessageStore messages;
     /**
      * The messages this router has received as the final recipient
      */
@@ -116,6 +138,22 @@ public abstract class MessageRouter {
      * size of the buffer
      */
     private int bufferSize;
+    /**
+     * total size (bytes) of the messages in the buffer
+     */
+    private long bufferOccupancy;
+    /**
+     * total size (bytes) of the messages being transferred to this router
+     */
+    private long incomingOccupancy;
+    /**
+     * number of buffer occupancy changes to keep in the history
+     */
+    private int occupancyHistorySize;
+    /**
+     * history of the buffer occupancy (null if not kept)
+     */
+    private OccupancyHistory occupancyHistory;
     /**
      * TTL for all messages
      */
@@ -155,9 +193,17 @@ public abstract class MessageRouter {
         if (s.contains(MSG_TTL_S)) {
             this.msgTtl = s.getInt(MSG_TTL_S);
         }
+        if (s.contains(OCCUPANCY_HISTORY_S)) {
+            this.occupancyHistorySize = s.getInt(OCCUPANCY_HISTORY_S);
+            if (occupancyHistorySize < 0) {
+                throw new SettingsError("Invalid value for "
+                        + s.getFullPropertyName(OCCUPANCY_HISTORY_S));
+            }
+        }
         if (s.contains(SEND_QUEUE_MODE_S)) {
             this.sendQueueMode = s.getInt(SEND_QUEUE_MODE_S);
-            if (sendQueueMode < 1 || sendQueueMode > 2) {
+            if (sendQueueMode < Q_MODE_RANDOM || sendQueueMode == Q_MODE_TTL
+                    || sendQueueMode > Q_MODE_INDEXED_TTL) {
                 throw new SettingsError("Invalid value for "
                         + s.getFullPropertyName(SEND_QUEUE_MODE_S));
             }
@@ -176,10 +222,15 @@ public abstract class MessageRouter {
      */
     public void init(DTNHost host, List<MessageListener> mListeners) {
         this.incomingMessages = new HashMap<String, Message>();
-        this.messages = new HashMap<String, Message>();
+        this.messages = new MessageStore(hasIndexedBuffer());
         this.deliveredMessages = new HashMap<String, Message>();
         this.mListeners = mListeners;
         this.host = host;
+        this.bufferOccupancy = 0;
+        this.incomingOccupancy = 0;
+        if (this.occupancyHistorySize > 0) {
+            this.occupancyHistory = new OccupancyHistory(occupancyHistorySize);
+        }
 //        Random rnd = new Random();
 //        for (int i = 0; i < 5; i++) {
 //            if (i > 0 && nodeList.contains(nodeList.get(i - 1))) {
@@ -199,6 +250,7 @@ public abstract class MessageRouter {
     protected MessageRouter(MessageRouter r) {
         this.bufferSize = r.bufferSize;
         this.msgTtl = r.msgTtl;
+        this.occupancyHistorySize = r.occupancyHistorySize;
         this.sendQueueMode = r.sendQueueMode;
         this.nodeSelfish = r.nodeSelfish;
         this.nodeList = r.nodeList;
@@ -284,6 +336,68 @@ public abstract class MessageRouter {
         return this.messages.size();
     }
 
+    /**
+     * Returns the buffered messages whose final recipient is the given host
+     *
+     * @param to The destination host
+     * @return A read-only view of the messages to the host
+     */
+    public Collection<Message> getMessagesTo(DTNHost to) {
+        return this.messages.getMessagesTo(to);
+    }
+
+    /**
+     * Returns true if the message buffer is indexed by receive and TTL
+     * expiry time (i.e. an indexed queue mode is in use)
+     *
+     * @return True if the buffer is indexed
+     */
+    protected boolean hasIndexedBuffer() {
+        return this.sendQueueMode == Q_MODE_INDEXED_FIFO
+                || this.sendQueueMode == Q_MODE_INDEXED_TTL;
+    }
+
+    /**
+     * Returns the messages of this router ordered by receive time, oldest
+     * first. Can be used only with an indexed buffer.
+     *
+     * @return A read-only view of the messages in receive time order
+     */
+    protected Collection<Message> getMessagesByReceiveTime() {
+        return this.messages.byReceiveTime();
+    }
+
+    /**
+     * Returns the messages whose TTL has run out, first expired first. Can
+     * be used only with an indexed buffer.
+     *
+     * @return The expired messages
+     */
+    protected List<Message> getExpiredMessages() {
+        return this.messages.getExpired();
+    }
+
+    /**
+     * Returns a new list of the messages of this router ordered according
+     * to the current sending queue mode. With the indexed modes the order
+     * is taken from the buffer's index instead of sorting.
+     *
+     * @return The messages in sending order
+     */
+    @SuppressWarnings(value = "unchecked")
+    protected List<Message> getMessagesInQueueOrder() {
+        switch (sendQueueMode) {
+            case Q_MODE_INDEXED_FIFO:
+                return new ArrayList<Message>(this.messages.byReceiveTime());
+            case Q_MODE_INDEXED_TTL:
+                return new ArrayList<Message>(
+                        this.messages.byExpiry().descendingSet());
+            default:
+                return sortByQueueMode(
+                        new ArrayList<Message>(getMessageCollection()));
+        }
+    }
+
     /**
      * Returns the size of the message buffer.
      *
@@ -302,17 +416,54 @@ public abstract class MessageRouter {
      * isn't defined)
      */
     public int getFreeBufferSize() {
-        int occupancy = 0;
-
         if (this.getBufferSize() == Integer.MAX_VALUE) {
             return Integer.MAX_VALUE;
         }
 
-        for (Message m : getMessageCollection()) {
-            occupancy += m.getSize();
-        }
+        return (int) (this.getBufferSize() - this.bufferOccupancy);
+    }
+
+    /**
+     * Returns the total size of the messages in the buffer
+     *
+     * @return The buffer occupancy (bytes)
+     */
+    public long getBufferOccupancy() {
+        return this.bufferOccupancy;
+    }
+
+    /**
+     * Returns the total size of the messages that are being transferred to
+     * this router
+     *
+     * @return The size of the incoming messages (bytes)
+     */
+    public long getIncomingOccupancy() {
+        return this.incomingOccupancy;
+    }
+
+    /**
+     * Returns the history of the buffer occupancy changes, if the router
+     * keeps one (see {@link #OCCUPANCY_HISTORY_S})
+     *
+     * @return The occupancy history or null if it isn't kept
+     */
+    public OccupancyHistory getOccupancyHistory() {
+        return this.occupancyHistory;
+    }
 
-        return this.getBufferSize() - occupancy;
+    /**
+     * Adds the given amount of bytes to the buffer occupancy and records the
+     * new occupancy to the history
+     *
+     * @param bytes The change in bytes (negative for removals)
+     */
+    private void changeBufferOccupancy(long bytes) {
+        this.bufferOccupancy += bytes;
+        if (this.occupancyHistory != null) {
+            this.occupancyHistory.record(SimClock.getTime(),
+                    this.bufferOccupancy);
+        }
     }
 
     /**
@@ -438,7 +589,12 @@ public abstract class MessageRouter {
      * @param from Who the message was from (previous hop).
      */
     protected void putToIncomingBuffer(Message m, DTNHost from) {
-        this.incomingMessages.put(m.getId() + "_" + from.toString(), m);
+        Message old = this.incomingMessages.put(m.getId() + "_"
+                + from.toString(), m);
+        this.incomingOccupancy += m.getSize();
+        if (old != null) {
+            this.incomingOccupancy -= old.getSize();
+        }
     }
 
     /**
@@ -450,7 +606,11 @@ public abstract class MessageRouter {
      * @return The found message or null if such message wasn't found
      */
     protected Message removeFromIncomingBuffer(String id, DTNHost from) {
-        return this.incomingMessages.remove(id + "_" + from.toString());
+        Message m = this.incomingMessages.remove(id + "_" + from.toString());
+        if (m != null) {
+            this.incomingOccupancy -= m.getSize();
+        }
+        return m;
     }
 
     /**
@@ -473,7 +633,9 @@ public abstract class MessageRouter {
      * message, if false, nothing is informed.
      */
     protected void addToMessages(Message m, boolean newMessage) {
-        this.messages.put(m.getId(), m);
+        Message old = this.messages.put(m);
+        changeBufferOccupancy(old == null ? m.getSize()
+                : m.getSize() - old.getSize());
 
         if (newMessage) {
             for (MessageListener ml : this.mListeners) {
@@ -490,6 +652,9 @@ public abstract class MessageRouter {
      */
     protected Message removeFromMessages(String id) {
         Message m = this.messages.remove(id);
+        if (m != null) {
+            changeBufferOccupancy(-m.getSize());
+        }
         return m;
     }
 
@@ -634,6 +799,27 @@ public abstract class MessageRouter {
                     }
                 });
                 break;
+            case Q_MODE_INDEXED_FIFO:
+            case Q_MODE_INDEXED_TTL:
+                Collections.sort(list,
+                        new Comparator() {
+                    /**
+                     * Compares two tuples by their messages' buffer order
+                     */
+                    public int compare(Object o1, Object o2) {
+                        if (o1 instanceof Tuple) {
+                            return compareByQueueMode(
+                                    ((Tuple<Message, Connection>) o1).getKey(),
+                                    ((Tuple<Message, Connection>) o2).getKey());
+                        } else if (o1 instanceof Message) {
+                            return compareByQueueMode((Message) o1,
+                                    (Message) o2);
+                        }
+                        throw new SimError("Invalid type of objects in "
+                                + "the list");
+                    }
+                });
+                break;
             /* add more queue modes here */
             default:
                 throw new SimError("Unknown queue mode " + sendQueueMode);
@@ -662,6 +848,10 @@ public abstract class MessageRouter {
                     return 0;
                 }
                 return (diff < 0 ? -1 : 1);
+            case Q_MODE_INDEXED_FIFO:
+                return MessageStore.RECEIVE_TIME_ORDER.compare(m1, m2);
+            case Q_MODE_INDEXED_TTL:
+                return MessageStore.EXPIRY_ORDER.compare(m2, m1);
             /* add more queue modes here */
             default:
                 throw new SimError("Unknown queue mode " + sendQueueMode);
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package routing;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+import core.DTNHost;
+import core.Message;
+
+/**
+ * Message buffer of a router. Messages are stored by their ID and, if the
+ * store is indexed, also kept ordered by their receive time and by the time
+ * their TTL runs out. The orderings make finding the oldest message, the
+ * expired messages and the messages in FIFO or TTL order O(log n) instead
+ * of scanning or sorting the whole buffer. Messages with equal keys are
+ * ordered by their IDs. All stores index the messages by their destination
+ * host, in insertion order with O(1) removal.
+ * <P>
+ * The receive time and TTL of a message must not change while the message
+ * is in an indexed store.
+ * </P>
+ */
+public class MessageStore {
+	/** Orders messages by receive time, oldest first */
+	public static final Comparator<Message> RECEIVE_TIME_ORDER =
+		new Comparator<Message>() {
+			public int compare(Message m1, Message m2) {
+				int c = Double.compare(m1.getReceiveTime(), m2.getReceiveTime());
+				return c != 0 ? c : m1.getId().compareTo(m2.getId());
+			}
+		};
+
+	/** Orders messages by TTL expiry time, first expiring first */
+	public static final Comparator<Message> EXPIRY_ORDER =
+		new Comparator<Message>() {
+			public int compare(Message m1, Message m2) {
+				int c = Double.compare(m1.getExpiryTime(), m2.getExpiryTime());
+				return c != 0 ? c : m1.getId().compareTo(m2.getId());
+			}
+		};
+
+	private final HashMap<String, Message> messages;
+	private final HashMap<DTNHost, LinkedHashMap<String, Message>>
+		byDestination;
+	private final TreeSet<Message> byReceiveTime;
+	private final TreeSet<Message> byExpiry;
+
+	/**
+	 * Constructor.
+	 * @param indexed If true, the messages are also indexed by receive time
+	 * and TTL expiry time
+	 */
+	public MessageStore(boolean indexed) {
+		this.messages = new HashMap<String, Message>();
+		this.byDestination =
+			new HashMap<DTNHost, LinkedHashMap<String, Message>>();
+		if (indexed) {
+			this.byReceiveTime = new TreeSet<Message>(RECEIVE_TIME_ORDER);
+			this.byExpiry = new TreeSet<Message>(EXPIRY_ORDER);
+		}
+		else {
+			this.byReceiveTime = null;
+			this.byExpiry = null;
+		}
+	}
+
+	/**
+	 * Returns true if the messages are indexed by receive and expiry time
+	 * @return True if the store is indexed
+	 */
+	public boolean isIndexed() {
+		return this.byReceiveTime != null;
+	}
+
+	/**
+	 * Adds a message to the store, replacing any message with the same ID
+	 * @param m The message to add
+	 * @return The replaced message or null if there was none
+	 */
+	public Message put(Message m) {
+		Message old = this.messages.put(m.getId(), m);
+		if (old != null) {
+			unindex(old);
+		}
+		LinkedHashMap<String, Message> toDest = byDestination.get(m.getTo());
+		if (toDest == null) {
+			toDest = new LinkedHashMap<String, Message>(4);
+			byDestination.put(m.getTo(), toDest);
+		}
+		toDest.put(m.getId(), m);
+		if (isIndexed()) {
+			byReceiveTime.add(m);
+			byExpiry.add(m);
+		}
+		return old;
+	}
+
+	/**
+	 * Removes a message from the store
+	 * @param id ID of the message
+	 * @return The removed message or null if there was no such message
+	 */
+	public Message remove(String id) {
+		Message m = this.messages.remove(id);
+		if (m != null) {
+			unindex(m);
+		}
+		return m;
+	}
+
+	private void unindex(Message m) {
+		LinkedHashMap<String, Message> toDest = byDestination.get(m.getTo());
+		toDest.remove(m.getId());
+		if (toDest.isEmpty()) {
+			byDestination.remove(m.getTo());
+		}
+		if (isIndexed()) {
+			byReceiveTime.remove(m);
+			byExpiry.remove(m);
+		}
+	}
+
+	/**
+	 * Returns the message with the given ID
+	 * @param id ID of the message
+	 * @return The message or null if there's no such message
+	 */
+	public Message get(String id) {
+		return this.messages.get(id);
+	}
+
+	/**
+	 * Returns true if the store has a message with the given ID
+	 * @param id ID of the message
+	 * @return True if there's such message
+	 */
+	public boolean containsKey(String id) {
+		return this.messages.containsKey(id);
+	}
+
+	/**
+	 * Returns all messages in no particular order
+	 * @return The messages
+	 */
+	public Collection<Message> values() {
+		return this.messages.values();
+	}
+
+	/**
+	 * Returns the number of messages in the store
+	 * @return The number of messages
+	 */
+	public int size() {
+		return this.messages.size();
+	}
+
+	/**
+	 * Returns the messages whose final recipient is the given host, in the
+	 * order they were added
+	 * @param to The destination host
+	 * @return A read-only view of the messages to the host
+	 */
+	public Collection<Message> getMessagesTo(DTNHost to) {
+		LinkedHashMap<String, Message> toDest = byDestination.get(to);
+		if (toDest == null) {
+			return Collections.emptyList();
+		}
+		return Collections.unmodifiableCollection(toDest.values());
+	}
+
+	/**
+	 * Returns the messages ordered by receive time, oldest first. The
+	 * returned set is a read-only view to the store's index.
+	 * @return The messages in receive time order
+	 * @throws IllegalStateException if the store isn't indexed
+	 */
+	public NavigableSet<Message> byReceiveTime() {
+		checkIndexed();
+		return Collections.unmodifiableNavigableSet(this.byReceiveTime);
+	}
+
+	/**
+	 * Returns the messages ordered by TTL expiry time, first expiring
+	 * first. The returned set is a read-only view to the store's index.
+	 * @return The messages in expiry time order
+	 * @throws IllegalStateException if the store isn't indexed
+	 */
+	public NavigableSet<Message> byExpiry() {
+		checkIndexed();
+		return Collections.unmodifiableNavigableSet(this.byExpiry);
+	}
+
+	/**
+	 * Returns the messages whose TTL has run out (TTL <= 0), first expired
+	 * first
+	 * @return The expired messages
+	 * @throws IllegalStateException if the store isn't indexed
+	 */
+	public List<Message> getExpired() {
+		checkIndexed();
+		List<Message> expired = new ArrayList<Message>();
+		for (Message m : this.byExpiry) {
+			if (m.getTtl() > 0) {
+				break; // the rest expire later
+			}
+			expired.add(m);
+		}
+		return expired;
+	}
+
+	private void checkIndexed() {
+		if (!isIndexed()) {
+			throw new IllegalStateException("Message store is not indexed");
+		}
+	}
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package routing;
+
+/**
+ * Fixed size history of the buffer occupancy of a router. Every change of
+ * the occupancy is recorded as a (time, bytes) sample in a ring buffer, so
+ * when the history is full the oldest samples are overwritten. Changes
+ * that happen at the same simulation time are merged into one sample.
+ */
+public class OccupancyHistory {
+	private final double[] times;
+	private final long[] bytes;
+	/** index of the oldest sample */
+	private int first;
+	/** number of samples in the history */
+	private int count;
+
+	/**
+	 * Constructor.
+	 * @param capacity Maximum number of samples kept
+	 */
+	public OccupancyHistory(int capacity) {
+		this.times = new double[capacity];
+		this.bytes = new long[capacity];
+	}
+
+	/**
+	 * Records the occupancy at the given time
+	 * @param time The simulation time
+	 * @param occupancy The occupancy (bytes) from that time on
+	 */
+	public void record(double time, long occupancy) {
+		if (count > 0 && times[index(count - 1)] == time) {
+			bytes[index(count - 1)] = occupancy;
+			return;
+		}
+		if (count == times.length) {
+			first = index(1);
+			count--;
+		}
+		times[index(count)] = time;
+		bytes[index(count)] = occupancy;
+		count++;
+	}
+
+	/**
+	 * Returns the number of samples in the history
+	 * @return The number of samples
+	 */
+	public int size() {
+		return this.count;
+	}
+
+	/**
+	 * Returns the time of a sample
+	 * @param i Index of the sample (0 is the oldest one)
+	 * @return The time the occupancy changed
+	 */
+	public double getTime(int i) {
+		return times[index(i)];
+	}
+
+	/**
+	 * Returns the occupancy of a sample
+	 * @param i Index of the sample (0 is the oldest one)
+	 * @return The occupancy (bytes) from the sample's time on
+	 */
+	public long getOccupancy(int i) {
+		return bytes[index(i)];
+	}
+
+	/**
+	 * Returns the largest occupancy at or after the given time. If the
+	 * history doesn't reach back to that time, only the kept samples are
+	 * considered.
+	 * @param since The start time
+	 * @return The peak occupancy (bytes) or 0 if there are no samples
+	 */
+	public long getPeak(double since) {
+		long peak = 0;
+		for (int i = count - 1; i >= 0; i--) {
+			peak = Math.max(peak, getOccupancy(i));
+			if (getTime(i) <= since) {
+				break; // the occupancy in effect at the start time
+			}
+		}
+		return peak;
+	}
+
+	/**
+	 * Returns the time weighted average occupancy during a time period. If
+	 * the history doesn't reach back to the start of the period, the
+	 * average is taken from the oldest sample on.
+	 * @param from Start of the period
+	 * @param to End of the period
+	 * @return The average occupancy (bytes) or 0 if there are no samples
+	 */
+	public double getAverage(double from, double to) {
+		double sum = 0;
+		double end = to;
+		double start = to;
+		for (int i = count - 1; i >= 0 && end > from; i--) {
+			start = Math.min(Math.max(getTime(i), from), to);
+			if (start < end) {
+				sum += getOccupancy(i) * (end - start);
+			}
+			end = start;
+		}
+		if (count == 0) {
+			return 0;
+		}
+		if (to <= start) {
+			return getOccupancy(count - 1);
+		}
+		return sum / (to - start);
+	}
+
+	private int index(int i) {
+		return (first + i) % times.length;
+	}
+}
@@ -0,0 +1,300 @@
+package routing;
+
+import core.Connection;
+import core.Message;
+import core.Tuple;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Queue of the message-connection tuples a {@link DecisionEngineRouter} is
+ * trying to send. The tuples are iterated in the order they were added, but
+ * they are also indexed by connection and by message ID so that all tuples
+ * of a connection or a message are removed without scanning the queue. The
+ * tuples of a connection are linked into a list of their own, so removing a
+ * tuple costs O(1) plus a scan of the tuples of its message, of which there
+ * is at most one per connection.
+ *
+ * The queue may be modified while it is iterated; the iterator skips the
+ * tuples removed after it was created and returns the tuples added after it
+ * was created.
+ */
+public class OutgoingQueue extends AbstractCollection<Tuple<Message, Connection>> {
+
+    /**
+     * Queued tuple: a node of the queue's linked list and of the list of its
+     * connection
+     */
+    private static class Entry extends Tuple<Message, Connection> {
+
+        private Entry prev;
+        private Entry next;
+        private Entry prevInConnection;
+        private Entry nextInConnection;
+        private boolean removed;
+
+        private Entry(Message m, Connection con) {
+            super(m, con);
+        }
+    }
+
+    /**
+     * Tuples of one connection and the queue statistics of the connection
+     */
+    public static class ConnectionQueue {
+
+        private Entry first;
+        private Entry last;
+        private int length;
+        private int added;
+        private int peak;
+        private int decisions;
+
+        /**
+         * Returns how many tuples have been queued for the connection
+         *
+         * @return The number of queued tuples
+         */
+        public int getNrofAdded() {
+            return added;
+        }
+
+        /**
+         * Returns the largest number of tuples that have been in the queue
+         * for the connection at the same time
+         *
+         * @return The peak queue length
+         */
+        public int getPeakLength() {
+            return peak;
+        }
+
+        /**
+         * Returns how many times the decision engine has been asked whether
+         * to send a message over the connection
+         *
+         * @return The number of decision engine calls
+         */
+        public int getNrofDecisions() {
+            return decisions;
+        }
+
+        private void append(Entry e) {
+            e.prevInConnection = last;
+            if (last == null) {
+                first = e;
+            } else {
+                last.nextInConnection = e;
+            }
+            last = e;
+            length++;
+        }
+
+        private void remove(Entry e) {
+            if (e.prevInConnection == null) {
+                first = e.nextInConnection;
+            } else {
+                e.prevInConnection.nextInConnection = e.nextInConnection;
+            }
+            if (e.nextInConnection == null) {
+                last = e.prevInConnection;
+            } else {
+                e.nextInConnection.prevInConnection = e.prevInConnection;
+            }
+            e.prevInConnection = e.nextInConnection = null;
+            length--;
+        }
+    }
+
+    private Entry head;
+    private Entry tail;
+    private int size;
+    private final HashMap<Connection, ConnectionQueue> byConnection;
+    private final HashMap<String, List<Entry>> byMessage;
+
+    public OutgoingQueue() {
+        this.byConnection = new HashMap<>(4);
+        this.byMessage = new HashMap<>();
+    }
+
+    /**
+     * Adds a tuple to the end of the queue
+     *
+     * @param m The message to send
+     * @param con The connection to send the message over
+     */
+    public void add(Message m, Connection con) {
+        Entry e = new Entry(m, con);
+        e.prev = tail;
+        if (tail == null) {
+            head = e;
+        } else {
+            tail.next = e;
+        }
+        tail = e;
+        size++;
+
+        ConnectionQueue cq = getConnectionQueue(con);
+        cq.append(e);
+        cq.added++;
+        cq.peak = Math.max(cq.peak, cq.length);
+
+        List<Entry> forMessage = byMessage.get(m.getId());
+        if (forMessage == null) {
+            forMessage = new ArrayList<>(2);
+            byMessage.put(m.getId(), forMessage);
+        }
+        forMessage.add(e);
+    }
+
+    /**
+     * Counts a decision engine call for a connection
+     *
+     * @param con The connection
+     */
+    public void countDecision(Connection con) {
+        getConnectionQueue(con).decisions++;
+    }
+
+    /**
+     * Removes the first queued tuple of the given message and connection
+     *
+     * @param id ID of the message
+     * @param con The connection
+     * @return True if a tuple was removed
+     */
+    public boolean remove(String id, Connection con) {
+        List<Entry> forMessage = byMessage.get(id);
+        if (forMessage == null) {
+            return false;
+        }
+        for (Entry e : forMessage) {
+            if (e.getValue().equals(con)) {
+                unlink(e);
+                forMessage.remove(e);
+                if (forMessage.isEmpty()) {
+                    byMessage.remove(id);
+                }
+                byConnection.get(con).remove(e);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes all queued tuples of a message
+     *
+     * @param id ID of the message
+     */
+    public void removeMessage(String id) {
+        List<Entry> forMessage = byMessage.remove(id);
+        if (forMessage == null) {
+            return;
+        }
+        for (Entry e : forMessage) {
+            unlink(e);
+            byConnection.get(e.getValue()).remove(e);
+        }
+    }
+
+    /**
+     * Removes all queued tuples of a connection and returns the
+     * connection's queue statistics
+     *
+     * @param con The connection
+     * @return The statistics of the connection or null if nothing was ever
+     * queued or counted for it
+     */
+    public ConnectionQueue removeConnection(Connection con) {
+        ConnectionQueue cq = byConnection.remove(con);
+        if (cq == null) {
+            return null;
+        }
+        for (Entry e = cq.first; e != null; e = e.nextInConnection) {
+            unlink(e);
+            String id = e.getKey().getId();
+            List<Entry> forMessage = byMessage.get(id);
+            forMessage.remove(e);
+            if (forMessage.isEmpty()) {
+                byMessage.remove(id);
+            }
+        }
+        cq.first = cq.last = null;
+        cq.length = 0;
+        return cq;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<Tuple<Message, Connection>> iterator() {
+        return new Iterator<Tuple<Message, Connection>>() {
+            /** the last returned entry or its closest live predecessor */
+            private Entry last;
+
+            /**
+             * Returns the first live entry after the last returned one. A
+             * removed entry keeps its predecessor at the time of removal, so
+             * the closest live predecessor is found by walking back; if there
+             * is none, all entries before the head have been removed.
+             */
+            private Entry following() {
+                while (last != null && last.removed) {
+                    last = last.prev;
+                }
+                return last == null ? head : last.next;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return following() != null;
+            }
+
+            @Override
+            public Tuple<Message, Connection> next() {
+                Entry e = following();
+                if (e == null) {
+                    throw new NoSuchElementException();
+                }
+                last = e;
+                return e;
+            }
+        };
+    }
+
+    private ConnectionQueue getConnectionQueue(Connection con) {
+        ConnectionQueue cq = byConnection.get(con);
+        if (cq == null) {
+            cq = new ConnectionQueue();
+            byConnection.put(con, cq);
+        }
+        return cq;
+    }
+
+    /**
+     * Removes an entry from the linked list. The entry keeps its prev link
+     * so that iterators positioned at it can continue.
+     */
+    private void unlink(Entry e) {
+        if (e.prev == null) {
+            head = e.next;
+        } else {
+            e.prev.next = e.next;
+        }
+        if (e.next == null) {
+            tail = e.prev;
+        } else {
+            e.next.prev = e.prev;
+        }
+        e.removed = true;
+        size--;
+    }
+}
@@ -80,6 +80,9 @@ public class BubbleRap implements RoutingDecisionEngine, CommunityDetectionEngin
         // add this connection to the list
         if (etime - time > 0) {
             history.add(new Duration(time, etime));
+            if (centrality instanceof IncrementalCentrality) {
+                ((IncrementalCentrality) centrality).contactEnded(peer, etime);
+            }
         }
 
         CommunityDetection peerCD = this.getOtherDecisionEngine(peer).community; //added
@@ -27,9 +27,16 @@ import core.*;
  * </p>
  * 
  * <p>This computation is done at regular intervals instead of every time the 
- * global and local centrality measures are requested.</p> 
+ * global and local centrality measures are requested. With the
+ * <strong>incremental</strong> setting, the unique encounters are instead
+ * counted per epoch as the decision engine reports the ended contacts
+ * through {@link #contactEnded(DTNHost, double)} (see {@link EpochContacts}),
+ * so a computation doesn't walk the connection history. The epochs are then
+ * fixed time windows (<code>[e * timeWindow, (e+1) * timeWindow)</code>)
+ * instead of windows ending at the current time, so the results differ from
+ * the default computation.</p> 
  * 
- * <p>This class looks for three settings:
+ * <p>This class looks for four settings:
  * <ul>
  * <li><strong>timeWindow</strong> &ndash; the duration of each time interval 
  * (epoch) to consider. Default: 6 hours</li>
@@ -38,6 +45,9 @@ import core.*;
  * <li><strong>computeInterval</strong> &ndash; the amount of simulation time 
  * between updates to the centrality values. A longer interval reduces 
  * simulation time at the expense of accuracy. Default: 10 minutes</li>
+ * <li><strong>incremental</strong> &ndash; count the encounters per fixed
+ * epoch as the contacts end instead of from the connection history.
+ * Default: false</li>
  * </ul>
  * </p>
  * <pre>
@@ -60,7 +70,7 @@ import core.*;
  * @author PJ Dillon, University of Pittsburgh
  * @see Centrality
  */
-public class CWindowCentrality implements Centrality
+public class CWindowCentrality implements IncrementalCentrality
 {
 	/** length of time to consider in each epoch -setting id {@value} */
 	public static final String CENTRALITY_WINDOW_SETTING = "timeWindow";
@@ -69,6 +79,9 @@ public class CWindowCentrality implements Centrality
 	public static final String COMPUTATION_INTERVAL_SETTING = "computeInterval";
 	/** Number of time windows over which to average -setting id {@value} */
 	public static final String EPOCH_COUNT_SETTING = "nrOfEpochsToAvg";
+	/** Count the encounters incrementally in fixed epochs -setting id 
+	 * 		{@value} */
+	public static final String INCREMENTAL_SETTING = "incremental";
 	
 	/** Time to wait before recomputing centrality values (node degree) */
 	protected static int COMPUTE_INTERVAL = 600; // seconds, i.e. 10 minutes
@@ -87,6 +100,11 @@ public class CWindowCentrality implements Centrality
 	/** timestamp of last local centrality computation */ 
 	protected int lastLocalComputationTime;
 	
+	/** Are the encounters counted incrementally */
+	protected boolean incremental;
+	/** unique encounters per epoch (null if contacts are not reported) */
+	protected EpochContacts epochContacts;
+	
 	public CWindowCentrality(Settings s) 
 	{
 		if(s.contains(CENTRALITY_WINDOW_SETTING))
@@ -97,6 +115,9 @@ public class CWindowCentrality implements Centrality
 		
 		if(s.contains(EPOCH_COUNT_SETTING))
 			EPOCH_COUNT = s.getInt(EPOCH_COUNT_SETTING);
+		
+		if(s.contains(INCREMENTAL_SETTING))
+			this.incremental = s.getBoolean(INCREMENTAL_SETTING);
 	}
 	
 	public CWindowCentrality(CWindowCentrality proto)
@@ -105,6 +126,17 @@ public class CWindowCentrality implements Centrality
 		// start of the sim
 		this.lastGlobalComputationTime = this.lastLocalComputationTime = 
 			-COMPUTE_INTERVAL;
+		this.incremental = proto.incremental;
+	}
+	
+	public void contactEnded(DTNHost peer, double time)
+	{
+		if(!this.incremental)
+			return;
+		if(this.epochContacts == null)
+			this.epochContacts = new EpochContacts(CENTRALITY_TIME_WINDOW, 
+					EPOCH_COUNT);
+		this.epochContacts.addContact(peer, time);
 	}
 	
 	public double getGlobalCentrality(Map<DTNHost, List<Duration>> connHistory)
@@ -112,6 +144,13 @@ public class CWindowCentrality implements Centrality
 		if(SimClock.getIntTime() - this.lastGlobalComputationTime < COMPUTE_INTERVAL)
 			return globalCentrality;
 		
+		if(this.epochContacts != null)
+		{
+			this.lastGlobalComputationTime = SimClock.getIntTime();
+			return this.globalCentrality = 
+				this.epochContacts.getGlobalAverage(SimClock.getTime());
+		}
+		
 		// initialize
 		int[] centralities = new int[EPOCH_COUNT];
 		int epoch, timeNow = SimClock.getIntTime();
@@ -194,6 +233,13 @@ public class CWindowCentrality implements Centrality
 		if(SimClock.getIntTime() - this.lastLocalComputationTime < COMPUTE_INTERVAL)
 			return localCentrality;
 		
+		if(this.epochContacts != null)
+		{
+			this.lastLocalComputationTime = SimClock.getIntTime();
+			return this.localCentrality = 
+				this.epochContacts.getLocalAverage(SimClock.getTime(), cd);
+		}
+		
 		// centralities will hold the count of unique encounters in each epoch
 		int[] centralities = new int[EPOCH_COUNT];
 		int epoch, timeNow = SimClock.getIntTime();
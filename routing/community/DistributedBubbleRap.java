@@ -142,7 +142,11 @@ public class DistributedBubbleRap implements RoutingDecisionEngine, CommunityDet
 		
 		// add this connection to the list
 		if(etime - time > 0)
+		{
 			history.add(new Duration(time, etime));
+			if(centrality instanceof IncrementalCentrality)
+				((IncrementalCentrality)centrality).contactEnded(peer, etime);
+		}
 		
 		CommunityDetection peerCD = this.getOtherDecisionEngine(peer).community;
 		
@@ -142,7 +142,11 @@ public class DistributedBubbleRapCentrality implements RoutingDecisionEngine, Co
 		
 		// add this connection to the list
 		if(etime - time > 0)
+		{
 			history.add(new Duration(time, etime));
+			if(centrality instanceof IncrementalCentrality)
+				((IncrementalCentrality)centrality).contactEnded(peer, etime);
+		}
 		
 		CommunityDetection peerCD = this.getOtherDecisionEngine(peer).community;
 		
@@ -0,0 +1,197 @@
+/*
+ * @(#)EpochContacts.java
+ *
+ * Copyright 2010 by University of Pittsburgh, released under GPLv3.
+ *
+ */
+package routing.community;
+
+import java.util.*;
+
+import core.*;
+
+/**
+ * <p>Ring buffer of the unique hosts contacted in each of the most recent
+ * epochs (time windows of equal length, epoch <code>e</code> covering times
+ * <code>[e * epochLength, (e+1) * epochLength)</code>). The number of unique
+ * contacts per epoch and their sum over the ring are kept up to date as
+ * contacts are added and epochs expire, so the average degree of the node is
+ * available in amortized constant time. Used by
+ * {@link CWindowCentrality}.</p>
+ *
+ * <p>The counts of contacts with members of a local community are kept the
+ * same way. They are recounted from the epochs' host sets only when the size
+ * of the community changes, which assumes that hosts are never removed from
+ * a community (true for {@link KCliqueCommunityDetection} and
+ * {@link SimpleCommunityDetection}).</p>
+ */
+public class EpochContacts
+{
+	private final double epochLength;
+	/** hosts contacted in each epoch of the ring (null if none yet) */
+	private final HostSet[] hosts;
+	private final int[] globalCounts;
+	private final int[] localCounts;
+	private long globalSum;
+	private long localSum;
+
+	/** newest epoch of the ring */
+	private int currentEpoch;
+	/** oldest epoch that may have contacts (all before it are empty) */
+	private int oldestGlobal;
+	/** oldest epoch that may have community contacts */
+	private int oldestLocal;
+
+	/** the community the local counts were counted for */
+	private Set<DTNHost> countedCommunity;
+	private int countedCommunitySize;
+
+	/**
+	 * Creates a new ring of epochs.
+	 *
+	 * @param epochLength Length of an epoch (seconds)
+	 * @param nrofEpochs Number of the most recent epochs to keep
+	 */
+	public EpochContacts(double epochLength, int nrofEpochs)
+	{
+		this.epochLength = epochLength;
+		this.hosts = new HostSet[nrofEpochs];
+		this.globalCounts = new int[nrofEpochs];
+		this.localCounts = new int[nrofEpochs];
+	}
+
+	/**
+	 * Adds a contact to the epoch of the given time. Contacts must be added in
+	 * time order.
+	 *
+	 * @param peer The contacted host
+	 * @param time Time of the contact
+	 */
+	public void addContact(DTNHost peer, double time)
+	{
+		int epoch = epochOf(time);
+		advance(epoch);
+		int slot = slotOf(epoch);
+		if(hosts[slot] == null)
+			hosts[slot] = new HostSet();
+		if(!hosts[slot].add(peer))
+			return; // already counted in this epoch
+
+		globalCounts[slot]++;
+		globalSum++;
+		oldestGlobal = Math.min(oldestGlobal, epoch);
+		if(countedCommunity != null && countedCommunity.contains(peer))
+		{
+			localCounts[slot]++;
+			localSum++;
+			oldestLocal = Math.min(oldestLocal, epoch);
+		}
+	}
+
+	/**
+	 * Returns the average number of unique contacts per epoch, from the oldest
+	 * epoch with contacts to the epoch of the given time.
+	 *
+	 * @param now The current time
+	 * @return The average degree or 0 if there are no contacts in the ring
+	 */
+	public double getGlobalAverage(double now)
+	{
+		advance(epochOf(now));
+		while(oldestGlobal <= currentEpoch &&
+				globalCounts[slotOf(oldestGlobal)] == 0)
+			oldestGlobal++;
+		if(oldestGlobal > currentEpoch)
+			return 0;
+		return ((double)globalSum) / (currentEpoch - oldestGlobal + 1);
+	}
+
+	/**
+	 * Returns the average number of unique contacts with the members of the
+	 * local community per epoch, from the oldest epoch with such contacts to
+	 * the epoch of the given time.
+	 *
+	 * @param now The current time
+	 * @param cd The community detection that knows the local community
+	 * @return The average degree or 0 if there are no such contacts
+	 */
+	public double getLocalAverage(double now, CommunityDetection cd)
+	{
+		advance(epochOf(now));
+		Set<DTNHost> community = cd.getLocalCommunity();
+		if(community != countedCommunity ||
+				community.size() != countedCommunitySize)
+			recountLocal(community);
+
+		while(oldestLocal <= currentEpoch &&
+				localCounts[slotOf(oldestLocal)] == 0)
+			oldestLocal++;
+		if(oldestLocal > currentEpoch)
+			return 0;
+		return ((double)localSum) / (currentEpoch - oldestLocal + 1);
+	}
+
+	/**
+	 * Counts the contacts with community members in every epoch again
+	 */
+	private void recountLocal(Set<DTNHost> community)
+	{
+		localSum = 0;
+		for(int i = 0; i < hosts.length; i++)
+		{
+			int count = 0;
+			if(globalCounts[i] > 0)
+			{
+				if(community instanceof HostSet)
+					count = hosts[i].intersectionSize((HostSet)community);
+				else
+					for(DTNHost h : hosts[i])
+						if(community.contains(h))
+							count++;
+			}
+			localCounts[i] = count;
+			localSum += count;
+		}
+		oldestLocal = Math.max(0, currentEpoch - hosts.length + 1);
+		countedCommunity = community;
+		countedCommunitySize = community.size();
+	}
+
+	/**
+	 * Moves the ring forward to the given epoch, emptying the epochs that
+	 * fall out of the ring
+	 */
+	private void advance(int epoch)
+	{
+		if(epoch <= currentEpoch)
+			return;
+		// epoch e reuses the slot of epoch e - hosts.length
+		int steps = Math.min(epoch - currentEpoch, hosts.length);
+		for(int e = epoch - steps + 1; e <= epoch; e++)
+			clear(slotOf(e));
+		currentEpoch = epoch;
+		int first = epoch - hosts.length + 1;
+		oldestGlobal = Math.max(oldestGlobal, first);
+		oldestLocal = Math.max(oldestLocal, first);
+	}
+
+	private void clear(int slot)
+	{
+		if(hosts[slot] != null)
+			hosts[slot].clear();
+		globalSum -= globalCounts[slot];
+		localSum -= localCounts[slot];
+		globalCounts[slot] = 0;
+		localCounts[slot] = 0;
+	}
+
+	private int epochOf(double time)
+	{
+		return (int)(time / epochLength);
+	}
+
+	private int slotOf(int epoch)
+	{
+		return epoch % hosts.length;
+	}
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package routing.community;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import core.DTNHost;
+import core.DTNSim;
+
+/**
+ * Set of hosts stored as a bitset indexed by the host addresses. Membership
+ * tests and updates are single bit operations and the size of the
+ * intersection of two sets is counted a word (64 hosts) at a time with
+ * popcounts, without iterating the members. The hosts are iterated in
+ * address order. All hosts ever added to a set are registered in a shared
+ * address-indexed table so that the iterator can return the host objects.
+ */
+public class HostSet extends AbstractSet<DTNHost> {
+	/** all hosts added to any set, by address */
+	private static DTNHost[] hostsByAddress;
+
+	private long[] words;
+	private int size;
+	private int modCount;
+
+	static {
+		DTNSim.registerForReset(HostSet.class.getCanonicalName());
+		reset();
+	}
+
+	/**
+	 * Creates an empty set
+	 */
+	public HostSet() {
+		this.words = new long[1];
+	}
+
+	@Override
+	public boolean add(DTNHost host) {
+		int address = host.getAddress();
+		register(host, address);
+		int word = address >>> 6;
+		if (word >= words.length) {
+			words = Arrays.copyOf(words, Math.max(word + 1, words.length * 2));
+		}
+		long bit = 1L << address;
+		if ((words[word] & bit) != 0) {
+			return false;
+		}
+		words[word] |= bit;
+		size++;
+		modCount++;
+		return true;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		if (!(o instanceof DTNHost)) {
+			return false;
+		}
+		return contains(((DTNHost)o).getAddress());
+	}
+
+	/**
+	 * Returns true if the host with the given address is in the set
+	 * @param address Address of the host
+	 * @return True if the host is in the set
+	 */
+	public boolean contains(int address) {
+		int word = address >>> 6;
+		return word < words.length && (words[word] & (1L << address)) != 0;
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		if (!(o instanceof DTNHost) || !contains(o)) {
+			return false;
+		}
+		int address = ((DTNHost)o).getAddress();
+		words[address >>> 6] &= ~(1L << address);
+		size--;
+		modCount++;
+		return true;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(words, 0);
+		size = 0;
+		modCount++;
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Returns the number of hosts that are in both this and the other set
+	 * @param other The other set
+	 * @return Size of the intersection of the sets
+	 */
+	public int intersectionSize(HostSet other) {
+		long[] a = this.words;
+		long[] b = other.words;
+		int count = 0;
+		for (int i = 0, n = Math.min(a.length, b.length); i < n; i++) {
+			count += Long.bitCount(a[i] & b[i]);
+		}
+		return count;
+	}
+
+	@Override
+	public Iterator<DTNHost> iterator() {
+		return new Iterator<DTNHost>() {
+			private int next = nextSetBit(0);
+			private int last = -1;
+			private int expectedModCount = modCount;
+
+			public boolean hasNext() {
+				return next >= 0;
+			}
+
+			public DTNHost next() {
+				if (next < 0) {
+					throw new NoSuchElementException();
+				}
+				if (modCount != expectedModCount) {
+					throw new ConcurrentModificationException();
+				}
+				last = next;
+				next = nextSetBit(next + 1);
+				return hostsByAddress[last];
+			}
+
+			public void remove() {
+				if (last < 0) {
+					throw new IllegalStateException();
+				}
+				HostSet.this.remove(hostsByAddress[last]);
+				last = -1;
+				expectedModCount = modCount;
+			}
+		};
+	}
+
+	/**
+	 * Returns the smallest address in the set that is at least the given one
+	 * @return The address or -1 if there is no such address
+	 */
+	private int nextSetBit(int from) {
+		int word = from >>> 6;
+		if (word >= words.length) {
+			return -1;
+		}
+		long bits = words[word] & (-1L << from);
+		while (true) {
+			if (bits != 0) {
+				return (word << 6) + Long.numberOfTrailingZeros(bits);
+			}
+			if (++word == words.length) {
+				return -1;
+			}
+			bits = words[word];
+		}
+	}
+
+	private static void register(DTNHost host, int address) {
+		if (address >= hostsByAddress.length) {
+			hostsByAddress = Arrays.copyOf(hostsByAddress,
+					Math.max(address + 1, hostsByAddress.length * 2));
+		}
+		hostsByAddress[address] = host;
+	}
+
+	/**
+	 * Resets the table of registered hosts
+	 */
+	public static void reset() {
+		hostsByAddress = new DTNHost[64];
+	}
+}
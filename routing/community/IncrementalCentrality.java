@@ -0,0 +1,34 @@
+/*
+ * @(#)IncrementalCentrality.java
+ *
+ * Copyright 2010 by University of Pittsburgh, released under GPLv3.
+ * 
+ */
+package routing.community;
+
+import core.*;
+
+/**
+ * <p>A {@link Centrality} that can keep its own contact counts up to date as
+ * the contacts of the node end. Decision engines report every ended contact
+ * with {@link #contactEnded(DTNHost, double)}. If the centrality has been
+ * configured to count incrementally, its values are computed from these
+ * counts instead of by walking the connection history passed to
+ * {@link #getGlobalCentrality(java.util.Map)} and
+ * {@link #getLocalCentrality(java.util.Map, CommunityDetection)}; otherwise
+ * the reports are ignored.</p>
+ * 
+ * @see CWindowCentrality
+ * @see SWindowCentrality
+ */
+public interface IncrementalCentrality extends Centrality
+{
+	/**
+	 * Informs the centrality that a contact of the node has ended. The same
+	 * contact is added to the connection history of the node.
+	 * 
+	 * @param peer Host the node was in contact with
+	 * @param time Time the contact ended (the current simulation time)
+	 */
+	public void contactEnded(DTNHost peer, double time);
+}
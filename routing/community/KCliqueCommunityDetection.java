@@ -24,6 +24,10 @@ import core.*;
  * <p>Note: In ONE, each KCliqueCommunityDetection stores a reference to another 
  * node's familiar set instead of creating and managing a duplicate of it. 
  * </p>
+ * <p>The familiar sets and local communities are {@link HostSet}s, so the
+ * set intersections below are counted with popcounts over the host address
+ * bitsets and members are examined in address order.
+ * </p>
  * <p>When two peers meet, they exchange familiar sets, local community sets, 
  * and their respective approximations of the familiar sets of their local 
  * communities. If the nodes are not part of each other's local communities, 
@@ -58,9 +62,9 @@ public class KCliqueCommunityDetection implements CommunityDetection
 	public static final String K_SETTING = "K";
 	public static final String FAMILIAR_SETTING = "familiarThreshold";
 	
-	protected Set<DTNHost> familiarSet;
-	protected Set<DTNHost> localCommunity;
-	protected Map<DTNHost, Set<DTNHost>> familiarsOfMyCommunity;
+	protected HostSet familiarSet;
+	protected HostSet localCommunity;
+	protected Map<DTNHost, HostSet> familiarsOfMyCommunity;
 	
 	protected double k;
 	protected double familiarThreshold;
@@ -75,9 +79,9 @@ public class KCliqueCommunityDetection implements CommunityDetection
 	{
 		this.k = proto.k;
 		this.familiarThreshold = proto.familiarThreshold;
-		familiarSet = new HashSet<DTNHost>();
-		localCommunity = new HashSet<DTNHost>();
-		this.familiarsOfMyCommunity = new HashMap<DTNHost, Set<DTNHost>>();
+		familiarSet = new HostSet();
+		localCommunity = new HostSet();
+		this.familiarsOfMyCommunity = new HashMap<DTNHost, HostSet>();
 	}
 	
 	public void newConnection(DTNHost myHost, DTNHost peer, 
@@ -115,10 +119,7 @@ public class KCliqueCommunityDetection implements CommunityDetection
 			 */
 			
 			// compute the intersection size
-			int count=0;
-			for(DTNHost h : scd.familiarSet)
-				if(this.localCommunity.contains(h))
-					count++;
+			int count = this.localCommunity.intersectionSize(scd.familiarSet);
 			
 			// if peer familiar has K nodes in common with this host's local community
 			if(count >= this.k - 1)
@@ -133,10 +134,8 @@ public class KCliqueCommunityDetection implements CommunityDetection
 					if(h == myHost || h == peer) continue;
 					
 					// compute intersection size
-					count = 0;
-					for(DTNHost i : scd.familiarsOfMyCommunity.get(h))
-						if(this.localCommunity.contains(i))
-							count++;
+					count = this.localCommunity.intersectionSize(
+							scd.familiarsOfMyCommunity.get(h));
 					
 					// add nodes if there are K in common with this local community
 					if(count >= this.k - 1)
@@ -152,10 +151,7 @@ public class KCliqueCommunityDetection implements CommunityDetection
 		// Repeat process from peer's perspective
 		if(!scd.localCommunity.contains(myHost))
 		{
-			int count = 0;
-			for(DTNHost h : this.familiarSet)
-				if(scd.localCommunity.contains(h))
-					count++;
+			int count = scd.localCommunity.intersectionSize(this.familiarSet);
 			if(count >= scd.k - 1)
 			{
 				scd.localCommunity.add(myHost);
@@ -164,10 +160,8 @@ public class KCliqueCommunityDetection implements CommunityDetection
 				for(DTNHost h : this.localCommunity)
 				{
 					if(h == myHost || h == peer) continue;
-					count = 0;
-					for(DTNHost i : this.familiarsOfMyCommunity.get(h))
-						if(scd.localCommunity.contains(i))
-							count++;
+					count = scd.localCommunity.intersectionSize(
+							this.familiarsOfMyCommunity.get(h));
 					if(count >= scd.k - 1)
 					{
 						scd.localCommunity.add(h);
@@ -6,8 +6,10 @@
  */
 package routing.community;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import core.*;
 
@@ -27,13 +29,25 @@ import core.*;
  * </p>
  *
  * <p>
- * This class looks for two settings:
+ * With the <strong>incremental</strong> setting, the hosts within the window
+ * are tracked as the decision engine reports the ended contacts through
+ * {@link #contactEnded(DTNHost, double)}: the ended contacts are kept in a
+ * ring buffer in time order and a host leaves the window when its latest
+ * contact falls out of the ring. A computation then doesn't walk the
+ * connection history.
+ * </p>
+ *
+ * <p>
+ * This class looks for three settings:
  * <ul>
  * <li><strong>timeWindow</strong> &ndash; the duration of the time interval
  * (epoch) to consider. Default: 6 hours</li>
  * <li><strong>computeInterval</strong> &ndash; the amount of simulation time
  * between updates to the centrality values. A longer interval reduces
  * simulation time at the expense of accuracy. Default: 10 minutes</li>
+ * <li><strong>incremental</strong> &ndash; track the hosts within the window
+ * as the contacts end instead of from the connection history.
+ * Default: false</li>
  * </ul>
  * </p>
  *
@@ -56,7 +70,7 @@ import core.*;
  *
  * @author PJ Dillon, University of Pittsburgh
  */
-public class SWindowCentrality implements Centrality {
+public class SWindowCentrality implements IncrementalCentrality {
 
     /**
      * length of time into the past to consider -setting id {@value}
@@ -67,6 +81,10 @@ public class SWindowCentrality implements Centrality {
      * {@value}
      */
     public static final String COMPUTATION_INTERVAL_SETTING = "computeInterval";
+    /**
+     * track the hosts within the window incrementally -setting id {@value}
+     */
+    public static final String INCREMENTAL_SETTING = "incremental";
 
     /**
      * Time to wait before recomputing centrality values (node degree)
@@ -95,10 +113,34 @@ public class SWindowCentrality implements Centrality {
      */
     protected int lastLocalComputationTime;
 
+    /**
+     * are the hosts within the window tracked incrementally
+     */
+    protected boolean incremental;
+    /**
+     * hosts whose latest contact is within the window (null if contacts are
+     * not reported)
+     */
+    protected HostSet hostsInWindow;
+    /**
+     * end time of the latest contact with each host, by host address
+     */
+    private double[] latestContactEnd;
+    /**
+     * ring buffer of the ended contacts in time order: end times and hosts
+     */
+    private double[] contactEnds;
+    private DTNHost[] contactHosts;
+    private int firstContact;
+    private int nrofContacts;
+
     public SWindowCentrality(Settings s) {
         if (s.contains(CENTRALITY_WINDOW_SETTING)) {
             CENTRALITY_TIME_WINDOW = s.getInt(CENTRALITY_WINDOW_SETTING);
         }
+        if (s.contains(INCREMENTAL_SETTING)) {
+            this.incremental = s.getBoolean(INCREMENTAL_SETTING);
+        }
     }
 
     public SWindowCentrality(SWindowCentrality proto) {
@@ -106,12 +148,74 @@ public class SWindowCentrality implements Centrality {
         // start of the sim
         this.lastGlobalComputationTime = this.lastLocalComputationTime
                 = -COMPUTE_INTERVAL;
+        this.incremental = proto.incremental;
+    }
+
+    public void contactEnded(DTNHost peer, double time) {
+        if (!this.incremental) {
+            return;
+        }
+        if (this.hostsInWindow == null) {
+            this.hostsInWindow = new HostSet();
+            this.latestContactEnd = new double[0];
+            this.contactEnds = new double[16];
+            this.contactHosts = new DTNHost[16];
+        }
+
+        int address = peer.getAddress();
+        if (address >= latestContactEnd.length) {
+            int oldLength = latestContactEnd.length;
+            latestContactEnd = Arrays.copyOf(latestContactEnd,
+                    Math.max(address + 1, oldLength * 2));
+            Arrays.fill(latestContactEnd, oldLength, latestContactEnd.length,
+                    Double.NaN);
+        }
+        latestContactEnd[address] = time;
+        hostsInWindow.add(peer);
+
+        if (nrofContacts == contactEnds.length) { // grow the ring
+            double[] ends = new double[nrofContacts * 2];
+            DTNHost[] hosts = new DTNHost[nrofContacts * 2];
+            for (int i = 0; i < nrofContacts; i++) {
+                ends[i] = contactEnds[(firstContact + i) % nrofContacts];
+                hosts[i] = contactHosts[(firstContact + i) % nrofContacts];
+            }
+            contactEnds = ends;
+            contactHosts = hosts;
+            firstContact = 0;
+        }
+        int last = (firstContact + nrofContacts) % contactEnds.length;
+        contactEnds[last] = time;
+        contactHosts[last] = peer;
+        nrofContacts++;
+    }
+
+    /**
+     * Removes the hosts whose latest contact is no longer within the window
+     */
+    private void expireContacts() {
+        int timeNow = SimClock.getIntTime();
+        while (nrofContacts > 0 &&
+                timeNow - contactEnds[firstContact] >= CENTRALITY_TIME_WINDOW) {
+            DTNHost h = contactHosts[firstContact];
+            if (latestContactEnd[h.getAddress()] == contactEnds[firstContact]) {
+                hostsInWindow.remove(h); // no later contact with the host
+            }
+            contactHosts[firstContact] = null;
+            firstContact = (firstContact + 1) % contactEnds.length;
+            nrofContacts--;
+        }
     }
 
     public double getGlobalCentrality(Map<DTNHost, List<Duration>> connHistory) {
         if (SimClock.getIntTime() - this.lastGlobalComputationTime < COMPUTE_INTERVAL) {
             return globalCentrality;
         }
+        if (this.hostsInWindow != null) {
+            expireContacts();
+            this.lastGlobalComputationTime = SimClock.getIntTime();
+            return this.globalCentrality = hostsInWindow.size();
+        }
 
         int centrality = 0;
         int timeNow = SimClock.getIntTime();
@@ -134,6 +238,22 @@ public class SWindowCentrality implements Centrality {
         if (SimClock.getIntTime() - this.lastLocalComputationTime < COMPUTE_INTERVAL) {
             return localCentrality;
         }
+        if (this.hostsInWindow != null) {
+            expireContacts();
+            Set<DTNHost> community = cd.getLocalCommunity();
+            int centrality = 0;
+            if (community instanceof HostSet) {
+                centrality = hostsInWindow.intersectionSize((HostSet) community);
+            } else {
+                for (DTNHost h : hostsInWindow) {
+                    if (cd.isHostInCommunity(h)) {
+                        centrality++;
+                    }
+                }
+            }
+            this.lastLocalComputationTime = SimClock.getIntTime();
+            return this.localCentrality = centrality;
+        }
 
         int centrality = 0;
         int timeNow = SimClock.getIntTime();
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+import routing.community.CommunityDetection;
+import routing.community.Duration;
+import routing.community.EpochContacts;
+import routing.community.HostSet;
+import core.DTNHost;
+
+/**
+ * Tests for the epoch ring of {@link EpochContacts}
+ */
+public class EpochContactsTest extends TestCase {
+	private static final double DELTA = 0.000001;
+	private DTNHost h1, h2, h3, h4;
+
+	/** Community detection whose local community is a given set */
+	private static class FixedCommunity implements CommunityDetection {
+		private final Set<DTNHost> community;
+
+		private FixedCommunity(Set<DTNHost> community) {
+			this.community = community;
+		}
+
+		public void newConnection(DTNHost myHost, DTNHost peer,
+				CommunityDetection peerCD) {}
+		public void connectionLost(DTNHost myHost, DTNHost peer,
+				CommunityDetection peerCD, List<Duration> connHistory) {}
+
+		public boolean isHostInCommunity(DTNHost h) {
+			return community.contains(h);
+		}
+
+		public Set<DTNHost> getLocalCommunity() {
+			return community;
+		}
+
+		public CommunityDetection replicate() {
+			return this;
+		}
+	}
+
+	public void setUp() {
+		TestUtils utils = new TestUtils(null, null, new TestSettings());
+		h1 = utils.createHost();
+		h2 = utils.createHost();
+		h3 = utils.createHost();
+		h4 = utils.createHost();
+	}
+
+	public void testUniqueContactsPerEpoch() {
+		EpochContacts ec = new EpochContacts(10, 3);
+		ec.addContact(h1, 1);
+		ec.addContact(h2, 2);
+		ec.addContact(h1, 5);
+		assertEquals(2.0, ec.getGlobalAverage(5), DELTA);
+
+		ec.addContact(h1, 10); // first contact of epoch 1
+		assertEquals(1.5, ec.getGlobalAverage(10), DELTA);
+	}
+
+	public void testExpiryAtWindowBoundary() {
+		EpochContacts ec = new EpochContacts(10, 3);
+		CommunityDetection cd = new FixedCommunity(hostSet(h1));
+		ec.addContact(h1, 5);
+
+		assertEquals(1.0 / 3, ec.getGlobalAverage(29.99), DELTA);
+		assertEquals(1.0 / 3, ec.getLocalAverage(29.99, cd), DELTA);
+		assertEquals(0.0, ec.getGlobalAverage(30), DELTA);
+		assertEquals(0.0, ec.getLocalAverage(30, cd), DELTA);
+
+		ec.addContact(h2, 30);
+		assertEquals(1.0, ec.getGlobalAverage(30), DELTA);
+		assertEquals(0.0, ec.getLocalAverage(30, cd), DELTA);
+	}
+
+	public void testGapLongerThanRing() {
+		EpochContacts ec = new EpochContacts(10, 3);
+		CommunityDetection cd = new FixedCommunity(hostSet(h1, h2, h3, h4));
+		ec.addContact(h1, 5);
+		ec.addContact(h2, 15);
+		ec.addContact(h3, 25);
+		assertEquals(1.0, ec.getGlobalAverage(25), DELTA);
+		assertEquals(1.0, ec.getLocalAverage(25, cd), DELTA);
+
+		ec.addContact(h4, 105); // epoch 10, the whole ring expires
+		assertEquals(1.0, ec.getGlobalAverage(105), DELTA);
+		assertEquals(1.0, ec.getLocalAverage(105, cd), DELTA);
+
+		ec.addContact(h1, 115); // reuses the slot of epochs 2 and 5
+		assertEquals(1.0, ec.getGlobalAverage(115), DELTA);
+		ec.addContact(h2, 125);
+		ec.addContact(h1, 125);
+		assertEquals(4.0 / 3, ec.getGlobalAverage(125), DELTA);
+		assertEquals(4.0 / 3, ec.getLocalAverage(125, cd), DELTA);
+
+		assertEquals(1.0, ec.getGlobalAverage(135), DELTA); // epochs 11-13
+		assertEquals(0.0, ec.getGlobalAverage(1000), DELTA);
+		assertEquals(0.0, ec.getLocalAverage(1000, cd), DELTA);
+	}
+
+	public void testGapOfRingLength() {
+		EpochContacts ec = new EpochContacts(10, 3);
+		ec.addContact(h1, 5);
+		ec.addContact(h2, 35); // same slot as epoch 0
+		assertEquals(1.0, ec.getGlobalAverage(35), DELTA);
+		ec.addContact(h1, 36);
+		assertEquals(2.0, ec.getGlobalAverage(36), DELTA);
+	}
+
+	public void testRecountWhenCommunityGrows() {
+		checkRecount(hostSet(h1));
+	}
+
+	public void testRecountWhenCommunityGrowsNotHostSet() {
+		Set<DTNHost> community = new HashSet<DTNHost>();
+		community.add(h1);
+		checkRecount(community);
+	}
+
+	private void checkRecount(Set<DTNHost> community) {
+		EpochContacts ec = new EpochContacts(10, 5);
+		CommunityDetection cd = new FixedCommunity(community);
+		ec.addContact(h1, 1);
+		ec.addContact(h2, 2);
+		ec.addContact(h2, 11);
+		ec.addContact(h3, 12);
+		assertEquals(0.5, ec.getLocalAverage(15, cd), DELTA);
+
+		community.add(h2);
+		assertEquals(1.5, ec.getLocalAverage(15, cd), DELTA);
+
+		ec.addContact(h1, 21); // counted without a recount
+		assertEquals(4.0 / 3, ec.getLocalAverage(25, cd), DELTA);
+		assertEquals(5.0 / 3, ec.getGlobalAverage(25), DELTA);
+
+		community.add(h3);
+		assertEquals(5.0 / 3, ec.getLocalAverage(25, cd), DELTA);
+	}
+
+	private static HostSet hostSet(DTNHost... hosts) {
+		HostSet set = new HostSet();
+		for (DTNHost h : hosts) {
+			set.add(h);
+		}
+		return set;
+	}
+}
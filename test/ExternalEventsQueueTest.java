@@ -5,6 +5,8 @@
 package test;
 
 import input.BinaryEventsReader;
+import input.ColumnarEventsReader;
+import input.ColumnarEventsWriter;
 import input.ExternalEvent;
 import input.ExternalEventsQueue;
 import input.ExternalEventsReader;
@@ -82,6 +84,24 @@ public class ExternalEventsQueueTest extends TestCase {
 	}
 	
 	
+	public void testColumnarEEQ() throws Exception {
+		int preload = 3;
+		File tmpColFile = File.createTempFile("TempColTest",
+				ColumnarEventsReader.COLUMNAR_EXT);
+		tmpColFile.deleteOnExit();
+		ExternalEventsReader r = new StandardEventsReader(tempFile);
+		ColumnarEventsWriter w = new ColumnarEventsWriter();
+		for (ExternalEvent ee : r.readEvents(100)) {
+			w.add(ee);
+		}
+		w.write(tmpColFile);
+
+		assertTrue(ColumnarEventsReader.isColumnarEeFile(tmpColFile));
+		eeq = new ExternalEventsQueue(tmpColFile.getAbsolutePath(), preload);
+		checkEeq(eeq, preload);
+	}
+	
+	
 	private void checkEeq(ExternalEventsQueue eeq, int preloadVal) {
 		ExternalEvent ee;
 		assertEquals(msgTimes[0],eeq.nextEventsTime());
@@ -4,6 +4,9 @@
  */
 package test;
 
+import input.ColumnarMovementReader;
+import input.ColumnarMovementWriter;
+
 import java.io.File;
 import java.io.PrintWriter;
 
@@ -49,6 +52,11 @@ public class ExternalMovementTest extends TestCase {
 	private SimClock clock;
 	
 	protected void setUpUsing(String[] input) throws Exception {
+		setUpUsing(input, false);
+	}
+	
+	protected void setUpUsing(String[] input, boolean columnar)
+			throws Exception {
 		super.setUp();
 		ExternalMovement.reset();
 		TestSettings ts = new TestSettings();
@@ -64,6 +72,15 @@ public class ExternalMovementTest extends TestCase {
 		
 		pw.close();
 		
+		if (columnar) {
+			File colFile = File.createTempFile("eMovementTest",
+					ColumnarMovementReader.COLUMNAR_EXT);
+			colFile.deleteOnExit();
+			ColumnarMovementWriter.convert(outFile.getAbsolutePath(),
+					colFile.getAbsolutePath());
+			outFile = colFile;
+		}
+		
 		ts.putSetting(ExternalMovement.EXTERNAL_MOVEMENT_NS + "." +
 				ExternalMovement.MOVEMENT_FILE_S, outFile.getAbsolutePath());
 		
@@ -80,6 +97,15 @@ public class ExternalMovementTest extends TestCase {
 	
 	public void testMovement() throws Exception {
 		setUpUsing(INPUT);
+		checkMovement();
+	}
+	
+	public void testColumnarMovement() throws Exception {
+		setUpUsing(INPUT, true);
+		checkMovement();
+	}
+	
+	private void checkMovement() {
 
 		// h3 should not get any fancy coordinates
 		assertEquals(c0, h3.getLocation());
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package test;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import junit.framework.TestCase;
+import routing.community.HostSet;
+import core.DTNHost;
+
+/**
+ * Tests for the host bitset {@link HostSet}
+ */
+public class HostSetTest extends TestCase {
+	private static final int NROF_HOSTS = 201;
+	/** hosts by address */
+	private List<DTNHost> hosts;
+
+	public void setUp() {
+		DTNHost.reset();
+		HostSet.reset();
+		TestUtils utils = new TestUtils(null, null, new TestSettings());
+		hosts = new ArrayList<DTNHost>();
+		for (int i = 0; i < NROF_HOSTS; i++) {
+			DTNHost h = utils.createHost();
+			assertEquals(i, h.getAddress());
+			hosts.add(h);
+		}
+	}
+
+	private HostSet set(int... addresses) {
+		HostSet set = new HostSet();
+		for (int a : addresses) {
+			set.add(hosts.get(a));
+		}
+		return set;
+	}
+
+	private List<Integer> addresses(HostSet set) {
+		List<Integer> list = new ArrayList<Integer>();
+		for (DTNHost h : set) {
+			list.add(h.getAddress());
+		}
+		return list;
+	}
+
+	public void testIterationInAddressOrder() {
+		HostSet s = set(130, 5, 64, 0, 63, 200, 127, 65);
+		assertEquals("[0, 5, 63, 64, 65, 127, 130, 200]",
+				addresses(s).toString());
+		assertEquals(8, s.size());
+		assertTrue(addresses(new HostSet()).isEmpty());
+	}
+
+	public void testAddContainsRemove() {
+		HostSet s = new HostSet();
+		int[] boundaries = {0, 63, 64, 127, 128, 129, 200};
+		for (int a : boundaries) {
+			assertTrue(s.add(hosts.get(a)));
+			assertFalse(s.add(hosts.get(a)));
+		}
+		assertEquals(boundaries.length, s.size());
+
+		for (int a = 0; a < NROF_HOSTS; a++) {
+			boolean expected = false;
+			for (int b : boundaries) {
+				expected |= a == b;
+			}
+			assertEquals("address " + a, expected, s.contains(hosts.get(a)));
+			assertEquals("address " + a, expected, s.contains(a));
+		}
+		assertFalse(s.contains(1000));
+		assertFalse(s.contains("not a host"));
+
+		assertTrue(s.remove(hosts.get(64)));
+		assertFalse(s.remove(hosts.get(64)));
+		assertFalse(s.remove(hosts.get(65)));
+		assertFalse(s.remove("not a host"));
+		assertTrue(s.remove(hosts.get(200)));
+		assertFalse(s.contains(64));
+		assertFalse(s.contains(200));
+		assertEquals("[0, 63, 127, 128, 129]", addresses(s).toString());
+
+		s.clear();
+		assertEquals(0, s.size());
+		assertFalse(s.contains(0));
+		assertTrue(s.add(hosts.get(128)));
+		assertEquals(1, s.size());
+	}
+
+	public void testIntersectionSize() {
+		HostSet small = set(1, 3, 63);
+		HostSet medium = set(3, 63, 64, 100);
+		HostSet large = set(1, 64, 127, 128, 200);
+
+		assertEquals(2, small.intersectionSize(medium));
+		assertEquals(2, medium.intersectionSize(small));
+		assertEquals(1, small.intersectionSize(large));
+		assertEquals(1, large.intersectionSize(small));
+		assertEquals(1, medium.intersectionSize(large));
+		assertEquals(1, large.intersectionSize(medium));
+		assertEquals(5, large.intersectionSize(large));
+		assertEquals(0, large.intersectionSize(new HostSet()));
+		assertEquals(0, new HostSet().intersectionSize(large));
+	}
+
+	public void testIteratorRemove() {
+		HostSet s = set(0, 1, 64, 65, 128, 200);
+		Iterator<DTNHost> i = s.iterator();
+		try {
+			i.remove();
+			fail("remove() before next() should fail");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+
+		while (i.hasNext()) {
+			if (i.next().getAddress() % 2 == 0) {
+				i.remove();
+			}
+		}
+		assertEquals("[1, 65]", addresses(s).toString());
+		assertEquals(2, s.size());
+
+		i = s.iterator();
+		i.next();
+		i.remove();
+		try {
+			i.remove();
+			fail("Removing twice should fail");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		assertEquals(65, i.next().getAddress());
+		assertFalse(i.hasNext());
+		try {
+			i.next();
+			fail("next() past the end should fail");
+		} catch (NoSuchElementException e) {
+			// expected
+		}
+	}
+
+	public void testConcurrentModification() {
+		HostSet s = set(1, 2, 3);
+		Iterator<DTNHost> i = s.iterator();
+		i.next();
+		s.add(hosts.get(150));
+		try {
+			i.next();
+			fail("Modifying the set during iteration should fail");
+		} catch (ConcurrentModificationException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+import Blockchain.Mempool;
+import Blockchain.Transaction;
+import Blockchain.TransactionBatch;
+import Blockchain.TransactionPacket;
+import Blockchain.Wallet;
+
+/**
+ * Tests for the de-duplication of transactions in {@link Mempool}
+ */
+public class MempoolTest extends TestCase {
+	private Transaction t1, t2, t3, t4;
+
+	public void setUp() {
+		Wallet a = new Wallet();
+		Wallet b = new Wallet();
+		t1 = new Transaction(a, b, 1, 1);
+		t2 = new Transaction(a, b, 2, 2);
+		t3 = new Transaction(b, a, 3, 3);
+		t4 = new Transaction(b, a, 4, 4);
+	}
+
+	private static TransactionPacket packet(Transaction... transactions) {
+		return new TransactionPacket(Arrays.asList(transactions));
+	}
+
+	public void testAddPacketSkipsDuplicates() {
+		Mempool pool = new Mempool();
+		assertEquals(2, pool.addPacket(packet(t1, t2)));
+		assertEquals(1, pool.addPacket(packet(t2, t3)));
+		assertEquals(0, pool.addPacket(packet(t1, t3)));
+
+		assertEquals(3, pool.getNrofTransactions());
+		List<TransactionPacket> packets = pool.getPackets();
+		assertEquals(2, packets.size());
+		assertEquals(Arrays.asList(t3), packets.get(1).getTransactions());
+		assertEquals(3.0, packets.get(1).getTotalAmount());
+	}
+
+	public void testAddCounts() {
+		Mempool pool = new Mempool();
+		assertTrue(pool.add(t1));
+		assertTrue(pool.add(t2));
+		assertFalse(pool.add(t1));
+		assertEquals(2, pool.getNrofTransactionsAccepted());
+		assertEquals(1, pool.getNrofDuplicatesRejected());
+		assertEquals(0, pool.getNrofBatchesAccepted());
+	}
+
+	public void testAddPacketSkipsPending() {
+		Mempool pool = new Mempool();
+		assertTrue(pool.add(t2));
+		assertEquals(2, pool.addPacket(packet(t1, t2, t3)));
+		assertEquals(Arrays.asList(t1, t3),
+				pool.getPackets().get(0).getTransactions());
+		assertEquals(3, pool.getNrofTransactions());
+	}
+
+	public void testAcceptPartiallyOverlappingBatch() {
+		Mempool sender = new Mempool();
+		sender.addPacket(packet(t1, t2));
+		sender.addPacket(packet(t3, t4));
+		TransactionBatch batch = sender.handOff();
+
+		Mempool receiver = new Mempool();
+		receiver.addPacket(packet(t3));
+		receiver.accept(batch);
+
+		assertEquals(4, receiver.getNrofTransactions());
+		assertEquals(3, receiver.size());
+		assertEquals(Arrays.asList(t4),
+				receiver.getPackets().get(2).getTransactions());
+		assertEquals(1, receiver.getNrofBatchesAccepted());
+		assertEquals(3, receiver.getNrofTransactionsAccepted());
+		assertEquals(1, receiver.getNrofDuplicatesRejected());
+		assertEquals(0, batch.getRefCount());
+	}
+
+	public void testAcceptAdoptsBatch() {
+		Mempool sender = new Mempool();
+		sender.addPacket(packet(t1, t2));
+		Mempool receiver = new Mempool();
+		receiver.accept(sender.handOff());
+
+		assertEquals(2, receiver.getNrofTransactions());
+		assertEquals(2, receiver.getNrofTransactionsAccepted());
+		assertEquals(0, receiver.getNrofDuplicatesRejected());
+	}
+
+	public void testAddAll() {
+		Mempool other = new Mempool();
+		other.addPacket(packet(t1, t2));
+		other.addPacket(packet(t3));
+		Mempool pool = new Mempool();
+		pool.addPacket(packet(t2));
+
+		assertEquals(2, pool.addAll(other));
+		assertEquals(3, pool.getNrofTransactions());
+		assertEquals(3, other.getNrofTransactions());
+	}
+}
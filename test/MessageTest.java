@@ -4,6 +4,9 @@
  */
 package test;
 
+import java.util.Arrays;
+import java.util.List;
+
 import junit.framework.TestCase;
 
 import org.junit.Before;
@@ -11,7 +14,9 @@ import org.junit.Test;
 
 import core.DTNHost;
 import core.Message;
+import core.MessageProperty;
 import core.SimClock;
+import core.SimError;
 
 public class MessageTest extends TestCase {
 
@@ -19,11 +24,13 @@ public class MessageTest extends TestCase {
 	private DTNHost from;
 	private DTNHost to;
 	private SimClock sc;
+	private TestUtils utils;
 	
 	@Before
 	public void setUp() throws Exception {
 		sc = SimClock.getInstance();
 		sc.setTime(10);
+		utils = new TestUtils(null, null, new TestSettings());
 		
 		msg = new Message(from, to, "M", 100);
 		msg.setTtl(10);
@@ -60,5 +67,148 @@ public class MessageTest extends TestCase {
 		assertEquals(value2, msg.getProperty("bar"));
 	}
 
+	@Test
+	public void testTypedProperty() {
+		MessageProperty<String> foo =
+			MessageProperty.register("typedFoo", String.class);
+		msg.addProperty(foo, "value");
+
+		assertEquals("value", msg.getProperty(foo));
+		assertEquals("value", msg.getProperty("typedFoo"));
+		assertNull(msg.getProperty("typedBar"));
+
+		msg.updateProperty("typedFoo", "value2");
+		assertEquals("value2", msg.getProperty(foo));
+
+		try {
+			msg.addProperty(foo, "value3");
+			fail("Adding an existing property should fail");
+		} catch (SimError e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testRegisterTypeMismatch() {
+		MessageProperty<String> foo =
+			MessageProperty.register("typedBaz", String.class);
+		assertEquals(foo.getName(),
+				MessageProperty.register("typedBaz", String.class).getName());
+
+		try {
+			MessageProperty.register("typedBaz", Integer.class);
+			fail("Registering a name with another type should fail");
+		} catch (SimError e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testReplicateProperties() {
+		msg.addProperty("foo", "value");
+		Message copy = msg.replicate();
+		assertEquals("value", copy.getProperty("foo"));
+
+		copy.updateProperty("foo", "copyValue");
+		assertEquals("value", msg.getProperty("foo"));
+		assertEquals("copyValue", copy.getProperty("foo"));
+	}
+
+	@Test
+	public void testReplicatePathOriginalFirst() {
+		DTNHost a = utils.createHost();
+		DTNHost b = utils.createHost();
+		DTNHost c = utils.createHost();
+		Message m = new Message(a, c, "P", 100);
+		Message copy = m.replicate();
+
+		m.addNodeOnPath(b);
+		copy.addNodeOnPath(c);
+
+		assertEquals(Arrays.asList(a, b), m.getHops());
+		assertEquals(Arrays.asList(a, c), copy.getHops());
+	}
 
+	@Test
+	public void testReplicatePathReplicateFirst() {
+		DTNHost a = utils.createHost();
+		DTNHost b = utils.createHost();
+		DTNHost c = utils.createHost();
+		Message m = new Message(a, c, "P", 100);
+		Message copy = m.replicate();
+
+		copy.addNodeOnPath(c);
+		m.addNodeOnPath(b);
+		copy.addNodeOnPath(b);
+
+		assertEquals(Arrays.asList(a, b), m.getHops());
+		assertEquals(Arrays.asList(a, c, b), copy.getHops());
+	}
+
+	@Test
+	public void testReplicateOfReplicatePath() {
+		DTNHost a = utils.createHost();
+		DTNHost b = utils.createHost();
+		DTNHost c = utils.createHost();
+		DTNHost d = utils.createHost();
+		Message m = new Message(a, d, "P", 100);
+		m.addNodeOnPath(b);
+		Message copy = m.replicate();
+		copy.addNodeOnPath(c);
+		Message copy2 = copy.replicate();
+
+		copy2.addNodeOnPath(d);
+		copy.addNodeOnPath(a);
+		m.addNodeOnPath(d);
+
+		assertEquals(Arrays.asList(a, b, d), m.getHops());
+		assertEquals(Arrays.asList(a, b, c, a), copy.getHops());
+		assertEquals(Arrays.asList(a, b, c, d), copy2.getHops());
+	}
+
+	@Test
+	public void testHopCountAfterDivergence() {
+		DTNHost a = utils.createHost();
+		DTNHost b = utils.createHost();
+		DTNHost c = utils.createHost();
+		Message m = new Message(a, c, "P", 100);
+		Message copy = m.replicate();
+
+		copy.addNodeOnPath(b);
+		copy.addNodeOnPath(c);
+		assertEquals(0, m.getHopCount());
+		assertEquals(2, copy.getHopCount());
+
+		m.addNodeOnPath(c);
+		assertEquals(1, m.getHopCount());
+		assertEquals(2, copy.getHopCount());
+		assertEquals(m.getHopCount() + 1, m.getHops().size());
+		assertEquals(copy.getHopCount() + 1, copy.getHops().size());
+	}
+
+	@Test
+	public void testHopsUnmodifiable() {
+		DTNHost a = utils.createHost();
+		DTNHost b = utils.createHost();
+		Message m = new Message(a, b, "P", 100);
+		Message copy = m.replicate();
+		copy.addNodeOnPath(b);
+
+		for (List<DTNHost> hops : Arrays.asList(m.getHops(), copy.getHops())) {
+			try {
+				hops.add(b);
+				fail("The hop list should not be modifiable");
+			} catch (UnsupportedOperationException e) {
+				// expected
+			}
+			try {
+				hops.remove(0);
+				fail("The hop list should not be modifiable");
+			} catch (UnsupportedOperationException e) {
+				// expected
+			}
+		}
+		assertEquals(1, m.getHops().size());
+		assertEquals(2, copy.getHops().size());
+	}
 }
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import junit.framework.TestCase;
+import routing.OutgoingQueue;
+import core.CBRConnection;
+import core.Connection;
+import core.DTNHost;
+import core.Message;
+import core.Tuple;
+
+/**
+ * Tests for {@link OutgoingQueue}
+ */
+public class OutgoingQueueTest extends TestCase {
+	private OutgoingQueue queue;
+	private Connection c1, c2;
+	private Message m1, m2, m3;
+
+	public void setUp() {
+		TestUtils utils = new TestUtils(null, null, new TestSettings());
+		DTNHost h0 = utils.createHost();
+		DTNHost h1 = utils.createHost();
+		DTNHost h2 = utils.createHost();
+		c1 = new CBRConnection(h0, h0.getInterfaces().get(0), h1,
+				h1.getInterfaces().get(0), 100);
+		c2 = new CBRConnection(h0, h0.getInterfaces().get(0), h2,
+				h2.getInterfaces().get(0), 100);
+		m1 = new Message(h0, h1, "M1", 10);
+		m2 = new Message(h0, h1, "M2", 10);
+		m3 = new Message(h0, h2, "M3", 10);
+		queue = new OutgoingQueue();
+	}
+
+	/** Returns the queued tuples as "message@connection" strings */
+	private List<String> contents(Iterable<Tuple<Message, Connection>> it) {
+		List<String> list = new ArrayList<String>();
+		for (Tuple<Message, Connection> t : it) {
+			list.add(name(t));
+		}
+		return list;
+	}
+
+	private String name(Tuple<Message, Connection> t) {
+		return t.getKey().getId() + "@" + (t.getValue() == c1 ? "c1" : "c2");
+	}
+
+	private void assertContents(String expected) {
+		assertEquals(expected, contents(queue).toString());
+		assertEquals(queue.size(), contents(queue).size());
+	}
+
+	public void testInsertionOrder() {
+		queue.add(m2, c1);
+		queue.add(m1, c2);
+		queue.add(m1, c1);
+		queue.add(m3, c2);
+		assertContents("[M2@c1, M1@c2, M1@c1, M3@c2]");
+		assertEquals(4, queue.size());
+	}
+
+	public void testRemove() {
+		queue.add(m1, c1);
+		queue.add(m1, c2);
+		queue.add(m2, c1);
+		assertFalse(queue.remove("M3", c1));
+		assertFalse(queue.remove("M2", c2));
+		assertTrue(queue.remove("M1", c2));
+		assertContents("[M1@c1, M2@c1]");
+		assertTrue(queue.remove("M2", c1));
+		assertTrue(queue.remove("M1", c1));
+		assertContents("[]");
+		assertFalse(queue.remove("M1", c1));
+
+		queue.add(m3, c1);
+		assertContents("[M3@c1]");
+	}
+
+	public void testRemoveMessage() {
+		queue.add(m1, c1);
+		queue.add(m2, c1);
+		queue.add(m1, c2);
+		queue.add(m3, c2);
+		queue.removeMessage("M1");
+		assertContents("[M2@c1, M3@c2]");
+		queue.removeMessage("M1");
+		assertEquals(2, queue.size());
+
+		OutgoingQueue.ConnectionQueue cq = queue.removeConnection(c1);
+		assertEquals(2, cq.getNrofAdded());
+		assertContents("[M3@c2]");
+	}
+
+	public void testRemoveConnection() {
+		queue.add(m1, c1);
+		queue.add(m2, c2);
+		queue.add(m2, c1);
+		queue.add(m3, c1);
+		queue.countDecision(c1);
+
+		OutgoingQueue.ConnectionQueue cq = queue.removeConnection(c1);
+		assertEquals(3, cq.getNrofAdded());
+		assertEquals(3, cq.getPeakLength());
+		assertEquals(1, cq.getNrofDecisions());
+		assertContents("[M2@c2]");
+		assertNull(queue.removeConnection(c1));
+
+		/* the removed tuples are no longer indexed by message */
+		assertFalse(queue.remove("M1", c1));
+		queue.removeMessage("M2");
+		assertContents("[]");
+
+		queue.add(m1, c1);
+		cq = queue.removeConnection(c1);
+		assertEquals(1, cq.getNrofAdded());
+	}
+
+	public void testPeakLength() {
+		queue.add(m1, c1);
+		queue.add(m2, c1);
+		queue.remove("M1", c1);
+		queue.add(m3, c1);
+		queue.add(m1, c2);
+		assertEquals(2, queue.removeConnection(c1).getPeakLength());
+	}
+
+	public void testRemoveDuringIteration() {
+		queue.add(m1, c1);
+		queue.add(m2, c1);
+		queue.add(m3, c1);
+		queue.add(m1, c2);
+
+		List<String> seen = new ArrayList<String>();
+		for (Tuple<Message, Connection> t : queue) {
+			seen.add(name(t));
+			if (t.getKey() == m1 && t.getValue() == c1) {
+				queue.remove("M1", c1); // the current tuple
+				queue.remove("M2", c1); // the next tuple
+			}
+		}
+		assertEquals("[M1@c1, M3@c1, M1@c2]", seen.toString());
+		assertContents("[M3@c1, M1@c2]");
+	}
+
+	public void testRemoveHeadDuringIteration() {
+		queue.add(m1, c1);
+		queue.add(m2, c1);
+		queue.add(m3, c1);
+
+		Iterator<Tuple<Message, Connection>> i = queue.iterator();
+		assertEquals("M1@c1", name(i.next()));
+		assertEquals("M2@c1", name(i.next()));
+		queue.remove("M2", c1);
+		queue.remove("M1", c1);
+		assertTrue(i.hasNext());
+		assertEquals("M3@c1", name(i.next()));
+		assertFalse(i.hasNext());
+	}
+
+	public void testRemoveTailAndAppendDuringIteration() {
+		queue.add(m1, c1);
+		queue.add(m2, c1);
+
+		Iterator<Tuple<Message, Connection>> i = queue.iterator();
+		assertEquals("M1@c1", name(i.next()));
+		assertEquals("M2@c1", name(i.next()));
+		queue.remove("M2", c1); // the tail and the current tuple
+		assertFalse(i.hasNext());
+		queue.add(m3, c2);
+		assertTrue(i.hasNext());
+		assertEquals("M3@c2", name(i.next()));
+
+		queue.removeConnection(c2); // all tuples after the first
+		queue.add(m2, c1);
+		queue.add(m3, c1);
+		queue.removeMessage("M3");
+		assertEquals("M2@c1", name(i.next()));
+		assertFalse(i.hasNext());
+		assertContents("[M1@c1, M2@c1]");
+	}
+
+	public void testAppendDuringIteration() {
+		queue.add(m1, c1);
+		List<String> seen = new ArrayList<String>();
+		for (Tuple<Message, Connection> t : queue) {
+			seen.add(name(t));
+			if (t.getKey() == m1) {
+				queue.add(m2, c1);
+				queue.remove("M1", c1);
+			}
+		}
+		assertEquals("[M1@c1, M2@c1]", seen.toString());
+	}
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package test;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+import Blockchain.SignatureVerifier;
+import Blockchain.Transaction;
+import Blockchain.Wallet;
+
+/**
+ * Tests for the verdict cache of {@link SignatureVerifier}
+ */
+public class SignatureVerifierTest extends TestCase {
+	private Wallet sender;
+	private Wallet receiver;
+	private SignatureVerifier verifier;
+
+	public void setUp() {
+		SignatureVerifier.reset();
+		verifier = SignatureVerifier.getInstance();
+		sender = new Wallet();
+		receiver = new Wallet();
+	}
+
+	private Transaction signed(Wallet signer) {
+		Transaction t = new Transaction(sender, receiver, 5, 100);
+		t.generateSignature(signer.getPrivateKey());
+		return t;
+	}
+
+	public void testCachedVerdict() {
+		Transaction t = signed(sender);
+		assertTrue(verifier.verify(t));
+		assertTrue(verifier.verify(t));
+		assertTrue(verifier.verifyAll(Arrays.asList(t))[0]);
+		assertEquals(1, verifier.getMisses());
+		assertEquals(2, verifier.getHits());
+
+		/* ECDSA signatures are randomized: a new signature is verified */
+		assertTrue(verifier.verify(signed(sender)));
+		assertEquals(2, verifier.getMisses());
+	}
+
+	public void testTamperedSignatureAfterCachedVerify() {
+		Transaction t = signed(sender);
+		assertTrue(verifier.verify(t));
+
+		t.generateSignature(receiver.getPrivateKey()); // wrong key
+		assertFalse(verifier.verify(t));
+		assertEquals(2, verifier.getMisses());
+	}
+
+	public void testForgedCopy() {
+		Transaction genuine = signed(sender);
+		Transaction forged = signed(receiver);
+		assertEquals(genuine.getTransactionHash(),
+				forged.getTransactionHash());
+
+		assertTrue(verifier.verify(genuine));
+		assertFalse(verifier.verify(forged));
+		boolean[] valid = verifier.verifyAll(Arrays.asList(forged, genuine));
+		assertFalse(valid[0]);
+		assertTrue(valid[1]);
+	}
+
+	public void testChangedAmount() {
+		Transaction t = signed(sender);
+		assertTrue(verifier.verifyAll(Arrays.asList(t))[0]);
+
+		t.setAmount(500);
+		assertFalse(verifier.verifyAll(Arrays.asList(t))[0]);
+		assertFalse(verifier.verify(t));
+	}
+}